@@ -0,0 +1,141 @@
+package project2;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+    The FakebookOracleBenchmark class holds one JMH benchmark per query function of
+    FakebookOracle. Each trial builds the backend named by <backend>, as on the
+    FakebookOracleMain command line: "oracle" for StudentFakebookOracle and "memory" for
+    InMemoryFakebookOracle over the course database, or "memory=<directory>" for
+    InMemoryFakebookOracle over a dataset written by FakebookDataGenerator. Generated
+    datasets have no Oracle counterpart, so they are only listed as memory backends.
+    Connection setup and snapshot loading are not part of the measurement. By default the
+    generated datasets "data/generated" and "data/large" are measured next to the course
+    database; `make benchmark` generates them (BENCH_USERS and BENCH_LARGE_USERS users)
+    if they do not exist yet. Forks get the 2 GB heap that the Makefile gives in-memory
+    runs, which the one-million-user dataset needs.
+
+    Run with `make benchmark`, which adds the GC profiler so that allocation per
+    operation is reported next to throughput and average time. Parameters can be
+    overridden on the command line, e.g. JMH_ARGS="-p backend=memory -p num=50".
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2G")
+public class FakebookOracleBenchmark {
+    // Benchmark Parameters
+    @Param({ "oracle", "memory", "memory=data/generated", "memory=data/large" })
+    public String backend;
+
+    @Param({ "" + FakebookOracleConstants.DefaultNum })
+    public int num;
+
+    @Param({ "" + FakebookOracleConstants.DefaultYearDiff })
+    public int yearDiff;
+
+    @Param({ "" + FakebookOracleConstants.DefaultUserID })
+    public long userID;
+
+    // [Trial Setup]
+    // EFFECTS:  opens the connection and builds the backend under test
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        if (backend.startsWith("memory=")) {
+            File directory = new File(backend.substring("memory=".length()));
+            db = new InMemoryFakebookOracle(FakebookSnapshotLoader.load(directory));
+            return;
+        }
+        connection = FakebookOracleMain.getConnection();
+        if (backend.equals("oracle")) {
+            db = new StudentFakebookOracle(connection);
+        } else if (backend.equals("memory")) {
+            db = new InMemoryFakebookOracle(FakebookSnapshotLoader.load(connection));
+        } else {
+            throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+    }
+
+    // [Trial Teardown]
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    // Query Benchmarks
+    @Benchmark
+    public BirthMonthInfo query0FindMonthOfBirthInfo() throws SQLException {
+        return db.findMonthOfBirthInfo();
+    }
+
+    @Benchmark
+    public FirstNameInfo query1FindNameInfo() throws SQLException {
+        return db.findNameInfo();
+    }
+
+    @Benchmark
+    public FakebookArrayList<UserInfo> query2LonelyUsers() throws SQLException {
+        return db.lonelyUsers();
+    }
+
+    @Benchmark
+    public FakebookArrayList<UserInfo> query3LiveAwayFromHome() throws SQLException {
+        return db.liveAwayFromHome();
+    }
+
+    @Benchmark
+    public FakebookArrayList<TaggedPhotoInfo> query4FindPhotosWithMostTags() throws SQLException {
+        return db.findPhotosWithMostTags(num);
+    }
+
+    @Benchmark
+    public FakebookArrayList<MatchPair> query5MatchMaker() throws SQLException {
+        return db.matchMaker(num, yearDiff);
+    }
+
+    @Benchmark
+    public FakebookArrayList<UsersPair> query6SuggestFriends() throws SQLException {
+        return db.suggestFriends(num);
+    }
+
+    @Benchmark
+    public EventStateInfo query7FindEventStates() throws SQLException {
+        return db.findEventStates();
+    }
+
+    @Benchmark
+    public AgeInfo query8FindAgeInfo() throws SQLException {
+        return db.findAgeInfo(userID);
+    }
+
+    @Benchmark
+    public FakebookArrayList<SiblingInfo> query9FindPotentialSiblings() throws SQLException {
+        return db.findPotentialSiblings();
+    }
+
+    // Member Variables
+    private Connection connection;
+    private FakebookOracle db;
+}
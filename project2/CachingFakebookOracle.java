@@ -0,0 +1,389 @@
+package project2;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/*
+    The CachingFakebookOracle class is derived from the FakebookOracle class and answers
+    each query from a cache of the results that another FakebookOracle gave for the same
+    arguments. Results are kept until they are older than the time-to-live, until they are
+    the least recently used once more than <capacity> result rows are held, or until a
+    table they were computed from is invalidated.
+
+    Concurrent calls with the same arguments share a single call to the wrapped oracle:
+    the first caller runs the query and the others wait for its result (or its exception,
+    which is not cached). A result that was being computed while one of the tables was
+    invalidated is returned to its callers but not cached.
+
+    Cached results are handed to every caller that asks for them, so callers must not
+    modify them.
+*/
+public final class CachingFakebookOracle extends FakebookOracle {
+    // Default number of result rows held
+    public static final long DefaultCapacity = 100000L;
+
+    // Default time-to-live of a cached result, in milliseconds
+    public static final long DefaultTimeToLive = 60000L;
+
+    // [Constructor]
+    // REQUIRES: <oracle> is not NULL and is safe to use from several threads at once;
+    //           <capacity> > 0 and <timeToLive> > 0
+    // EFFECTS:  creates a cache of the results of <oracle> holding up to <capacity> rows,
+    //           each for at most <timeToLive> milliseconds
+    public CachingFakebookOracle(FakebookOracle oracle, long capacity, long timeToLive) {
+        this.oracle = oracle;
+        this.capacity = capacity;
+        this.timeToLive = timeToLive * 1000000L;
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        flights = new HashMap<String, CompletableFuture<Object>>();
+    }
+
+    // [Constructor]
+    public CachingFakebookOracle(FakebookOracle oracle) {
+        this(oracle, DefaultCapacity, DefaultTimeToLive);
+    }
+
+    @Override
+    // Query 0
+    public BirthMonthInfo findMonthOfBirthInfo() throws SQLException {
+        return lookup("0", UsersTable, () -> oracle.findMonthOfBirthInfo());
+    }
+
+    @Override
+    // Query 1
+    public FirstNameInfo findNameInfo() throws SQLException {
+        return lookup("1", UsersTable, () -> oracle.findNameInfo());
+    }
+
+    @Override
+    // Query 2
+    public FakebookArrayList<UserInfo> lonelyUsers() throws SQLException {
+        return lookup("2", UsersTable + FriendsTable, () -> oracle.lonelyUsers());
+    }
+
+    @Override
+    // Query 3
+    public FakebookArrayList<UserInfo> liveAwayFromHome() throws SQLException {
+        return lookup("3", UsersTable + CurrentCitiesTable + HometownCitiesTable,
+                () -> oracle.liveAwayFromHome());
+    }
+
+    @Override
+    // Query 4
+    public FakebookArrayList<TaggedPhotoInfo> findPhotosWithMostTags(int num) throws SQLException {
+        return lookup("4 " + num, UsersTable + PhotosTable + AlbumsTable + TagsTable,
+                () -> oracle.findPhotosWithMostTags(num));
+    }
+
+    @Override
+    // Query 5
+    public FakebookArrayList<MatchPair> matchMaker(int num, int yearDiff) throws SQLException {
+        return lookup("5 " + num + " " + yearDiff,
+                UsersTable + FriendsTable + PhotosTable + AlbumsTable + TagsTable,
+                () -> oracle.matchMaker(num, yearDiff));
+    }
+
+    @Override
+    // Query 6
+    public FakebookArrayList<UsersPair> suggestFriends(int num) throws SQLException {
+        return lookup("6 " + num, UsersTable + FriendsTable, () -> oracle.suggestFriends(num));
+    }
+
+    @Override
+    // Query 7
+    public EventStateInfo findEventStates() throws SQLException {
+        return lookup("7", EventsTable + CitiesTable, () -> oracle.findEventStates());
+    }
+
+    @Override
+    // Query 8
+    public AgeInfo findAgeInfo(long userID) throws SQLException {
+        return lookup("8 " + userID, UsersTable + FriendsTable, () -> oracle.findAgeInfo(userID));
+    }
+
+    @Override
+    // Query 8 (Batch)
+    // Batches are passed straight to the wrapped oracle: their results are keyed by whole
+    // lists of users, which are rarely asked for twice
+    public Map<Long, AgeInfo> findAgeInfo(long[] userIDs) throws SQLException {
+        return oracle.findAgeInfo(userIDs);
+    }
+
+    @Override
+    // Query 9
+    public FakebookArrayList<SiblingInfo> findPotentialSiblings() throws SQLException {
+        return lookup("9", UsersTable + FriendsTable + HometownCitiesTable,
+                () -> oracle.findPotentialSiblings());
+    }
+
+    // [Invalidate Function]
+    // MODIFIES: this
+    // EFFECTS:  removes every cached result computed from <table>, which may be given
+    //           with or without its schema (e.g. "project2.Public_Friends" or
+    //           "Public_Friends"), and returns how many were removed
+    public synchronized int invalidate(String table) {
+        String name = table.substring(table.indexOf('.') + 1).toUpperCase();
+        String tag = "." + name + ";";
+        int removed = 0;
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+            Entry entry = it.next();
+            if (entry.tables.contains(tag)) {
+                it.remove();
+                held -= entry.rows;
+                removed++;
+            }
+        }
+        generation++;
+        invalidations += removed;
+        return removed;
+    }
+
+    // [Invalidate All Function]
+    // MODIFIES: this
+    // EFFECTS:  removes every cached result and returns how many were removed
+    public synchronized int invalidateAll() {
+        int removed = entries.size();
+        entries.clear();
+        held = 0;
+        generation++;
+        invalidations += removed;
+        return removed;
+    }
+
+    // [Metric Accessors]
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    // EFFECTS:  returns the number of lookups that waited for a call already in progress
+    public synchronized long shared() {
+        return shared;
+    }
+
+    // EFFECTS:  returns the fraction of lookups answered without a call of their own to
+    //           the wrapped oracle, or 0 if there have been none
+    public synchronized double hitRatio() {
+        long lookups = hits + shared + misses;
+        return lookups == 0 ? 0.0 : (double) (hits + shared) / lookups;
+    }
+
+    // EFFECTS:  returns the number of results removed to stay within the capacity
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    // EFFECTS:  returns the number of results removed for outliving the time-to-live
+    public synchronized long expirations() {
+        return expirations;
+    }
+
+    // EFFECTS:  returns the number of results removed by invalidation
+    public synchronized long invalidations() {
+        return invalidations;
+    }
+
+    // EFFECTS:  returns the number of calls made to the wrapped oracle
+    public synchronized long loads() {
+        return loads;
+    }
+
+    // EFFECTS:  returns the total time spent in calls to the wrapped oracle, in nanoseconds
+    public synchronized long loadTime() {
+        return loadTime;
+    }
+
+    // EFFECTS:  returns the number of result rows currently held
+    public synchronized long size() {
+        return held;
+    }
+
+    // [Statistics Converter]
+    // EFFECTS:  returns a one-line summary of the cache metrics
+    public synchronized String toString() {
+        return String.format("Result cache: %d hit(s), %d shared, %d miss(es) (%.1f%% hits), %d eviction(s), "
+                + "%d expired, %d invalidated, %d load(s) averaging %.3f s, %d row(s) held",
+                hits, shared, misses, hitRatio() * 100.0, evictions, expirations, invalidations, loads,
+                loads == 0 ? 0.0 : loadTime / 1e9 / loads, held);
+    }
+
+    // [Lookup Function]
+    // MODIFIES: this
+    // EFFECTS:  returns the cached result for <key> if it is still fresh; otherwise waits
+    //           for the call already loading it, or loads it with <loader> and caches it
+    //           as depending on <tables>
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(String key, String tables, Loader<T> loader) throws SQLException {
+        CompletableFuture<Object> flight;
+        long started;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loaded < timeToLive) {
+                    hits++;
+                    return (T) entry.value;
+                }
+                entries.remove(key);
+                held -= entry.rows;
+                expirations++;
+            }
+            flight = flights.get(key);
+            if (flight != null) {
+                shared++;
+                started = -1;
+            } else {
+                misses++;
+                flight = new CompletableFuture<Object>();
+                flights.put(key, flight);
+                started = generation;
+            }
+        }
+        if (started < 0) {
+            return (T) await(flight);
+        }
+
+        long beginTime = System.nanoTime();
+        try {
+            T value = loader.load();
+            long endTime = System.nanoTime();
+            synchronized (this) {
+                flights.remove(key);
+                loads++;
+                loadTime += endTime - beginTime;
+                if (started == generation) {
+                    store(key, new Entry(value, tables, endTime));
+                }
+            }
+            flight.complete(value);
+            return value;
+        } catch (SQLException | RuntimeException | Error e) {
+            synchronized (this) {
+                flights.remove(key);
+                loads++;
+                loadTime += System.nanoTime() - beginTime;
+            }
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // [Store Function]
+    // REQUIRES: the caller holds the lock on this
+    // MODIFIES: this
+    // EFFECTS:  caches <entry> under <key>, evicting the least recently used results until
+    //           no more than <capacity> rows are held; results larger than the whole
+    //           cache are not kept
+    private void store(String key, Entry entry) {
+        if (entry.rows > capacity) {
+            return;
+        }
+        Entry replaced = entries.put(key, entry);
+        if (replaced != null) {
+            held -= replaced.rows;
+        }
+        held += entry.rows;
+        for (Iterator<Entry> eldest = entries.values().iterator(); held > capacity;) {
+            held -= eldest.next().rows;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // [Wait Function]
+    // EFFECTS:  returns the result of <flight> once it is done, rethrowing the exception
+    //           that the call loading it failed with
+    private static Object await(CompletableFuture<Object> flight) throws SQLException {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a query", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    // [Row Counter]
+    // EFFECTS:  returns the number of rows <value> is charged for in the cache: one for
+    //           the result itself, and one for each row it holds
+    private static long rows(Object value) {
+        long rows = 1;
+        if (value instanceof ArrayList) {
+            rows += ((ArrayList<?>) value).size();
+        }
+        return rows;
+    }
+
+    /*
+        The Loader interface calls the wrapped oracle to compute a result.
+    */
+    private interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    /*
+        The Entry class is a cached result together with the tables it was computed from
+        and the time at which it was computed.
+    */
+    private static final class Entry {
+        Entry(Object value, String tables, long loaded) {
+            this.value = value;
+            this.tables = tables;
+            this.loaded = loaded;
+            rows = rows(value);
+        }
+
+        final Object value;
+        final String tables;
+        final long loaded;
+        final long rows;
+    }
+
+    // Table tags, each as ".<TABLE>;" so that one cannot match inside another
+    private static final String UsersTable = tag(FakebookOracleConstants.UsersTable);
+    private static final String FriendsTable = tag(FakebookOracleConstants.FriendsTable);
+    private static final String CitiesTable = tag(FakebookOracleConstants.CitiesTable);
+    private static final String CurrentCitiesTable = tag(FakebookOracleConstants.CurrentCitiesTable);
+    private static final String HometownCitiesTable = tag(FakebookOracleConstants.HometownCitiesTable);
+    private static final String EventsTable = tag(FakebookOracleConstants.EventsTable);
+    private static final String AlbumsTable = tag(FakebookOracleConstants.AlbumsTable);
+    private static final String PhotosTable = tag(FakebookOracleConstants.PhotosTable);
+    private static final String TagsTable = tag(FakebookOracleConstants.TagsTable);
+
+    private static String tag(String table) {
+        return "." + table.substring(table.indexOf('.') + 1).toUpperCase() + ";";
+    }
+
+    // Member Variables
+    private final FakebookOracle oracle;
+    private final long capacity;
+    private final long timeToLive;
+    private final LinkedHashMap<String, Entry> entries;
+    private final HashMap<String, CompletableFuture<Object>> flights;
+    private long held;
+    private long generation;
+    private long hits;
+    private long shared;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private long loads;
+    private long loadTime;
+}
@@ -0,0 +1,513 @@
+package project2;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/*
+    The FakebookAggregates class keeps the aggregates behind Queries 0, 1 and 7 up to date
+    as users, cities and events are inserted and deleted, so that each of those queries is
+    answered in time proportional to the size of its result instead of by regrouping a
+    whole table:
+
+        Query 0  the users of each birth month, in user ID order
+        Query 1  the distinct first names of each length, and of each number of users
+                 holding them, in name order
+        Query 7  the number of events in each state, and the states with each number of
+                 events, in name order (NULL state names last)
+
+    Each change costs O(log n). Results match those of InMemoryFakebookOracle on the same
+    rows, including how ties and NULLs are broken. verify recomputes all three answers from
+    the stored rows from scratch and fails if they differ from the maintained ones.
+
+    Every function is synchronized, so changes and queries may come from several threads.
+*/
+final class FakebookAggregates {
+    // [Constructor]
+    // EFFECTS:  creates aggregates over no rows
+    public FakebookAggregates() {
+        users = new HashMap<Long, User>();
+        months = new TreeMap<Integer, TreeMap<Long, User>>();
+        names = new FakebookDictionary();
+        nameCounts = new HashMap<String, int[]>();
+        namesByLength = new TreeMap<Integer, TreeSet<String>>();
+        namesByCount = new TreeMap<Integer, TreeSet<String>>();
+        cities = new HashMap<Long, String>();
+        events = new HashMap<Long, Long>();
+        cityEvents = new HashMap<Long, int[]>();
+        stateCounts = new HashMap<String, int[]>();
+        statesByCount = new TreeMap<Integer, TreeSet<String>>();
+        monthUsers = 0;
+    }
+
+    // [Snapshot Loader]
+    // EFFECTS:  returns aggregates over the users, cities and events of <snapshot>
+    public static FakebookAggregates load(FakebookSnapshot snapshot) {
+        FakebookAggregates aggregates = new FakebookAggregates();
+        for (int row = 0; row < snapshot.userCount(); row++) {
+            aggregates.insertUser(snapshot.userIds[row], snapshot.names.decode(snapshot.firstNames[row]),
+                    snapshot.names.decode(snapshot.lastNames[row]), snapshot.birthMonths[row]);
+        }
+        for (int row = 0; row < snapshot.cityIds.length; row++) {
+            aggregates.insertCity(snapshot.cityIds[row], snapshot.strings.decode(snapshot.cityStates[row]));
+        }
+        for (int row = 0; row < snapshot.eventIds.length; row++) {
+            aggregates.insertEvent(snapshot.eventIds[row], snapshot.eventCities[row]);
+        }
+        return aggregates;
+    }
+
+    // [Database Loader]
+    // REQUIRES: <connection> is a valid JDBC connection
+    // EFFECTS:  returns aggregates over the users, cities and events in the database,
+    //           read in one forward-only scan of each table
+    public static FakebookAggregates load(Connection connection) throws SQLException {
+        FakebookAggregates aggregates = new FakebookAggregates();
+        try (Statement stmt = connection.createStatement(FakebookOracleConstants.ForwardOnly,
+                FakebookOracleConstants.ReadOnly)) {
+            stmt.setFetchSize(FakebookOracleConstants.StreamingFetchSize);
+            try (ResultSet rst = stmt.executeQuery("SELECT USER_ID, FIRST_NAME, LAST_NAME, MONTH_OF_BIRTH FROM "
+                    + FakebookOracleConstants.UsersTable)) {
+                while (rst.next()) {
+                    int month = rst.getInt(4);
+                    aggregates.insertUser(rst.getLong(1), rst.getString(2), rst.getString(3),
+                            rst.wasNull() ? FakebookSnapshot.NULL_INT : month);
+                }
+            }
+            try (ResultSet rst = stmt.executeQuery("SELECT CITY_ID, STATE_NAME FROM "
+                    + FakebookOracleConstants.CitiesTable)) {
+                while (rst.next()) {
+                    aggregates.insertCity(rst.getLong(1), rst.getString(2));
+                }
+            }
+            try (ResultSet rst = stmt.executeQuery("SELECT EVENT_ID, EVENT_CITY_ID FROM "
+                    + FakebookOracleConstants.EventsTable)) {
+                while (rst.next()) {
+                    long city = rst.getLong(2);
+                    aggregates.insertEvent(rst.getLong(1), rst.wasNull() ? FakebookSnapshot.NULL_LONG : city);
+                }
+            }
+        }
+        return aggregates;
+    }
+
+    // [Insert User Function]
+    // MODIFIES: this
+    // EFFECTS:  adds the user <userID>, replacing any user with the same ID; <monthOfBirth>
+    //           is FakebookSnapshot.NULL_INT if the user's birth month is not listed
+    public synchronized void insertUser(long userID, String firstName, String lastName, int monthOfBirth) {
+        deleteUser(userID);
+        firstName = names.decode(names.encode(firstName));
+        User user = new User(userID, firstName, names.decode(names.encode(lastName)), monthOfBirth);
+        users.put(userID, user);
+        if (monthOfBirth != FakebookSnapshot.NULL_INT) {
+            months.computeIfAbsent(monthOfBirth, k -> new TreeMap<Long, User>()).put(userID, user);
+            monthUsers++;
+        }
+        if (firstName != null) {
+            int[] count = nameCounts.get(firstName);
+            if (count == null) {
+                count = new int[1];
+                nameCounts.put(firstName, count);
+                add(namesByLength, firstName.length(), firstName);
+            } else {
+                remove(namesByCount, count[0], firstName);
+            }
+            count[0]++;
+            add(namesByCount, count[0], firstName);
+        }
+    }
+
+    // [Delete User Function]
+    // MODIFIES: this
+    // EFFECTS:  removes the user <userID> and returns true, or returns false if there is
+    //           no such user
+    public synchronized boolean deleteUser(long userID) {
+        User user = users.remove(userID);
+        if (user == null) {
+            return false;
+        }
+        if (user.month != FakebookSnapshot.NULL_INT) {
+            TreeMap<Long, User> month = months.get(user.month);
+            month.remove(userID);
+            if (month.isEmpty()) {
+                months.remove(user.month);
+            }
+            monthUsers--;
+        }
+        if (user.firstName != null) {
+            int[] count = nameCounts.get(user.firstName);
+            remove(namesByCount, count[0], user.firstName);
+            count[0]--;
+            if (count[0] == 0) {
+                nameCounts.remove(user.firstName);
+                remove(namesByLength, user.firstName.length(), user.firstName);
+            } else {
+                add(namesByCount, count[0], user.firstName);
+            }
+        }
+        return true;
+    }
+
+    // [Insert City Function]
+    // MODIFIES: this
+    // EFFECTS:  adds the city <cityID> in <stateName>, replacing any city with the same ID;
+    //           events already held in the city are counted in its state
+    public synchronized void insertCity(long cityID, String stateName) {
+        deleteCity(cityID);
+        cities.put(cityID, stateName);
+        int[] held = cityEvents.get(cityID);
+        if (held != null) {
+            countState(stateName, held[0]);
+        }
+    }
+
+    // [Delete City Function]
+    // MODIFIES: this
+    // EFFECTS:  removes the city <cityID> and returns true, or returns false if there is
+    //           no such city; its events stay but are no longer counted in any state
+    public synchronized boolean deleteCity(long cityID) {
+        if (!cities.containsKey(cityID)) {
+            return false;
+        }
+        String state = cities.remove(cityID);
+        int[] held = cityEvents.get(cityID);
+        if (held != null) {
+            countState(state, -held[0]);
+        }
+        return true;
+    }
+
+    // [Insert Event Function]
+    // MODIFIES: this
+    // EFFECTS:  adds the event <eventID> held in the city <cityID>, replacing any event
+    //           with the same ID
+    public synchronized void insertEvent(long eventID, long cityID) {
+        deleteEvent(eventID);
+        events.put(eventID, cityID);
+        cityEvents.computeIfAbsent(cityID, k -> new int[1])[0]++;
+        if (cities.containsKey(cityID)) {
+            countState(cities.get(cityID), 1);
+        }
+    }
+
+    // [Delete Event Function]
+    // MODIFIES: this
+    // EFFECTS:  removes the event <eventID> and returns true, or returns false if there is
+    //           no such event
+    public synchronized boolean deleteEvent(long eventID) {
+        Long cityID = events.remove(eventID);
+        if (cityID == null) {
+            return false;
+        }
+        int[] held = cityEvents.get(cityID);
+        if (--held[0] == 0) {
+            cityEvents.remove(cityID);
+        }
+        if (cities.containsKey(cityID)) {
+            countState(cities.get(cityID), -1);
+        }
+        return true;
+    }
+
+    // [Query 0 Function]
+    // EFFECTS:  returns the answer to Query 0; ties for the most common month go to the
+    //           earliest month and ties for the least common month to the latest
+    public synchronized BirthMonthInfo birthMonthInfo() {
+        int mostMonth = 0;
+        int leastMonth = 0;
+        int mostCount = 0;
+        int leastCount = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, TreeMap<Long, User>> month : months.entrySet()) {
+            int count = month.getValue().size();
+            if (count > mostCount) {
+                mostCount = count;
+                mostMonth = month.getKey();
+            }
+            if (count <= leastCount) {
+                leastCount = count;
+                leastMonth = month.getKey();
+            }
+        }
+
+        BirthMonthInfo info = new BirthMonthInfo(monthUsers, mostMonth, leastMonth);
+        FakebookUserStore store = new FakebookUserStore();
+        if (!months.isEmpty()) {
+            for (User user : months.get(mostMonth).values()) {
+                info.addMostPopularBirthMonthUser(user.userInfo(store));
+            }
+            for (User user : months.get(leastMonth).values()) {
+                info.addLeastPopularBirthMonthUser(user.userInfo(store));
+            }
+        }
+        return info;
+    }
+
+    // [Query 1 Function]
+    // EFFECTS:  returns the answer to Query 1
+    public synchronized FirstNameInfo nameInfo() {
+        FirstNameInfo info = new FirstNameInfo();
+        if (nameCounts.isEmpty()) {
+            info.setCommonNameCount(0);
+            return info;
+        }
+        for (String name : namesByLength.lastEntry().getValue()) {
+            info.addLongName(name);
+        }
+        for (String name : namesByLength.firstEntry().getValue()) {
+            info.addShortName(name);
+        }
+        Map.Entry<Integer, TreeSet<String>> common = namesByCount.lastEntry();
+        for (String name : common.getValue()) {
+            info.addCommonName(name);
+        }
+        info.setCommonNameCount(common.getKey());
+        return info;
+    }
+
+    // [Query 7 Function]
+    // EFFECTS:  returns the answer to Query 7
+    public synchronized EventStateInfo eventStates() {
+        if (statesByCount.isEmpty()) {
+            System.err.println("No events found");
+            return new EventStateInfo(-1);
+        }
+        Map.Entry<Integer, TreeSet<String>> most = statesByCount.lastEntry();
+        EventStateInfo info = new EventStateInfo(most.getKey());
+        for (String state : most.getValue()) {
+            info.addState(state);
+        }
+        return info;
+    }
+
+    // [Consistency Checker]
+    // EFFECTS:  recomputes the answers to Queries 0, 1 and 7 from the stored users, cities
+    //           and events without using any maintained aggregate, and throws an
+    //           IllegalStateException describing the first answer that differs
+    public synchronized void verify() {
+        // Query 0
+        ArrayList<User> byID = new ArrayList<User>(users.values());
+        byID.sort((a, b) -> Long.compare(a.id, b.id));
+        int[] monthCounts = new int[13];
+        HashMap<Integer, int[]> otherMonths = new HashMap<Integer, int[]>();
+        int total = 0;
+        for (User user : byID) {
+            if (user.month == FakebookSnapshot.NULL_INT) {
+                continue;
+            }
+            total++;
+            if (user.month >= 1 && user.month <= 12) {
+                monthCounts[user.month]++;
+            } else {
+                otherMonths.computeIfAbsent(user.month, k -> new int[1])[0]++;
+            }
+        }
+        TreeMap<Integer, Integer> counted = new TreeMap<Integer, Integer>();
+        for (int month = 1; month <= 12; month++) {
+            if (monthCounts[month] > 0) {
+                counted.put(month, monthCounts[month]);
+            }
+        }
+        for (Map.Entry<Integer, int[]> month : otherMonths.entrySet()) {
+            counted.put(month.getKey(), month.getValue()[0]);
+        }
+        int mostMonth = 0;
+        int leastMonth = 0;
+        int mostCount = 0;
+        int leastCount = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, Integer> month : counted.entrySet()) {
+            if (month.getValue() > mostCount) {
+                mostCount = month.getValue();
+                mostMonth = month.getKey();
+            }
+            if (month.getValue() <= leastCount) {
+                leastCount = month.getValue();
+                leastMonth = month.getKey();
+            }
+        }
+        BirthMonthInfo months = new BirthMonthInfo(total, mostMonth, leastMonth);
+        FakebookUserStore store = new FakebookUserStore();
+        for (User user : byID) {
+            if (total > 0 && user.month == mostMonth) {
+                months.addMostPopularBirthMonthUser(user.userInfo(store));
+            }
+        }
+        for (User user : byID) {
+            if (total > 0 && user.month == leastMonth) {
+                months.addLeastPopularBirthMonthUser(user.userInfo(store));
+            }
+        }
+        compare("Query 0", months, birthMonthInfo());
+
+        // Query 1
+        HashMap<String, Integer> counts = new HashMap<String, Integer>();
+        for (User user : byID) {
+            if (user.firstName != null) {
+                counts.merge(user.firstName, 1, Integer::sum);
+            }
+        }
+        int mostLetters = -1;
+        int leastLetters = Integer.MAX_VALUE;
+        int mostHeld = 0;
+        for (Map.Entry<String, Integer> name : counts.entrySet()) {
+            mostLetters = Math.max(mostLetters, name.getKey().length());
+            leastLetters = Math.min(leastLetters, name.getKey().length());
+            mostHeld = Math.max(mostHeld, name.getValue());
+        }
+        ArrayList<String> names = new ArrayList<String>(counts.keySet());
+        Collections.sort(names);
+        FirstNameInfo firstNames = new FirstNameInfo();
+        for (String name : names) {
+            if (name.length() == mostLetters) {
+                firstNames.addLongName(name);
+            }
+        }
+        for (String name : names) {
+            if (name.length() == leastLetters) {
+                firstNames.addShortName(name);
+            }
+        }
+        for (String name : names) {
+            if (counts.get(name) == mostHeld) {
+                firstNames.addCommonName(name);
+            }
+        }
+        firstNames.setCommonNameCount(mostHeld);
+        compare("Query 1", firstNames, nameInfo());
+
+        // Query 7
+        HashMap<String, Integer> states = new HashMap<String, Integer>();
+        for (Long cityID : events.values()) {
+            if (cities.containsKey(cityID)) {
+                states.merge(cities.get(cityID), 1, Integer::sum);
+            }
+        }
+        if (states.isEmpty()) {
+            if (!statesByCount.isEmpty()) {
+                throw new IllegalStateException("Query 7: expected no events, found " + stateCounts.size()
+                        + " state(s)");
+            }
+            return;
+        }
+        int mostEvents = Collections.max(states.values());
+        ArrayList<String> popular = new ArrayList<String>();
+        for (Map.Entry<String, Integer> state : states.entrySet()) {
+            if (state.getValue() == mostEvents) {
+                popular.add(state.getKey());
+            }
+        }
+        popular.sort(StateOrder);
+        EventStateInfo eventStates = new EventStateInfo(mostEvents);
+        for (String state : popular) {
+            eventStates.addState(state);
+        }
+        compare("Query 7", eventStates, eventStates());
+    }
+
+    // [Reference Checker]
+    // EFFECTS:  throws an IllegalStateException describing the first of Queries 0, 1 and 7
+    //           whose answer differs from that of <reference>, which holds the same rows
+    public void verify(FakebookOracle reference) throws SQLException {
+        compare("Query 0", reference.findMonthOfBirthInfo(), birthMonthInfo());
+        compare("Query 1", reference.findNameInfo(), nameInfo());
+        compare("Query 7", reference.findEventStates(), eventStates());
+    }
+
+    // [Comparison Function]
+    // EFFECTS:  throws an IllegalStateException if <expected> and <actual> render differently
+    private static void compare(String query, Object expected, Object actual) {
+        String want = expected.toString();
+        String got = actual.toString();
+        if (!want.equals(got)) {
+            throw new IllegalStateException(String.format("%s: expected%n%s%nbut the aggregates give%n%s", query,
+                    want, got));
+        }
+    }
+
+    // [State Counter]
+    // MODIFIES: this
+    // EFFECTS:  adds <delta> to the number of events in <state>
+    private void countState(String state, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        int[] count = stateCounts.get(state);
+        if (count == null) {
+            count = new int[1];
+            stateCounts.put(state, count);
+        } else {
+            remove(statesByCount, count[0], state);
+        }
+        count[0] += delta;
+        if (count[0] == 0) {
+            stateCounts.remove(state);
+        } else {
+            add(statesByCount, count[0], state);
+        }
+    }
+
+    // [Group Functions]
+    // MODIFIES: <groups>
+    // EFFECTS:  adds <value> to, or removes it from, the group of <groups> under <key>;
+    //           empty groups are removed
+    private static void add(TreeMap<Integer, TreeSet<String>> groups, int key, String value) {
+        groups.computeIfAbsent(key, k -> new TreeSet<String>(StateOrder)).add(value);
+    }
+
+    private static void remove(TreeMap<Integer, TreeSet<String>> groups, int key, String value) {
+        TreeSet<String> group = groups.get(key);
+        group.remove(value);
+        if (group.isEmpty()) {
+            groups.remove(key);
+        }
+    }
+
+    /*
+        The User class is a stored user row. Its names are the strings held in <names>,
+        so users with the same name share one string.
+    */
+    private static final class User {
+        User(long id, String firstName, String lastName, int month) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.month = month;
+        }
+
+        // MODIFIES: <store>
+        // EFFECTS:  adds this user to <store> and returns a view of it
+        UserInfo userInfo(FakebookUserStore store) {
+            return store.userInfo(store.add(id, firstName, lastName));
+        }
+
+        final long id;
+        final String firstName;
+        final String lastName;
+        final int month;
+    }
+
+    // Order of names: natural order, with NULL after every name
+    private static final Comparator<String> StateOrder = Comparator.nullsLast(Comparator.naturalOrder());
+
+    // Member Variables
+    private final HashMap<Long, User> users;
+    private final TreeMap<Integer, TreeMap<Long, User>> months;
+    private final FakebookDictionary names;
+    private final HashMap<String, int[]> nameCounts;
+    private final TreeMap<Integer, TreeSet<String>> namesByLength;
+    private final TreeMap<Integer, TreeSet<String>> namesByCount;
+    private final HashMap<Long, String> cities;
+    private final HashMap<Long, Long> events;
+    private final HashMap<Long, int[]> cityEvents;
+    private final HashMap<String, int[]> stateCounts;
+    private final TreeMap<Integer, TreeSet<String>> statesByCount;
+    private int monthUsers;
+}
@@ -0,0 +1,169 @@
+package project2;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/*
+    The FakebookAggregatesCheck class tests FakebookAggregates by applying a random
+    sequence of user, city and event inserts, replacements and deletes to them. After
+    every round of changes the maintained answers to Queries 0, 1 and 7 are checked
+    against a full recomputation (FakebookAggregates.verify), and every few rounds against
+    an InMemoryFakebookOracle over a snapshot of the same rows. Names, months and states
+    are drawn from small pools, and include NULLs, so that ties and empty groups are
+    common.
+
+    Usage: FakebookAggregatesCheck [seed=<seed>] [rounds=<rounds>] [changes=<changes>]
+
+    The process exits with status 1 at the first answer that differs, so "make check"
+    fails.
+*/
+public final class FakebookAggregatesCheck {
+    // Default Options
+    public static final long DefaultSeed = 484L;
+    public static final int DefaultRounds = 200;
+    public static final int DefaultChanges = 50;
+
+    // Value Pools
+    private static final String[] FirstNames = { "Arwen", "Eowyn", "Frodo", "Gimli", "Pippin", "Sam", "Galadriel",
+            "Bo", null };
+    private static final String[] LastNames = { "Baggins", "Brandybuck", "Took", null };
+    private static final String[] States = { "Gondor", "Rohan", "The Shire", "Mordor", null };
+
+    // Number of rounds between comparisons with a snapshot of the rows
+    private static final int SnapshotInterval = 10;
+
+    // [Main Function]
+    public static void main(String[] args) {
+        long seed = DefaultSeed;
+        int rounds = DefaultRounds;
+        int changes = DefaultChanges;
+        for (String arg : args) {
+            if (arg.startsWith("seed=")) {
+                seed = Long.parseLong(arg.substring("seed=".length()));
+            } else if (arg.startsWith("rounds=")) {
+                rounds = Integer.parseInt(arg.substring("rounds=".length()));
+            } else if (arg.startsWith("changes=")) {
+                changes = Integer.parseInt(arg.substring("changes=".length()));
+            } else {
+                throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+
+        FakebookAggregatesCheck check = new FakebookAggregatesCheck(seed);
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                for (int change = 0; change < changes; change++) {
+                    check.change();
+                }
+                check.aggregates.verify();
+                if (round % SnapshotInterval == 0 || round == rounds) {
+                    check.compareWithSnapshot();
+                }
+            }
+        } catch (IllegalStateException | SQLException e) {
+            System.out.println(String.format("FAILED (seed=%d): %s", seed, e.getMessage()));
+            System.exit(1);
+        }
+        System.out.println(String.format("%d rounds of %d changes: %d users, %d cities and %d events left; PASSED",
+                rounds, changes, check.users.size(), check.cities.size(), check.events.size()));
+    }
+
+    // [Constructor]
+    private FakebookAggregatesCheck(long seed) {
+        random = new Random(seed);
+        aggregates = new FakebookAggregates();
+        users = new HashMap<Long, User>();
+        cities = new HashMap<Long, String>();
+        events = new HashMap<Long, Long>();
+    }
+
+    // [Change Function]
+    // MODIFIES: this
+    // EFFECTS:  applies one random change to both the aggregates and the rows kept here;
+    //           IDs are drawn from small ranges, so inserts often replace an existing row
+    //           and deletes often find one
+    private void change() {
+        int kind = random.nextInt(10);
+        if (kind < 4) {
+            long userID = random.nextInt(400);
+            String firstName = FirstNames[random.nextInt(FirstNames.length)];
+            String lastName = LastNames[random.nextInt(LastNames.length)];
+            int month = random.nextInt(13) == 0 ? FakebookSnapshot.NULL_INT : 1 + random.nextInt(12);
+            aggregates.insertUser(userID, firstName, lastName, month);
+            users.put(userID, new User(firstName, lastName, month));
+        } else if (kind < 6) {
+            long userID = random.nextInt(400);
+            expect(users.remove(userID) != null, aggregates.deleteUser(userID), "user", userID);
+        } else if (kind < 7) {
+            long cityID = random.nextInt(30);
+            String state = States[random.nextInt(States.length)];
+            aggregates.insertCity(cityID, state);
+            cities.put(cityID, state);
+        } else if (kind < 8) {
+            long cityID = random.nextInt(30);
+            expect(cities.containsKey(cityID), aggregates.deleteCity(cityID), "city", cityID);
+            cities.remove(cityID);
+        } else if (kind < 9) {
+            long eventID = random.nextInt(300);
+            long cityID = random.nextInt(20) == 0 ? FakebookSnapshot.NULL_LONG : random.nextInt(35);
+            aggregates.insertEvent(eventID, cityID);
+            events.put(eventID, cityID);
+        } else {
+            long eventID = random.nextInt(300);
+            expect(events.remove(eventID) != null, aggregates.deleteEvent(eventID), "event", eventID);
+        }
+    }
+
+    // [Snapshot Comparison]
+    // EFFECTS:  throws an IllegalStateException if the aggregates' answers differ from
+    //           those of an InMemoryFakebookOracle over the rows kept here
+    private void compareWithSnapshot() throws SQLException {
+        FakebookSnapshotLoader loader = new FakebookSnapshotLoader();
+        for (Map.Entry<Long, User> user : users.entrySet()) {
+            User row = user.getValue();
+            loader.addUser(user.getKey(), row.firstName, row.lastName, FakebookSnapshot.NULL_INT, row.month,
+                    FakebookSnapshot.NULL_INT, null);
+        }
+        for (Map.Entry<Long, String> city : cities.entrySet()) {
+            loader.addCity(city.getKey(), null, city.getValue(), null);
+        }
+        for (Map.Entry<Long, Long> event : events.entrySet()) {
+            loader.addEvent(event.getKey(), FakebookSnapshot.NULL_LONG, null, event.getValue());
+        }
+        aggregates.verify(new InMemoryFakebookOracle(loader.build()));
+    }
+
+    // [Delete Result Checker]
+    // EFFECTS:  throws an IllegalStateException if a delete of <kind> <id> reported
+    //           <deleted> where the rows kept here say <existed>
+    private static void expect(boolean existed, boolean deleted, String kind, long id) {
+        if (existed != deleted) {
+            throw new IllegalStateException(String.format("deleting %s %d returned %b, expected %b", kind, id,
+                    deleted, existed));
+        }
+    }
+
+    /*
+        The User class is a user row as the aggregates hold it.
+    */
+    private static final class User {
+        User(String firstName, String lastName, int month) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.month = month;
+        }
+
+        final String firstName;
+        final String lastName;
+        final int month;
+    }
+
+    // Member Variables
+    private final Random random;
+    private final FakebookAggregates aggregates;
+    private final HashMap<Long, User> users;
+    private final HashMap<Long, String> cities;
+    private final HashMap<Long, Long> events;
+}
@@ -0,0 +1,126 @@
+package project2;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/*
+    The FakebookBatchLoader class fetches the details of many keys in a fixed number of
+    round trips instead of one query per key. A key is a tuple of one or more IDs (a
+    photo ID, or a pair of user IDs); the keys are bound into an IN-list of <ChunkSize>
+    entries, so each batch costs one round trip per <ChunkSize> keys regardless of how
+    many keys there are. The last chunk is padded by repeating its final key, which keeps
+    the statement text identical for every chunk so that it is prepared only once.
+
+    The query handed to load() must select the key columns first, in the order given, and
+    contain exactly one "%s" where the IN predicate belongs. Every row is passed to the
+    RowHandler together with the position of its key in the list the caller supplied, so
+    that callers can assemble their results without building lookup maps of their own. A
+    key supplied more than once is fetched once and reported at its first position.
+*/
+final class FakebookBatchLoader {
+    // Number of keys bound per round trip
+    public static final int ChunkSize = 100;
+
+    /*
+        The RowHandler interface receives the rows of a batch, one call per row, along with
+        the index of the row's key in the key list.
+    */
+    interface RowHandler {
+        void handle(int keyIndex, ResultSet rst) throws SQLException;
+    }
+
+    // [Constructor]
+    // REQUIRES: <statements> is the statement cache of the connection to load from
+    public FakebookBatchLoader(FakebookStatementCache statements) {
+        this.statements = statements;
+    }
+
+    // [Load Function]
+    // REQUIRES: every entry of <keys> has length equal to the number of <keyColumns>
+    // EFFECTS:  runs <query> over all of <keys>, chunked, and passes each row to <handler>;
+    //           rows arrive in the query's order within a chunk, and chunks in key order
+    public void load(String query, String[] keyColumns, List<long[]> keys, RowHandler handler)
+            throws SQLException {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        int arity = keyColumns.length;
+        HashMap<List<Long>, Integer> positions = new HashMap<List<Long>, Integer>();
+        ArrayList<long[]> distinct = new ArrayList<long[]>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (positions.putIfAbsent(asList(keys.get(i)), i) == null) {
+                distinct.add(keys.get(i));
+            }
+        }
+
+        PreparedStatement stmt = statements.prepare(String.format(query, inList(keyColumns)));
+        for (int start = 0; start < distinct.size(); start += ChunkSize) {
+            int parameter = 1;
+            for (int i = 0; i < ChunkSize; i++) {
+                long[] key = distinct.get(Math.min(start + i, distinct.size() - 1));
+                for (int j = 0; j < arity; j++) {
+                    stmt.setLong(parameter++, key[j]);
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery()) {
+                long[] key = new long[arity];
+                while (FakebookStatementCache.next(rst)) {
+                    for (int j = 0; j < arity; j++) {
+                        key[j] = rst.getLong(j + 1);
+                    }
+                    Integer position = positions.get(asList(key));
+                    if (position != null) {
+                        handler.handle(position, rst);
+                    }
+                }
+            }
+        }
+    }
+
+    // [Key Constructor]
+    // EFFECTS:  returns a list of single-ID keys, one per entry of <ids>
+    public static ArrayList<long[]> keys(List<Long> ids) {
+        ArrayList<long[]> keys = new ArrayList<long[]>(ids.size());
+        for (Long id : ids) {
+            keys.add(new long[] { id });
+        }
+        return keys;
+    }
+
+    // [IN Predicate Builder]
+    // EFFECTS:  returns "C IN (?, ...)" for one key column, or "(C1, C2) IN ((?, ?), ...)"
+    //           for several, with <ChunkSize> entries
+    private static String inList(String[] keyColumns) {
+        StringBuilder tuple = new StringBuilder();
+        for (int j = 0; j < keyColumns.length; j++) {
+            tuple.append(j == 0 ? "?" : ", ?");
+        }
+        String entry = keyColumns.length == 1 ? tuple.toString() : "(" + tuple + ")";
+        String columns = keyColumns.length == 1 ? keyColumns[0] : "(" + String.join(", ", keyColumns) + ")";
+
+        StringBuilder predicate = new StringBuilder(columns).append(" IN (");
+        for (int i = 0; i < ChunkSize; i++) {
+            predicate.append(i == 0 ? "" : ", ").append(entry);
+        }
+        return predicate.append(")").toString();
+    }
+
+    // [Key Converter]
+    private static List<Long> asList(long[] key) {
+        Long[] boxed = new Long[key.length];
+        for (int j = 0; j < key.length; j++) {
+            boxed[j] = key[j];
+        }
+        return Arrays.asList(boxed);
+    }
+
+    // Member Variables
+    private final FakebookStatementCache statements;
+}
@@ -0,0 +1,461 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+    The FakebookBitmap class is an immutable set of non-negative ints compressed in the
+    manner of a roaring bitmap: values are grouped by their high 16 bits into chunks of
+    65536, and each non-empty chunk is stored in whichever container is smaller for it:
+
+        array   the low 16 bits of its values, sorted, for chunks of at most 4096 values
+        bitmap  one bit per possible value (8 KB), for denser chunks
+
+    so sparse sets cost two bytes per value and dense sets one bit per value. and, or and
+    andNot combine two bitmaps chunk by chunk, touching only chunks present in both (or
+    either) and choosing the cheapest algorithm for each pair of container kinds.
+    Iteration yields values in ascending order.
+
+    Bitmaps are built with a Builder, or as a range with range().
+*/
+final class FakebookBitmap {
+    // The empty bitmap
+    public static final FakebookBitmap Empty = new FakebookBitmap(new char[0], new Container[0], 0);
+
+    /*
+        The Builder class collects the values of a new bitmap. Adding values in ascending
+        order is fastest, but any order is accepted.
+    */
+    static final class Builder {
+        // REQUIRES: <value> >= 0
+        // MODIFIES: this
+        // EFFECTS:  adds <value> to the bitmap being built
+        public Builder add(int value) {
+            values = values.length == size ? Arrays.copyOf(values, Math.max(16, size * 2)) : values;
+            sorted &= size == 0 || values[size - 1] <= value;
+            values[size++] = value;
+            return this;
+        }
+
+        // EFFECTS:  returns a bitmap of the values added so far
+        public FakebookBitmap build() {
+            int[] sortedValues = Arrays.copyOf(values, size);
+            if (!sorted) {
+                Arrays.sort(sortedValues);
+            }
+            char[] keys = new char[size == 0 ? 0 : (sortedValues[size - 1] >>> 16) + 1];
+            Container[] containers = new Container[keys.length];
+            int count = 0;
+            int total = 0;
+            for (int start = 0; start < size;) {
+                int key = sortedValues[start] >>> 16;
+                int end = start;
+                char[] low = new char[16];
+                int lowSize = 0;
+                while (end < size && sortedValues[end] >>> 16 == key) {
+                    char value = (char) sortedValues[end++];
+                    if (lowSize == 0 || low[lowSize - 1] != value) {
+                        low = lowSize == low.length ? Arrays.copyOf(low, lowSize * 2) : low;
+                        low[lowSize++] = value;
+                    }
+                }
+                keys[count] = (char) key;
+                containers[count++] = ArrayContainer.of(low, lowSize);
+                total += lowSize;
+                start = end;
+            }
+            return new FakebookBitmap(Arrays.copyOf(keys, count), Arrays.copyOf(containers, count), total);
+        }
+
+        private int[] values = new int[16];
+        private int size = 0;
+        private boolean sorted = true;
+    }
+
+    // [Range Constructor]
+    // REQUIRES: 0 <= <start> <= <end>
+    // EFFECTS:  returns the bitmap of every value in [<start>, <end>)
+    public static FakebookBitmap range(int start, int end) {
+        if (start >= end) {
+            return Empty;
+        }
+        int firstKey = start >>> 16;
+        int lastKey = (end - 1) >>> 16;
+        char[] keys = new char[lastKey - firstKey + 1];
+        Container[] containers = new Container[keys.length];
+        for (int key = firstKey; key <= lastKey; key++) {
+            int low = key == firstKey ? start & 0xFFFF : 0;
+            int high = key == lastKey ? ((end - 1) & 0xFFFF) + 1 : ChunkSize;
+            long[] words = new long[Words];
+            for (int value = low; value < high; value++) {
+                words[value >>> 6] |= 1L << value;
+            }
+            keys[key - firstKey] = (char) key;
+            containers[key - firstKey] = BitmapContainer.of(words, high - low);
+        }
+        return new FakebookBitmap(keys, containers, end - start);
+    }
+
+    // [Constructor]
+    private FakebookBitmap(char[] keys, Container[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    // [Cardinality Function]
+    // EFFECTS:  returns the number of values in this bitmap
+    public int cardinality() {
+        return cardinality;
+    }
+
+    // [Empty Test]
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    // [Membership Test]
+    // EFFECTS:  returns true if <value> is in this bitmap
+    public boolean contains(int value) {
+        int idx = Arrays.binarySearch(keys, (char) (value >>> 16));
+        return value >= 0 && idx >= 0 && containers[idx].contains((char) value);
+    }
+
+    // [Intersection Function]
+    // EFFECTS:  returns the values in both this bitmap and <other>
+    public FakebookBitmap and(FakebookBitmap other) {
+        char[] newKeys = new char[Math.min(keys.length, other.keys.length)];
+        Container[] newContainers = new Container[newKeys.length];
+        int count = 0;
+        int total = 0;
+        for (int i = 0, j = 0; i < keys.length && j < other.keys.length;) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container result = containers[i].and(other.containers[j]);
+                if (result.cardinality > 0) {
+                    newKeys[count] = keys[i];
+                    newContainers[count++] = result;
+                    total += result.cardinality;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new FakebookBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count), total);
+    }
+
+    // [Union Function]
+    // EFFECTS:  returns the values in this bitmap, <other>, or both
+    public FakebookBitmap or(FakebookBitmap other) {
+        char[] newKeys = new char[keys.length + other.keys.length];
+        Container[] newContainers = new Container[newKeys.length];
+        int count = 0;
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            Container result;
+            if (j == other.keys.length || i < keys.length && keys[i] < other.keys[j]) {
+                newKeys[count] = keys[i];
+                result = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                newKeys[count] = other.keys[j];
+                result = other.containers[j++];
+            } else {
+                newKeys[count] = keys[i];
+                result = containers[i++].or(other.containers[j++]);
+            }
+            newContainers[count++] = result;
+            total += result.cardinality;
+        }
+        return new FakebookBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count), total);
+    }
+
+    // [Difference Function]
+    // EFFECTS:  returns the values in this bitmap that are not in <other>
+    public FakebookBitmap andNot(FakebookBitmap other) {
+        char[] newKeys = new char[keys.length];
+        Container[] newContainers = new Container[keys.length];
+        int count = 0;
+        int total = 0;
+        for (int i = 0, j = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container result = j < other.keys.length && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j]) : containers[i];
+            if (result.cardinality > 0) {
+                newKeys[count] = keys[i];
+                newContainers[count++] = result;
+                total += result.cardinality;
+            }
+        }
+        return new FakebookBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count), total);
+    }
+
+    // [Iteration Function]
+    // EFFECTS:  passes every value in this bitmap to <consumer>, in ascending order
+    public void forEach(IntConsumer consumer) {
+        for (int idx = 0; idx < keys.length; idx++) {
+            containers[idx].forEach(keys[idx] << 16, consumer);
+        }
+    }
+
+    // [Array Converter]
+    // EFFECTS:  returns the values in this bitmap, in ascending order
+    public int[] toArray() {
+        int[] values = new int[cardinality];
+        int[] size = new int[1];
+        forEach(value -> values[size[0]++] = value);
+        return values;
+    }
+
+    // [String Converter]
+    // EFFECTS:  returns a summary of the size and containers of this bitmap
+    public String toString() {
+        int arrays = 0;
+        for (Container container : containers) {
+            if (container instanceof ArrayContainer) {
+                arrays++;
+            }
+        }
+        return String.format("%d value(s) in %d array and %d bitmap container(s)", cardinality, arrays,
+                containers.length - arrays);
+    }
+
+    /*
+        The Container class holds the low 16 bits of the values in one chunk.
+    */
+    private abstract static class Container {
+        Container(int cardinality) {
+            this.cardinality = cardinality;
+        }
+
+        abstract boolean contains(char value);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract void forEach(int base, IntConsumer consumer);
+
+        final int cardinality;
+    }
+
+    /*
+        The ArrayContainer class stores a sparse chunk as a sorted array.
+    */
+    private static final class ArrayContainer extends Container {
+        private ArrayContainer(char[] values, int cardinality) {
+            super(cardinality);
+            this.values = values;
+        }
+
+        // EFFECTS:  returns the smaller container holding the first <size> of <values>,
+        //           which are sorted and distinct
+        static Container of(char[] values, int size) {
+            if (size <= ArrayLimit) {
+                return new ArrayContainer(values.length == size ? values : Arrays.copyOf(values, size), size);
+            }
+            long[] words = new long[Words];
+            for (int idx = 0; idx < size; idx++) {
+                words[values[idx] >>> 6] |= 1L << values[idx];
+            }
+            return BitmapContainer.of(words, size);
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality)];
+            int size = 0;
+            if (other instanceof BitmapContainer) {
+                for (char value : values) {
+                    if (other.contains(value)) {
+                        result[size++] = value;
+                    }
+                }
+                return of(result, size);
+            }
+            char[] others = ((ArrayContainer) other).values;
+            for (int i = 0, j = 0; i < values.length && j < others.length;) {
+                if (values[i] < others[j]) {
+                    i++;
+                } else if (values[i] > others[j]) {
+                    j++;
+                } else {
+                    result[size++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return of(result, size);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            char[] others = ((ArrayContainer) other).values;
+            char[] result = new char[values.length + others.length];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < values.length || j < others.length) {
+                if (j == others.length || i < values.length && values[i] < others[j]) {
+                    result[size++] = values[i++];
+                } else if (i == values.length || values[i] > others[j]) {
+                    result[size++] = others[j++];
+                } else {
+                    result[size++] = values[i++];
+                    j++;
+                }
+            }
+            return of(result, size);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[values.length];
+            int size = 0;
+            for (char value : values) {
+                if (!other.contains(value)) {
+                    result[size++] = value;
+                }
+            }
+            return of(result, size);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer consumer) {
+            for (char value : values) {
+                consumer.accept(base | value);
+            }
+        }
+
+        private final char[] values;
+    }
+
+    /*
+        The BitmapContainer class stores a dense chunk as 1024 words of 64 bits.
+    */
+    private static final class BitmapContainer extends Container {
+        private BitmapContainer(long[] words, int cardinality) {
+            super(cardinality);
+            this.words = words;
+        }
+
+        // EFFECTS:  returns the smaller container holding the <cardinality> bits set in
+        //           <words>
+        static Container of(long[] words, int cardinality) {
+            if (cardinality > ArrayLimit) {
+                return new BitmapContainer(words, cardinality);
+            }
+            char[] values = new char[cardinality];
+            int size = 0;
+            for (int word = 0; word < Words; word++) {
+                for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                    values[size++] = (char) (word * 64 + Long.numberOfTrailingZeros(bits));
+                }
+            }
+            return new ArrayContainer(values, size);
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & 1L << value) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] others = ((BitmapContainer) other).words;
+            long[] result = new long[Words];
+            int count = 0;
+            for (int word = 0; word < Words; word++) {
+                result[word] = words[word] & others[word];
+                count += Long.bitCount(result[word]);
+            }
+            return of(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            int count = cardinality;
+            if (other instanceof ArrayContainer) {
+                for (char value : ((ArrayContainer) other).values) {
+                    long bit = 1L << value;
+                    if ((result[value >>> 6] & bit) == 0) {
+                        result[value >>> 6] |= bit;
+                        count++;
+                    }
+                }
+                return of(result, count);
+            }
+            long[] others = ((BitmapContainer) other).words;
+            count = 0;
+            for (int word = 0; word < Words; word++) {
+                result[word] |= others[word];
+                count += Long.bitCount(result[word]);
+            }
+            return of(result, count);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            int count = cardinality;
+            if (other instanceof ArrayContainer) {
+                for (char value : ((ArrayContainer) other).values) {
+                    long bit = 1L << value;
+                    if ((result[value >>> 6] & bit) != 0) {
+                        result[value >>> 6] &= ~bit;
+                        count--;
+                    }
+                }
+                return of(result, count);
+            }
+            long[] others = ((BitmapContainer) other).words;
+            count = 0;
+            for (int word = 0; word < Words; word++) {
+                result[word] &= ~others[word];
+                count += Long.bitCount(result[word]);
+            }
+            return of(result, count);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer consumer) {
+            for (int word = 0; word < Words; word++) {
+                for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                    consumer.accept(base | word * 64 + Long.numberOfTrailingZeros(bits));
+                }
+            }
+        }
+
+        private final long[] words;
+    }
+
+    // Container Layout Constants
+    private static final int ChunkSize = 1 << 16;
+    private static final int Words = ChunkSize / 64;
+    private static final int ArrayLimit = 4096;
+
+    // Member Variables
+    private final char[] keys;
+    private final Container[] containers;
+    private final int cardinality;
+}
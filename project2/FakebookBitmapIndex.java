@@ -0,0 +1,145 @@
+package project2;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+    The FakebookBitmapIndex class holds precomputed FakebookBitmaps of the users of a
+    FakebookSnapshot that satisfy the predicates of Queries 0, 2, 3 and 5, so that those
+    queries (and any combination of their predicates, such as "lonely users born in
+    November living away from home") become bitmap operations followed by one decode:
+
+        all           every user
+        hasFriend     users with at least one friend (Query 2 is all ANDNOT hasFriend)
+        livesAway     users whose current city and hometown are both listed and differ
+                      (Query 3)
+        birthMonth    users born in each listed month (Query 0)
+        gender        users of each listed gender (Query 5)
+        hometown      users from each listed hometown
+        birthYear     users whose birth year is listed (Query 5)
+
+    Bitmaps hold user rows of the snapshot rather than user IDs: rows are dense, which
+    suits the containers best, and ascending row order is ascending user ID order, so a
+    decoded bitmap is already in the order the queries print.
+*/
+final class FakebookBitmapIndex {
+    // [Constructor]
+    // EFFECTS:  builds every bitmap of the users in <snapshot> in one pass over its rows
+    public FakebookBitmapIndex(FakebookSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int users = snapshot.userCount();
+        FakebookBitmap.Builder friends = new FakebookBitmap.Builder();
+        FakebookBitmap.Builder away = new FakebookBitmap.Builder();
+        FakebookBitmap.Builder years = new FakebookBitmap.Builder();
+        TreeMap<Integer, FakebookBitmap.Builder> months = new TreeMap<Integer, FakebookBitmap.Builder>();
+        HashMap<Integer, FakebookBitmap.Builder> genders = new HashMap<Integer, FakebookBitmap.Builder>();
+        HashMap<Long, FakebookBitmap.Builder> hometowns = new HashMap<Long, FakebookBitmap.Builder>();
+        for (int row = 0; row < users; row++) {
+            if (snapshot.friends.degree(row) > 0) {
+                friends.add(row);
+            }
+            long current = snapshot.currentCities[row];
+            long hometown = snapshot.hometownCities[row];
+            if (current != FakebookSnapshot.NULL_LONG && hometown != FakebookSnapshot.NULL_LONG
+                    && current != hometown) {
+                away.add(row);
+            }
+            if (snapshot.birthYears[row] != FakebookSnapshot.NULL_INT) {
+                years.add(row);
+            }
+            if (snapshot.birthMonths[row] != FakebookSnapshot.NULL_INT) {
+                months.computeIfAbsent(snapshot.birthMonths[row], k -> new FakebookBitmap.Builder()).add(row);
+            }
+            if (snapshot.genders[row] != FakebookDictionary.NULL_CODE) {
+                genders.computeIfAbsent(snapshot.genders[row], k -> new FakebookBitmap.Builder()).add(row);
+            }
+            if (hometown != FakebookSnapshot.NULL_LONG) {
+                hometowns.computeIfAbsent(hometown, k -> new FakebookBitmap.Builder()).add(row);
+            }
+        }
+
+        all = FakebookBitmap.range(0, users);
+        hasFriend = friends.build();
+        livesAway = away.build();
+        hasBirthYear = years.build();
+        birthMonths = new TreeMap<Integer, FakebookBitmap>();
+        for (Map.Entry<Integer, FakebookBitmap.Builder> month : months.entrySet()) {
+            birthMonths.put(month.getKey(), month.getValue().build());
+        }
+        this.genders = new HashMap<Integer, FakebookBitmap>();
+        FakebookBitmap anyGender = FakebookBitmap.Empty;
+        for (Map.Entry<Integer, FakebookBitmap.Builder> gender : genders.entrySet()) {
+            FakebookBitmap bitmap = gender.getValue().build();
+            this.genders.put(gender.getKey(), bitmap);
+            anyGender = anyGender.or(bitmap);
+        }
+        hasGender = anyGender;
+        this.hometowns = new HashMap<Long, FakebookBitmap>();
+        for (Map.Entry<Long, FakebookBitmap.Builder> hometown : hometowns.entrySet()) {
+            this.hometowns.put(hometown.getKey(), hometown.getValue().build());
+        }
+    }
+
+    // [Bitmap Accessors]
+    // EFFECTS:  return the bitmaps described above; lookups of values no user has return
+    //           FakebookBitmap.Empty
+    public FakebookBitmap all() {
+        return all;
+    }
+
+    public FakebookBitmap hasFriend() {
+        return hasFriend;
+    }
+
+    public FakebookBitmap livesAway() {
+        return livesAway;
+    }
+
+    public FakebookBitmap hasBirthYear() {
+        return hasBirthYear;
+    }
+
+    public FakebookBitmap hasGender() {
+        return hasGender;
+    }
+
+    public FakebookBitmap birthMonth(int month) {
+        return birthMonths.getOrDefault(month, FakebookBitmap.Empty);
+    }
+
+    public FakebookBitmap gender(String gender) {
+        return genders.getOrDefault(snapshot.strings.lookup(gender), FakebookBitmap.Empty);
+    }
+
+    public FakebookBitmap hometown(long cityID) {
+        return hometowns.getOrDefault(cityID, FakebookBitmap.Empty);
+    }
+
+    // [Birth Months Accessor]
+    // EFFECTS:  returns the users born in each listed month, in month order; callers must
+    //           not modify it
+    public TreeMap<Integer, FakebookBitmap> birthMonths() {
+        return birthMonths;
+    }
+
+    // [Decode Function]
+    // EFFECTS:  passes the UserInfo of every user in <users> to <consumer>, in user ID order
+    public <E extends Exception> void decode(FakebookBitmap users, FakebookConsumer<? super UserInfo, E> consumer)
+            throws E {
+        for (int row : users.toArray()) {
+            consumer.accept(snapshot.userInfo(row));
+        }
+    }
+
+    // Member Variables
+    private final FakebookSnapshot snapshot;
+    private final FakebookBitmap all;
+    private final FakebookBitmap hasFriend;
+    private final FakebookBitmap livesAway;
+    private final FakebookBitmap hasBirthYear;
+    private final FakebookBitmap hasGender;
+    private final TreeMap<Integer, FakebookBitmap> birthMonths;
+    private final HashMap<Integer, FakebookBitmap> genders;
+    private final HashMap<Long, FakebookBitmap> hometowns;
+}
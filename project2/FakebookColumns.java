@@ -0,0 +1,90 @@
+package project2;
+
+import java.util.Arrays;
+
+/*
+    The LongColumn class is a growable array of primitive longs. It is used while
+    loading a table of unknown size so that each column can be kept as a single
+    long[] instead of a list of boxed values.
+*/
+final class LongColumn {
+    // [Constructor]
+    public LongColumn() {
+        values = new long[16];
+        size = 0;
+    }
+
+    // [Add Function]
+    // MODIFIES: <values>, <size>
+    // EFFECTS:  appends <value> to the end of this column
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    // [Get Function]
+    // REQUIRES: 0 <= <index> < size()
+    public long get(int index) {
+        return values[index];
+    }
+
+    // [Size Function]
+    public int size() {
+        return size;
+    }
+
+    // [Array Converter]
+    // EFFECTS:  returns a trimmed copy of the values in this column
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    // Member Variables
+    private long[] values;
+    private int size;
+}
+
+/*
+    The IntColumn class is a growable array of primitive ints, used in the same way
+    as LongColumn for int-valued and dictionary-coded columns.
+*/
+final class IntColumn {
+    // [Constructor]
+    public IntColumn() {
+        values = new int[16];
+        size = 0;
+    }
+
+    // [Add Function]
+    // MODIFIES: <values>, <size>
+    // EFFECTS:  appends <value> to the end of this column
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    // [Get Function]
+    // REQUIRES: 0 <= <index> < size()
+    public int get(int index) {
+        return values[index];
+    }
+
+    // [Size Function]
+    public int size() {
+        return size;
+    }
+
+    // [Array Converter]
+    // EFFECTS:  returns a trimmed copy of the values in this column
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    // Member Variables
+    private int[] values;
+    private int size;
+}
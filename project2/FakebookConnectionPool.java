@@ -0,0 +1,189 @@
+package project2;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/*
+    The FakebookConnectionPool class lends out up to <capacity> database connections to
+    concurrent callers. Connections are opened lazily through the ConnectionFactory the
+    first time they are needed and are reused afterwards; a caller that finds every
+    connection lent out waits until one is returned.
+
+    Connections are lent as Leases, which are returned to the pool by closing them, so
+    that they can be used in try-with-resources blocks. Each pooled connection keeps its
+    own FakebookStatementCache, which every lease of that connection shares.
+*/
+final class FakebookConnectionPool implements AutoCloseable {
+    /*
+        The ConnectionFactory interface opens a new connection for the pool.
+    */
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /*
+        The Lease class is a connection lent out by the pool, together with that
+        connection's statement cache. Closing a lease returns the connection to the pool;
+        the connection itself must not be closed by the borrower.
+    */
+    final class Lease implements AutoCloseable {
+        private Lease(Connection connection, FakebookStatementCache statements) {
+            this.connection = connection;
+            this.statements = statements;
+        }
+
+        public Connection connection() {
+            return connection;
+        }
+
+        public FakebookStatementCache statements() {
+            return statements;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+
+        private final Connection connection;
+        private final FakebookStatementCache statements;
+    }
+
+    // [Constructor]
+    // REQUIRES: <capacity> > 0
+    // EFFECTS:  creates a pool that opens up to <capacity> connections with <factory> and
+    //           closes them when the pool is closed
+    public FakebookConnectionPool(ConnectionFactory factory, int capacity) {
+        this.factory = factory;
+        this.capacity = capacity;
+        this.owned = true;
+        idle = new ArrayDeque<Lease>();
+        leases = new ArrayList<Lease>();
+    }
+
+    // [Constructor]
+    // REQUIRES: <connection> is a valid JDBC connection
+    // EFFECTS:  creates a pool of just <connection>, which callers then take turns using;
+    //           closing the pool leaves <connection> open for its owner to close
+    public FakebookConnectionPool(Connection connection) {
+        this.factory = null;
+        this.capacity = 1;
+        this.owned = false;
+        idle = new ArrayDeque<Lease>();
+        leases = new ArrayList<Lease>();
+        Lease lease = new Lease(connection, new FakebookStatementCache(connection));
+        leases.add(lease);
+        idle.push(lease);
+    }
+
+    // [Acquire Function]
+    // MODIFIES: this
+    // EFFECTS:  lends out an idle connection, opening a new one if fewer than <capacity>
+    //           exist, and otherwise waits until one is returned
+    public Lease acquire() throws SQLException {
+        synchronized (this) {
+            while (!closed && idle.isEmpty() && leases.size() + opening >= capacity) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a connection", e);
+                }
+            }
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            if (!idle.isEmpty()) {
+                return idle.pop();
+            }
+            opening++; // reserve the slot while the connection is opened below
+        }
+
+        // Open outside the lock so that other callers can still borrow and return
+        Lease lease = null;
+        try {
+            Connection connection = factory.open();
+            lease = new Lease(connection, new FakebookStatementCache(connection));
+        } finally {
+            synchronized (this) {
+                opening--;
+                if (lease != null) {
+                    leases.add(lease);
+                }
+                notifyAll();
+            }
+        }
+        return lease;
+    }
+
+    // [Capacity Accessor]
+    public int capacity() {
+        return capacity;
+    }
+
+    // [Statistics Accessors]
+    // EFFECTS:  returns the statement cache hits and misses summed over every connection
+    public synchronized long statementHits() {
+        long hits = 0;
+        for (Lease lease : leases) {
+            hits += lease.statements().hits();
+        }
+        return hits;
+    }
+
+    public synchronized long statementMisses() {
+        long misses = 0;
+        for (Lease lease : leases) {
+            misses += lease.statements().misses();
+        }
+        return misses;
+    }
+
+    // [Close Function]
+    // MODIFIES: this
+    // EFFECTS:  closes every cached statement and, if the pool opened them, every
+    //           connection; leases still out are closed as well
+    @Override
+    public synchronized void close() throws SQLException {
+        closed = true;
+        notifyAll();
+        SQLException failure = null;
+        for (Lease lease : leases) {
+            try {
+                lease.statements().close();
+                if (owned) {
+                    lease.connection().close();
+                }
+            } catch (SQLException e) {
+                failure = e;
+            }
+        }
+        leases.clear();
+        idle.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // [Release Function]
+    // MODIFIES: this
+    // EFFECTS:  returns <lease> to the idle list and wakes the callers waiting for one
+    private synchronized void release(Lease lease) {
+        if (closed || !leases.contains(lease)) {
+            return;
+        }
+        idle.push(lease);
+        notifyAll();
+    }
+
+    // Member Variables
+    private final ConnectionFactory factory;
+    private final int capacity;
+    private final boolean owned;
+    private final ArrayDeque<Lease> idle;
+    private final ArrayList<Lease> leases;
+    private int opening;
+    private boolean closed;
+}
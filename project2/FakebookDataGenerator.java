@@ -0,0 +1,381 @@
+package project2;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+    The FakebookDataGenerator class writes a synthetic Fakebook dataset of any size as one
+    comma-separated file per table (Users.csv, Friends.csv, ...), each starting with a
+    header line of column names. The files can be bulk-loaded into a stand-in database
+    (e.g. with SQL*Loader and SKIP=1) or read directly by FakebookSnapshotLoader.
+
+    Friend counts and tags per photo follow power-law (Pareto) distributions. Every table
+    is generated from its own random stream derived from <seed>, so a dataset is fully
+    reproducible. Rows are written as they are generated: only one user's friend list is
+    ever held in memory, so very large friend graphs can be written with a small heap.
+    Friendships are written sorted by (User1_ID, User2_ID) with User1_ID < User2_ID.
+
+    Usage: FakebookDataGenerator <directory> <users> [option=value ...]
+*/
+public final class FakebookDataGenerator {
+    // Default Options
+    public static final long DefaultSeed = 484L;
+    public static final double DefaultFriendExponent = 2.5;
+    public static final int DefaultMinFriends = 2;
+    public static final int DefaultMaxFriends = 5000;
+    public static final double DefaultTagExponent = 3.0;
+    public static final int DefaultMaxTags = 50;
+    public static final int DefaultAlbumsPerUser = 1;
+    public static final int DefaultPhotosPerAlbum = 5;
+
+    // Name and Place Pools
+    private static final String[] FirstNames = { "Agrael", "Aragorn", "Arantir", "Arwen", "Ashley", "Biara",
+            "Boromir", "Brianna", "Cyrus", "Denethor", "Eowyn", "Ella", "Elrond", "Faramir", "Freyda", "Frodo",
+            "Galadriel", "Gandalf", "Gimli", "Gotai", "Grace", "Hangvul", "Isabel", "Kayla", "Kujin", "Kunyak",
+            "Legolas", "Lily", "Meriadoc", "Ornella", "Pippin", "Raelag", "Sarah", "Saruman", "Sauron", "Shadya",
+            "Theoden", "Velaria", "Wulfstan", "Ylaya", "Ylthin", "Zehir" };
+    private static final String[] LastNames = { "Anderson", "Brown", "Davis", "Garcia", "Harris", "Jackson",
+            "Johnson", "Jones", "Martin", "Martinez", "Miller", "Moore", "Robinson", "Smith", "Taylor", "Thomas",
+            "Thompson", "White", "Williams", "Wilson" };
+    private static final String[] States = { "Gondor", "Rohan", "The Shire", "Mordor", "Eriador", "Rhovanion",
+            "Harad", "Lindon", "Arnor", "Dorwinion" };
+    private static final String[] Countries = { "Middle Earth", "Valinor", "Numenor" };
+    private static final String[] Institutions = { "Minas Tirith University", "Rivendell College",
+            "Edoras Institute", "Bree Community College", "Lothlorien Academy" };
+    private static final String[] Concentrations = { "History", "Smithing", "Healing", "Archery", "Lore",
+            "Cartography", "Languages", "Horsemanship" };
+    private static final String[] Degrees = { "BA", "BS", "MA", "MS", "PhD" };
+    private static final String[] AlbumNames = { "Islands", "Battles", "Feasts", "Journeys", "Friends",
+            "Mountains" };
+
+    // [Main Function]
+    // Expected Command Line Arguments:
+    //  [0] the directory to write the table files into
+    //  [1] the number of users to generate
+    //  [2+] optional "option=value" settings: seed, friendExponent, minFriends, maxFriends,
+    //       tagExponent, maxTags, albumsPerUser, photosPerAlbum
+    public static void main(String[] args) throws IOException {
+        FakebookDataGenerator generator = new FakebookDataGenerator(Long.parseLong(args[1]));
+        for (int idx = 2; idx < args.length; idx++) {
+            generator.setOption(args[idx]);
+        }
+
+        long beginTime = System.currentTimeMillis();
+        generator.generate(new File(args[0]));
+        long endTime = System.currentTimeMillis();
+        System.out.println(String.format("Generated %d users and %d friendships in %.3f seconds",
+                generator.users, generator.friendships, (endTime - beginTime) / 1000.0));
+    }
+
+    // [Constructor]
+    // REQUIRES: <users> > 0
+    public FakebookDataGenerator(long users) {
+        this.users = users;
+        seed = DefaultSeed;
+        friendExponent = DefaultFriendExponent;
+        minFriends = DefaultMinFriends;
+        maxFriends = DefaultMaxFriends;
+        tagExponent = DefaultTagExponent;
+        maxTags = DefaultMaxTags;
+        albumsPerUser = DefaultAlbumsPerUser;
+        photosPerAlbum = DefaultPhotosPerAlbum;
+    }
+
+    // [Option Setter]
+    // REQUIRES: <option> has the form "name=value"
+    // MODIFIES: this
+    public void setOption(String option) {
+        int split = option.indexOf('=');
+        if (split < 0) {
+            throw new IllegalArgumentException("Expected option=value but got " + option);
+        }
+        String name = option.substring(0, split);
+        String value = option.substring(split + 1);
+        switch (name) {
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "friendExponent":
+                friendExponent = Double.parseDouble(value);
+                break;
+            case "minFriends":
+                minFriends = Integer.parseInt(value);
+                break;
+            case "maxFriends":
+                maxFriends = Integer.parseInt(value);
+                break;
+            case "tagExponent":
+                tagExponent = Double.parseDouble(value);
+                break;
+            case "maxTags":
+                maxTags = Integer.parseInt(value);
+                break;
+            case "albumsPerUser":
+                albumsPerUser = Integer.parseInt(value);
+                break;
+            case "photosPerAlbum":
+                photosPerAlbum = Integer.parseInt(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + name);
+        }
+    }
+
+    // [Generate Function]
+    // MODIFIES: the file system
+    // EFFECTS:  writes one file per Fakebook table into <directory>, creating it if needed
+    public void generate(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        cities = Math.max(10, users / 1000);
+        programs = (long) Institutions.length * Concentrations.length * Degrees.length;
+        events = Math.max(1, users / 2);
+
+        writeUsers(directory);
+        writeCities(directory);
+        writeUserCities(directory);
+        writeFriends(directory);
+        writePrograms(directory);
+        writeEducation(directory);
+        writeEvents(directory);
+        writeAlbumsPhotosAndTags(directory);
+    }
+
+    // [Users Table Writer]
+    private void writeUsers(File directory) throws IOException {
+        Random random = tableRandom(1);
+        try (Writer out = open(directory, "Users",
+                "USER_ID,FIRST_NAME,LAST_NAME,YEAR_OF_BIRTH,MONTH_OF_BIRTH,DAY_OF_BIRTH,GENDER")) {
+            for (long user = 0; user < users; user++) {
+                out.write(Long.toString(user));
+                out.write(',');
+                out.write(pick(random, FirstNames));
+                out.write(',');
+                out.write(pick(random, LastNames));
+                out.write(',');
+                out.write(Integer.toString(1950 + random.nextInt(56)));
+                out.write(',');
+                out.write(Integer.toString(1 + random.nextInt(12)));
+                out.write(',');
+                out.write(Integer.toString(1 + random.nextInt(28)));
+                out.write(',');
+                out.write(random.nextBoolean() ? "female" : "male");
+                out.write('\n');
+            }
+        }
+    }
+
+    // [Cities Table Writer]
+    private void writeCities(File directory) throws IOException {
+        Random random = tableRandom(2);
+        try (Writer out = open(directory, "Cities", "CITY_ID,CITY_NAME,STATE_NAME,COUNTRY_NAME")) {
+            for (long city = 0; city < cities; city++) {
+                out.write(Long.toString(city));
+                out.write(",City ");
+                out.write(Long.toString(city));
+                out.write(',');
+                out.write(pick(random, States));
+                out.write(',');
+                out.write(pick(random, Countries));
+                out.write('\n');
+            }
+        }
+    }
+
+    // [Current and Hometown City Table Writer]
+    // EFFECTS:  gives every user a hometown; about one user in five still lives there
+    private void writeUserCities(File directory) throws IOException {
+        Random random = tableRandom(3);
+        try (Writer current = open(directory, "User_Current_Cities", "USER_ID,CURRENT_CITY_ID");
+                Writer hometown = open(directory, "User_Hometown_Cities", "USER_ID,HOMETOWN_CITY_ID")) {
+            for (long user = 0; user < users; user++) {
+                long home = (long) (random.nextDouble() * cities);
+                long now = random.nextInt(5) == 0 ? home : (long) (random.nextDouble() * cities);
+                hometown.write(user + "," + home + "\n");
+                current.write(user + "," + now + "\n");
+            }
+        }
+    }
+
+    // [Friends Table Writer]
+    // EFFECTS:  gives every user a power-law number of friends with larger IDs, chosen
+    //           without repetition, and writes them in ascending order
+    private void writeFriends(File directory) throws IOException {
+        Random random = tableRandom(4);
+        long[] targets = new long[16];
+        friendships = 0;
+        try (Writer out = open(directory, "Friends", "USER1_ID,USER2_ID")) {
+            for (long user = 0; user < users; user++) {
+                long available = users - user - 1;
+                int count = (int) Math.min(available, powerLaw(random, minFriends, maxFriends, friendExponent));
+                if (count > targets.length) {
+                    targets = new long[Math.max(count, 2 * targets.length)];
+                }
+                sampleDistinct(random, user + 1, available, count, targets);
+                Arrays.sort(targets, 0, count);
+                for (int idx = 0; idx < count; idx++) {
+                    out.write(Long.toString(user));
+                    out.write(',');
+                    out.write(Long.toString(targets[idx]));
+                    out.write('\n');
+                }
+                friendships += count;
+            }
+        }
+    }
+
+    // [Programs Table Writer]
+    private void writePrograms(File directory) throws IOException {
+        try (Writer out = open(directory, "Programs", "PROGRAM_ID,INSTITUTION,CONCENTRATION,DEGREE")) {
+            long program = 0;
+            for (String institution : Institutions) {
+                for (String concentration : Concentrations) {
+                    for (String degree : Degrees) {
+                        out.write(program++ + "," + institution + "," + concentration + "," + degree + "\n");
+                    }
+                }
+            }
+        }
+    }
+
+    // [Education Table Writer]
+    // EFFECTS:  enrolls each user in zero to two distinct programs
+    private void writeEducation(File directory) throws IOException {
+        Random random = tableRandom(5);
+        try (Writer out = open(directory, "Education", "USER_ID,PROGRAM_ID,PROGRAM_YEAR")) {
+            for (long user = 0; user < users; user++) {
+                int count = random.nextInt(3);
+                long first = (long) (random.nextDouble() * programs);
+                for (int idx = 0; idx < count; idx++) {
+                    long program = (first + idx) % programs;
+                    out.write(user + "," + program + "," + (1970 + random.nextInt(50)) + "\n");
+                }
+            }
+        }
+    }
+
+    // [Events Table Writer]
+    private void writeEvents(File directory) throws IOException {
+        Random random = tableRandom(6);
+        try (Writer out = open(directory, "User_Events", "EVENT_ID,EVENT_CREATOR_ID,EVENT_NAME,EVENT_TAGLINE," +
+                "EVENT_DESCRIPTION,EVENT_HOST,EVENT_TYPE,EVENT_SUBTYPE,EVENT_ADDRESS,EVENT_CITY_ID," +
+                "EVENT_START_TIME,EVENT_END_TIME")) {
+            for (long event = 0; event < events; event++) {
+                long creator = (long) (random.nextDouble() * users);
+                long city = (long) (random.nextDouble() * cities);
+                String start = timestamp(random);
+                out.write(event + "," + creator + ",Event " + event + ",Tagline,Description,Host " + creator +
+                        ",Party,Gathering," + event + " Main Road," + city + "," + start + "," + start + "\n");
+            }
+        }
+    }
+
+    // [Albums, Photos and Tags Table Writer]
+    // EFFECTS:  gives every user <albumsPerUser> albums of <photosPerAlbum> photos; each
+    //           photo tags a power-law number of distinct users
+    private void writeAlbumsPhotosAndTags(File directory) throws IOException {
+        Random random = tableRandom(7);
+        long[] subjects = new long[16];
+        try (Writer albums = open(directory, "Albums", "ALBUM_ID,ALBUM_OWNER_ID,ALBUM_NAME,ALBUM_CREATED_TIME," +
+                "ALBUM_MODIFIED_TIME,ALBUM_LINK,ALBUM_VISIBILITY,COVER_PHOTO_ID");
+                Writer photos = open(directory, "Photos", "PHOTO_ID,ALBUM_ID,PHOTO_CAPTION,PHOTO_CREATED_TIME," +
+                        "PHOTO_MODIFIED_TIME,PHOTO_LINK");
+                Writer tags = open(directory, "Tags", "TAG_PHOTO_ID,TAG_SUBJECT_ID,TAG_CREATED_TIME,TAG_X,TAG_Y")) {
+            long album = 0;
+            long photo = 0;
+            for (long owner = 0; owner < users; owner++) {
+                for (int albumIdx = 0; albumIdx < albumsPerUser; albumIdx++, album++) {
+                    String created = timestamp(random);
+                    albums.write(album + "," + owner + "," + pick(random, AlbumNames) + "," + created + "," +
+                            created + ",link,everyone," + photo + "\n");
+                    for (int photoIdx = 0; photoIdx < photosPerAlbum; photoIdx++, photo++) {
+                        photos.write(photo + "," + album + ",Caption," + created + "," + created + ",link\n");
+
+                        int count = (int) Math.min(users, powerLaw(random, 1, maxTags, tagExponent));
+                        if (count > subjects.length) {
+                            subjects = new long[Math.max(count, 2 * subjects.length)];
+                        }
+                        sampleDistinct(random, 0, users, count, subjects);
+                        Arrays.sort(subjects, 0, count);
+                        for (int idx = 0; idx < count; idx++) {
+                            tags.write(photo + "," + subjects[idx] + "," + created + "," + random.nextInt(100) +
+                                    "," + random.nextInt(100) + "\n");
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // [Power-Law Sampler]
+    // EFFECTS:  returns a Pareto-distributed integer in [<min>, <max>] whose density falls
+    //           off as x^(-<exponent>)
+    private static long powerLaw(Random random, int min, int max, double exponent) {
+        double value = min * Math.pow(1.0 - random.nextDouble(), -1.0 / (exponent - 1.0));
+        return (long) Math.min(max, Math.floor(value));
+    }
+
+    // [Distinct Sampler]
+    // REQUIRES: 0 <= <count> <= <range>, <out> has at least <count> entries
+    // MODIFIES: <out>
+    // EFFECTS:  stores <count> distinct values from [<start>, <start> + <range>) in <out>
+    //           using Floyd's algorithm, which needs no memory beyond <out>
+    private static void sampleDistinct(Random random, long start, long range, int count, long[] out) {
+        for (int idx = 0; idx < count; idx++) {
+            long candidate = start + (long) (random.nextDouble() * (range - count + idx + 1));
+            for (int prev = 0; prev < idx; prev++) {
+                if (out[prev] == candidate) {
+                    candidate = start + range - count + idx;
+                    break;
+                }
+            }
+            out[idx] = candidate;
+        }
+    }
+
+    // [Helper Functions]
+    private Random tableRandom(int table) {
+        return new Random(seed * 31 + table);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String timestamp(Random random) {
+        return String.format("%04d-%02d-%02d %02d:%02d:%02d", 2000 + random.nextInt(20), 1 + random.nextInt(12),
+                1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60));
+    }
+
+    private static Writer open(File directory, String table, String header) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(directory, table + ".csv")), StandardCharsets.UTF_8), 1 << 16);
+        out.write(header);
+        out.write('\n');
+        return out;
+    }
+
+    // Member Variables
+    private final long users;
+    private long seed;
+    private double friendExponent;
+    private int minFriends;
+    private int maxFriends;
+    private double tagExponent;
+    private int maxTags;
+    private int albumsPerUser;
+    private int photosPerAlbum;
+
+    private long cities;
+    private long programs;
+    private long events;
+    private long friendships;
+}
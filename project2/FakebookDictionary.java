@@ -0,0 +1,70 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+    The FakebookDictionary class assigns a dense int code to every distinct string it
+    is given, so that repeated values (first names, last names, state names, ...) are
+    stored once and columns can hold ints instead of String references. The code
+    NULL_CODE stands for a SQL NULL.
+*/
+final class FakebookDictionary {
+    // Code used for NULL values
+    public static final int NULL_CODE = -1;
+
+    // [Constructor]
+    public FakebookDictionary() {
+        codes = new HashMap<String, Integer>();
+        values = new String[16];
+        size = 0;
+    }
+
+    // [Encode Function]
+    // MODIFIES: <codes>, <values>, <size>
+    // EFFECTS:  returns the code of <value>, assigning a new one if <value> has not
+    //           been seen before; returns NULL_CODE if <value> is NULL
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    // [Lookup Function]
+    // EFFECTS:  returns the code of <value> without assigning a new one, or
+    //           NULL_CODE if <value> is NULL or has never been encoded
+    public int lookup(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code == null ? NULL_CODE : code;
+    }
+
+    // [Decode Function]
+    // EFFECTS:  returns the string for <code>, or NULL if <code> is NULL_CODE
+    public String decode(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    // [Size Function]
+    // EFFECTS:  returns the number of distinct strings in this dictionary
+    public int size() {
+        return size;
+    }
+
+    // Member Variables
+    private HashMap<String, Integer> codes;
+    private String[] values;
+    private int size;
+}
@@ -0,0 +1,219 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+    The FakebookFriendGraph class stores the symmetric friendship graph in compressed
+    sparse row form: the friends of vertex V are neighbours[offsets[V]] through
+    neighbours[offsets[V + 1] - 1], in ascending order. Vertices are user rows of a
+    FakebookSnapshot, so ascending vertex order is ascending user ID order.
+
+    The graph also implements the mutual-friend search of Query 6: for every vertex U,
+    the friends of U's friends that come after U are counted in a scratch array, pairs
+    that are already friends are discarded, and only the best <num> pairs are kept in a
+    FakebookTopK. Vertex ranges can be searched in parallel on the common fork/join pool;
+    the scratch arrays of a parallel search are shared by its leaf tasks through a pool
+    that lives only as long as the call, so at most one pair per concurrently running leaf
+    is allocated and none outlives the search.
+*/
+final class FakebookFriendGraph {
+    // Minimum number of vertices for which suggestPairs() runs in parallel by default
+    public static final int ParallelThreshold = 50000;
+
+    // Number of vertices searched by one fork/join leaf task
+    private static final int LeafVertices = 4096;
+
+    // [Constructor]
+    // REQUIRES: the pairs (<user1>[i], <user2>[i]) are distinct, sorted, and satisfy
+    //           0 <= <user1>[i] < <user2>[i] < <vertices>
+    public FakebookFriendGraph(int vertices, int[] user1, int[] user2) {
+        offsets = new int[vertices + 1];
+        for (int idx = 0; idx < user1.length; idx++) {
+            offsets[user1[idx] + 1]++;
+            offsets[user2[idx] + 1]++;
+        }
+        for (int vertex = 0; vertex < vertices; vertex++) {
+            offsets[vertex + 1] += offsets[vertex];
+        }
+
+        // Edges are sorted by (user1, user2), so every neighbour list is filled in order
+        neighbours = new int[2 * user1.length];
+        int[] next = Arrays.copyOf(offsets, vertices);
+        for (int idx = 0; idx < user1.length; idx++) {
+            neighbours[next[user1[idx]]++] = user2[idx];
+            neighbours[next[user2[idx]]++] = user1[idx];
+        }
+    }
+
+    // [Vertex Count Function]
+    public int vertexCount() {
+        return offsets.length - 1;
+    }
+
+    // [Degree Function]
+    // EFFECTS:  returns the number of friends of <vertex>
+    public int degree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    // [Neighbour Range Functions]
+    // EFFECTS:  return the bounds of <vertex>'s friends within neighbours()
+    public int firstNeighbour(int vertex) {
+        return offsets[vertex];
+    }
+
+    public int endNeighbour(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    // [Neighbour Array Accessor]
+    // EFFECTS:  returns the shared neighbour array; callers must not modify it
+    public int[] neighbours() {
+        return neighbours;
+    }
+
+    // [Adjacency Test]
+    // EFFECTS:  returns true if <vertex1> and <vertex2> are friends
+    public boolean areFriends(int vertex1, int vertex2) {
+        if (degree(vertex1) > degree(vertex2)) {
+            int swap = vertex1;
+            vertex1 = vertex2;
+            vertex2 = swap;
+        }
+        return Arrays.binarySearch(neighbours, offsets[vertex1], offsets[vertex1 + 1], vertex2) >= 0;
+    }
+
+    // [Common Neighbours Function]
+    // EFFECTS:  returns the common friends of <vertex1> and <vertex2>, in ascending order
+    public int[] commonNeighbours(int vertex1, int vertex2) {
+        int[] common = new int[Math.min(degree(vertex1), degree(vertex2))];
+        int size = 0;
+        int i = offsets[vertex1];
+        int j = offsets[vertex2];
+        int iEnd = offsets[vertex1 + 1];
+        int jEnd = offsets[vertex2 + 1];
+        while (i < iEnd && j < jEnd) {
+            if (neighbours[i] < neighbours[j]) {
+                i++;
+            } else if (neighbours[i] > neighbours[j]) {
+                j++;
+            } else {
+                common[size++] = neighbours[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    // [Mutual Friend Search]
+    // EFFECTS:  returns up to <num> pairs {common friend count, vertex1, vertex2} of
+    //           vertices that are not friends but share at least one friend, with
+    //           vertex1 < vertex2, ordered by count descending, then vertex1 ascending,
+    //           then vertex2 ascending; the search runs on the common fork/join pool if
+    //           <parallel> is true
+    public int[][] suggestPairs(int num, boolean parallel) {
+        if (num <= 0) {
+            return new int[0][];
+        }
+        FakebookTopK heap;
+        if (parallel) {
+            heap = ForkJoinPool.commonPool().invoke(
+                    new SearchTask(0, vertexCount(), num, new ConcurrentLinkedQueue<int[][]>()));
+        } else {
+            heap = new FakebookTopK(num);
+            search(0, vertexCount(), heap, new int[vertexCount()], new int[vertexCount()]);
+        }
+        return heap.toSortedArray();
+    }
+
+    // [Mutual Friend Search]
+    // EFFECTS:  same as suggestPairs(num, parallel), running in parallel only for graphs
+    //           with at least ParallelThreshold vertices
+    public int[][] suggestPairs(int num) {
+        return suggestPairs(num, vertexCount() >= ParallelThreshold
+                && ForkJoinPool.getCommonPoolParallelism() > 1);
+    }
+
+    // [Range Search Function]
+    // REQUIRES: <counts> is all zeros and both scratch arrays have vertexCount() entries
+    // MODIFIES: <heap>
+    // EFFECTS:  offers every candidate pair whose first vertex is in [<start>, <end>) to
+    //           <heap>; <counts> is all zeros again on return
+    private void search(int start, int end, FakebookTopK heap, int[] counts, int[] touched) {
+        for (int user = start; user < end; user++) {
+            // A pair can share at most degree(user) friends, so skip users that cannot
+            // produce a pair good enough for the heap
+            if (!heap.accepts(degree(user), user, user + 1)) {
+                continue;
+            }
+            int touchedCount = 0;
+            for (int i = offsets[user]; i < offsets[user + 1]; i++) {
+                int friend = neighbours[i];
+                // Neighbour lists are sorted, so skip straight past vertices <= user
+                int j = Arrays.binarySearch(neighbours, offsets[friend], offsets[friend + 1], user + 1);
+                for (j = j < 0 ? -j - 1 : j; j < offsets[friend + 1]; j++) {
+                    int other = neighbours[j];
+                    if (counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+            for (int idx = 0; idx < touchedCount; idx++) {
+                int other = touched[idx];
+                if (heap.accepts(counts[other], user, other) && !areFriends(user, other)) {
+                    heap.offer(counts[other], user, other);
+                }
+                counts[other] = 0;
+            }
+        }
+    }
+
+    /*
+        The SearchTask class splits a vertex range in half until it is small enough to
+        search directly, then merges the top-N heaps of its two halves.
+    */
+    private final class SearchTask extends RecursiveTask<FakebookTopK> {
+        private static final long serialVersionUID = 1L;
+
+        SearchTask(int start, int end, int num, ConcurrentLinkedQueue<int[][]> scratch) {
+            this.start = start;
+            this.end = end;
+            this.num = num;
+            this.scratch = scratch;
+        }
+
+        @Override
+        protected FakebookTopK compute() {
+            if (end - start <= LeafVertices) {
+                FakebookTopK heap = new FakebookTopK(num);
+                int[][] arrays = scratch.poll();
+                if (arrays == null) {
+                    arrays = new int[][] { new int[vertexCount()], new int[vertexCount()] };
+                }
+                search(start, end, heap, arrays[0], arrays[1]);
+                // Only arrays left all zeros by a completed search go back to the pool
+                scratch.offer(arrays);
+                return heap;
+            }
+            int mid = (start + end) >>> 1;
+            SearchTask left = new SearchTask(start, mid, num, scratch);
+            left.fork();
+            FakebookTopK heap = new SearchTask(mid, end, num, scratch).compute();
+            heap.addAll(left.join());
+            return heap;
+        }
+
+        private final int start;
+        private final int end;
+        private final int num;
+        private final ConcurrentLinkedQueue<int[][]> scratch;
+    }
+
+    // Member Variables
+    private final int[] offsets;
+    private final int[] neighbours;
+}
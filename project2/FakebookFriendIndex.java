@@ -0,0 +1,350 @@
+package project2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/*
+    The FakebookFriendIndex class is a read-only view of the symmetric friendship graph
+    stored in an index file, which is memory-mapped rather than read: opening an index
+    costs a few system calls however large it is, the operating system pages it in as it
+    is used, and every process that opens the same file shares one copy of it in the page
+    cache. Nothing but the header is copied onto the Java heap.
+
+    Vertices are numbered in ascending user ID order, and the file holds, in little-endian
+    order after a 16-byte header (magic number, version, vertex count, neighbour count):
+
+        userIds     long[vertices]      the user ID of each vertex
+        offsets     int[vertices + 1]   the friends of V are neighbours[offsets[V]] through
+                                        neighbours[offsets[V + 1] - 1], in ascending order
+        degrees     int[vertices]       the number of friends of each vertex
+        neighbours  int[2 * friendships]
+
+    An index is built from Public_Friends by build(), or from a snapshot by write(), and is
+    written to a temporary file that is then renamed into place, so readers never see a
+    partial index. It is not updated when the tables change; rebuild it instead.
+*/
+final class FakebookFriendIndex {
+    // Value returned by vertex() for a user ID that is not in the index
+    public static final int NO_VERTEX = -1;
+
+    // [Open Function]
+    // REQUIRES: <file> was written by build() or write()
+    // EFFECTS:  maps <file> read-only and returns the index it holds; throws an IOException
+    //           if it is not an index file
+    public static FakebookFriendIndex open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.capacity() < HeaderBytes || map.getInt(0) != Magic || map.getInt(4) != Version) {
+                throw new IOException(file + " is not a friend index");
+            }
+            int vertices = map.getInt(8);
+            int entries = map.getInt(12);
+            long expected = HeaderBytes + 8L * vertices + 4L * (2L * vertices + 1 + entries);
+            if (vertices < 0 || entries < 0 || map.capacity() != expected) {
+                throw new IOException(file + " is truncated or corrupt");
+            }
+            return new FakebookFriendIndex(map, vertices, entries);
+        }
+    }
+
+    // [Database Builder]
+    // REQUIRES: <connection> is a valid JDBC connection
+    // EFFECTS:  writes an index of the friendships in Public_Friends to <file>, reading the
+    //           user IDs and friendships in one forward-only scan each
+    public static void build(Connection connection, File file) throws SQLException, IOException {
+        long[] userIds;
+        int[] user1;
+        int[] user2;
+        int edges = 0;
+        try (Statement stmt = connection.createStatement(FakebookOracleConstants.ForwardOnly,
+                FakebookOracleConstants.ReadOnly)) {
+            stmt.setFetchSize(FakebookOracleConstants.StreamingFetchSize);
+            LongColumn ids = new LongColumn();
+            try (ResultSet rst = stmt.executeQuery("SELECT USER_ID FROM " + FakebookOracleConstants.UsersTable
+                    + " ORDER BY USER_ID")) {
+                while (rst.next()) {
+                    ids.add(rst.getLong(1));
+                }
+            }
+            userIds = ids.toArray();
+
+            IntColumn firsts = new IntColumn();
+            IntColumn seconds = new IntColumn();
+            try (ResultSet rst = stmt.executeQuery("SELECT USER1_ID, USER2_ID FROM "
+                    + FakebookOracleConstants.FriendsTable + " ORDER BY USER1_ID, USER2_ID")) {
+                while (rst.next()) {
+                    int row1 = Arrays.binarySearch(userIds, rst.getLong(1));
+                    int row2 = Arrays.binarySearch(userIds, rst.getLong(2));
+                    // Skip dangling and duplicate friendships, as the snapshot loader does
+                    if (row1 < 0 || row2 < 0 || row1 >= row2) {
+                        continue;
+                    }
+                    if (edges > 0 && firsts.get(edges - 1) == row1 && seconds.get(edges - 1) == row2) {
+                        continue;
+                    }
+                    firsts.add(row1);
+                    seconds.add(row2);
+                    edges++;
+                }
+            }
+            user1 = firsts.toArray();
+            user2 = seconds.toArray();
+        }
+        write(file, userIds, new FakebookFriendGraph(userIds.length, user1, user2));
+    }
+
+    // [Snapshot Writer]
+    // EFFECTS:  writes an index of the friendships in <snapshot> to <file>
+    public static void write(File file, FakebookSnapshot snapshot) throws IOException {
+        write(file, snapshot.userIds, snapshot.friends);
+    }
+
+    // [Index Writer]
+    // REQUIRES: vertex V of <graph> is the user <userIds>[V], and <userIds> is ascending
+    // EFFECTS:  writes <graph> to <file> through a temporary file in the same directory
+    private static void write(File file, long[] userIds, FakebookFriendGraph graph) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(temp, "rw"); FileChannel channel = raf.getChannel()) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WriteBufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+                int vertices = graph.vertexCount();
+                int[] neighbours = graph.neighbours();
+                int entries = neighbours.length;
+                buffer.putInt(Magic).putInt(Version).putInt(vertices).putInt(entries);
+                for (long userId : userIds) {
+                    drain(channel, buffer, 8).putLong(userId);
+                }
+                for (int vertex = 0; vertex < vertices; vertex++) {
+                    drain(channel, buffer, 4).putInt(graph.firstNeighbour(vertex));
+                }
+                drain(channel, buffer, 4).putInt(entries);
+                for (int vertex = 0; vertex < vertices; vertex++) {
+                    drain(channel, buffer, 4).putInt(graph.degree(vertex));
+                }
+                for (int idx = 0; idx < entries; idx++) {
+                    drain(channel, buffer, 4).putInt(neighbours[idx]);
+                }
+                drain(channel, buffer, WriteBufferBytes);
+                channel.force(true);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    // [Drain Function]
+    // MODIFIES: <buffer>
+    // EFFECTS:  writes the contents of <buffer> to <channel> if it has less than <needed>
+    //           bytes free, and returns it
+    private static ByteBuffer drain(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() < needed) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    // [Constructor]
+    private FakebookFriendIndex(ByteBuffer map, int vertices, int entries) {
+        int position = HeaderBytes;
+        userIds = slice(map, position, 8 * vertices).asLongBuffer();
+        position += 8 * vertices;
+        offsets = slice(map, position, 4 * (vertices + 1)).asIntBuffer();
+        position += 4 * (vertices + 1);
+        degrees = slice(map, position, 4 * vertices).asIntBuffer();
+        position += 4 * vertices;
+        neighbours = slice(map, position, 4 * entries).asIntBuffer();
+        this.vertices = vertices;
+    }
+
+    private static ByteBuffer slice(ByteBuffer map, int position, int length) {
+        ByteBuffer view = map.duplicate();
+        view.position(position);
+        view.limit(position + length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // [Vertex Count Function]
+    public int vertexCount() {
+        return vertices;
+    }
+
+    // [Vertex Lookup Function]
+    // EFFECTS:  returns the vertex of the user <userID>, or NO_VERTEX if there is none
+    public int vertex(long userID) {
+        int low = 0;
+        int high = vertices - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long id = userIds.get(mid);
+            if (id < userID) {
+                low = mid + 1;
+            } else if (id > userID) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NO_VERTEX;
+    }
+
+    // [User ID Function]
+    // EFFECTS:  returns the user ID of <vertex>
+    public long userId(int vertex) {
+        return userIds.get(vertex);
+    }
+
+    // [Degree Function]
+    // EFFECTS:  returns the number of friends of <vertex>
+    public int degree(int vertex) {
+        return degrees.get(vertex);
+    }
+
+    // [Neighbour Range Functions]
+    // EFFECTS:  return the bounds of <vertex>'s friends, which are neighbour(first) through
+    //           neighbour(end - 1)
+    public int firstNeighbour(int vertex) {
+        return offsets.get(vertex);
+    }
+
+    public int endNeighbour(int vertex) {
+        return offsets.get(vertex + 1);
+    }
+
+    // [Neighbour Function]
+    public int neighbour(int index) {
+        return neighbours.get(index);
+    }
+
+    // [Adjacency Test]
+    // EFFECTS:  returns true if <vertex1> and <vertex2> are friends
+    public boolean areFriends(int vertex1, int vertex2) {
+        if (degree(vertex1) > degree(vertex2)) {
+            int swap = vertex1;
+            vertex1 = vertex2;
+            vertex2 = swap;
+        }
+        return search(firstNeighbour(vertex1), endNeighbour(vertex1), vertex2) >= 0;
+    }
+
+    // [Common Neighbours Function]
+    // EFFECTS:  returns the common friends of <vertex1> and <vertex2>, in ascending order
+    public int[] commonNeighbours(int vertex1, int vertex2) {
+        int[] common = new int[Math.min(degree(vertex1), degree(vertex2))];
+        int size = 0;
+        int i = firstNeighbour(vertex1);
+        int j = firstNeighbour(vertex2);
+        int iEnd = endNeighbour(vertex1);
+        int jEnd = endNeighbour(vertex2);
+        while (i < iEnd && j < jEnd) {
+            int a = neighbours.get(i);
+            int b = neighbours.get(j);
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                common[size++] = a;
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    // [Mutual Friend Search]
+    // EFFECTS:  returns up to <num> pairs {common friend count, vertex1, vertex2} of
+    //           vertices that are not friends but share at least one friend, with
+    //           vertex1 < vertex2, ordered by count descending, then vertex1 ascending,
+    //           then vertex2 ascending; see FakebookFriendGraph.suggestPairs()
+    public int[][] suggestPairs(int num) {
+        if (num <= 0) {
+            return new int[0][];
+        }
+        FakebookTopK heap = new FakebookTopK(num);
+        int[] counts = new int[vertices];
+        int[] touched = new int[vertices];
+        for (int user = 0; user < vertices; user++) {
+            if (!heap.accepts(degree(user), user, user + 1)) {
+                continue;
+            }
+            int touchedCount = 0;
+            for (int i = firstNeighbour(user); i < endNeighbour(user); i++) {
+                int friend = neighbours.get(i);
+                int j = search(firstNeighbour(friend), endNeighbour(friend), user + 1);
+                for (j = j < 0 ? -j - 1 : j; j < endNeighbour(friend); j++) {
+                    int other = neighbours.get(j);
+                    if (counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+            for (int idx = 0; idx < touchedCount; idx++) {
+                int other = touched[idx];
+                if (heap.accepts(counts[other], user, other) && !areFriends(user, other)) {
+                    heap.offer(counts[other], user, other);
+                }
+                counts[other] = 0;
+            }
+        }
+        return heap.toSortedArray();
+    }
+
+    // [Neighbour Search Function]
+    // EFFECTS:  returns the index of <vertex> among the neighbours in [<start>, <end>), or
+    //           -(insertion point) - 1 if it is not there, as Arrays.binarySearch does
+    private int search(int start, int end, int vertex) {
+        int low = start;
+        int high = end - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = neighbours.get(mid);
+            if (value < vertex) {
+                low = mid + 1;
+            } else if (value > vertex) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // File Layout Constants
+    private static final int Magic = 0x49464246; // "FBFI"
+    private static final int Version = 1;
+    private static final int HeaderBytes = 16;
+    private static final int WriteBufferBytes = 1 << 16;
+
+    // Member Variables
+    private final LongBuffer userIds;
+    private final IntBuffer offsets;
+    private final IntBuffer degrees;
+    private final IntBuffer neighbours;
+    private final int vertices;
+}
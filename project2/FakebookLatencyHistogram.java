@@ -0,0 +1,133 @@
+package project2;
+
+/*
+    The FakebookLatencyHistogram class counts latency samples, in nanoseconds, in
+    log-linear buckets in the manner of an HDR histogram: values below 128 each have their
+    own bucket, and every power-of-two range above that is split into 64 equal buckets.
+    Any recorded value is therefore reported to within 1/64 (about 1.6%) of itself, from
+    a nanosecond up to hours, in a fixed 30 KB of counts however many samples there are.
+
+    A histogram is not safe to record into from several threads at once; give each thread
+    its own and combine them with add.
+*/
+final class FakebookLatencyHistogram {
+    // [Constructor]
+    // EFFECTS:  creates an empty histogram
+    public FakebookLatencyHistogram() {
+        counts = new long[BucketCount];
+        count = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    // [Record Function]
+    // REQUIRES: <nanos> >= 0
+    // MODIFIES: this
+    // EFFECTS:  adds one sample of <nanos> nanoseconds
+    public void record(long nanos) {
+        counts[bucket(nanos)]++;
+        count++;
+        total += nanos;
+        min = Math.min(min, nanos);
+        max = Math.max(max, nanos);
+    }
+
+    // [Add Function]
+    // MODIFIES: this
+    // EFFECTS:  adds every sample of <other> to this histogram
+    public void add(FakebookLatencyHistogram other) {
+        for (int idx = 0; idx < BucketCount; idx++) {
+            counts[idx] += other.counts[idx];
+        }
+        count += other.count;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    // [Accessors]
+    public long count() {
+        return count;
+    }
+
+    // EFFECTS:  returns the sum of every sample, in nanoseconds
+    public long total() {
+        return total;
+    }
+
+    // EFFECTS:  returns the smallest sample, or 0 if there are none
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    // EFFECTS:  returns the largest sample, or 0 if there are none
+    public long max() {
+        return max;
+    }
+
+    // EFFECTS:  returns the mean sample, or 0 if there are none
+    public double mean() {
+        return count == 0 ? 0.0 : (double) total / count;
+    }
+
+    // [Percentile Function]
+    // REQUIRES: 0 <= <percentile> <= 100
+    // EFFECTS:  returns the value at or below which <percentile> percent of the samples
+    //           fall, to within the precision of its bucket, or 0 if there are none
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int idx = 0; idx < BucketCount; idx++) {
+            seen += counts[idx];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, highestValue(idx)));
+            }
+        }
+        return max;
+    }
+
+    // [Throughput Function]
+    // EFFECTS:  returns the number of samples per second of recorded time, or 0 if no
+    //           time has been recorded
+    public double throughput() {
+        return total == 0 ? 0.0 : count * 1e9 / total;
+    }
+
+    // [Bucket Function]
+    // EFFECTS:  returns the index of the bucket that counts <value>
+    private static int bucket(long value) {
+        if (value < SubBucketCount) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SubBucketBits - 1);
+        return shift * SubBucketHalf + (int) (value >>> shift);
+    }
+
+    // [Bucket Bound Function]
+    // EFFECTS:  returns the largest value counted by the bucket at <index>
+    private static long highestValue(int index) {
+        if (index < SubBucketCount) {
+            return index;
+        }
+        int shift = index / SubBucketHalf - 1;
+        long sub = index % SubBucketHalf + SubBucketHalf;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    // Bucket Layout Constants
+    private static final int SubBucketBits = 7;
+    private static final int SubBucketCount = 1 << SubBucketBits;
+    private static final int SubBucketHalf = SubBucketCount / 2;
+    private static final int BucketCount = (64 - SubBucketBits + 1) * SubBucketHalf;
+
+    // Member Variables
+    private final long[] counts;
+    private long count;
+    private long total;
+    private long min;
+    private long max;
+}
@@ -3,6 +3,8 @@ package project2;
 import java.sql.SQLException;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public abstract class FakebookOracle {
     // Abstract Query Functions to be Implemented
@@ -26,80 +28,152 @@ public abstract class FakebookOracle {
 
     public abstract FakebookArrayList<SiblingInfo> findPotentialSiblings() throws SQLException;
 
+    // Streaming Query Functions
+    // Each passes the results of the list query of the same name to <consumer> one at a
+    // time and in the same order, so that callers need not hold every result in memory.
+    // Backends override these to stream from their source; the defaults build the list.
+    public <E extends Exception> void lonelyUsers(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        for (UserInfo user : lonelyUsers()) {
+            consumer.accept(user);
+        }
+    }
+
+    public <E extends Exception> void liveAwayFromHome(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        for (UserInfo user : liveAwayFromHome()) {
+            consumer.accept(user);
+        }
+    }
+
+    public <E extends Exception> void matchMaker(int num, int yearDiff, FakebookConsumer<? super MatchPair, E> consumer)
+            throws SQLException, E {
+        for (MatchPair pair : matchMaker(num, yearDiff)) {
+            consumer.accept(pair);
+        }
+    }
+
+    public <E extends Exception> void findPotentialSiblings(FakebookConsumer<? super SiblingInfo, E> consumer)
+            throws SQLException, E {
+        for (SiblingInfo siblings : findPotentialSiblings()) {
+            consumer.accept(siblings);
+        }
+    }
+
+    // Batch Query Functions
+    // Each answers the single query of the same name for many arguments at once, keyed
+    // by argument in the order given (an argument given twice is answered once). Backends
+    // override these to share one pass over their source; the defaults ask one at a time.
+    public Map<Long, AgeInfo> findAgeInfo(long[] userIDs) throws SQLException {
+        Map<Long, AgeInfo> results = new LinkedHashMap<Long, AgeInfo>();
+        for (long userID : userIDs) {
+            if (!results.containsKey(userID)) {
+                results.put(userID, findAgeInfo(userID));
+            }
+        }
+        return results;
+    }
+
     // Query Result Printing Functions
+    // Each writes its results straight to <writer> through a FakebookResultWriter, so that
+    // no String holding the whole result is ever built.
     public void printQuery0(Writer writer, BirthMonthInfo results) throws IOException {
-        String output = String.format("%sQuery 0%s%n%s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 0);
+        out.write(results);
+        endQuery(out);
     }
 
     public void printQuery1(Writer writer, FirstNameInfo results) throws IOException {
-        String output = String.format("%sQuery 1%s%n%s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 1);
+        out.write(results);
+        endQuery(out);
     }
 
     public void printQuery2(Writer writer, FakebookArrayList<UserInfo> results) throws IOException {
-        String output = String.format("%sQuery 2%s%nNumber of lonely users: %d%nLonely users are: %s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results.size(),
-                results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 2);
+        out.write("Number of lonely users: ");
+        out.write(results.size());
+        out.newLine();
+        out.write("Lonely users are: ");
+        out.write(results);
+        endQuery(out);
     }
 
     public void printQuery3(Writer writer, FakebookArrayList<UserInfo> results) throws IOException {
-        String output = String.format(
-                "%sQuery 3%s%nNumber of users who live away from home: %d%nThose users are: %s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results.size(),
-                results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 3);
+        out.write("Number of users who live away from home: ");
+        out.write(results.size());
+        out.newLine();
+        out.write("Those users are: ");
+        out.write(results);
+        endQuery(out);
     }
 
     public void printQuery4(Writer writer, FakebookArrayList<TaggedPhotoInfo> results) throws IOException {
-        String output = String.format("%sQuery 4%s%nThe following are the top %d photo(s) with the most tags:%n%s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results.size(),
-                results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 4);
+        out.write("The following are the top ");
+        out.write(results.size());
+        out.write(" photo(s) with the most tags:");
+        out.newLine();
+        out.write(results);
+        endQuery(out);
     }
 
     public void printQuery5(Writer writer, FakebookArrayList<MatchPair> results) throws IOException {
-        String output = String.format("%sQuery 5%s%nTop %d match(es):%n%s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results.size(),
-                results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 5);
+        out.write("Top ");
+        out.write(results.size());
+        out.write(" match(es):");
+        out.newLine();
+        out.write(results);
+        endQuery(out);
     }
 
     public void printQuery6(Writer writer, FakebookArrayList<UsersPair> results) throws IOException {
-        String output = String.format("%sQuery 6%s%n%s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 6);
+        out.write(results);
+        endQuery(out);
     }
 
     public void printQuery7(Writer writer, EventStateInfo results) throws IOException {
-        String output = String.format("%sQuery 7%s%n%s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 7);
+        out.write(results);
+        endQuery(out);
     }
 
     public void printQuery8(Writer writer, AgeInfo results) throws IOException {
-        String output = String.format("%sQuery 8%s%n%s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 8);
+        out.write(results);
+        endQuery(out);
     }
 
     public void printQuery9(Writer writer, FakebookArrayList<SiblingInfo> results) throws IOException {
-        String output = String.format("%sQuery 9%s%n%d pair(s) of potential siblings:%n%s%n%n",
-                FakebookOracleConstants.PrintDecoration, FakebookOracleConstants.PrintDecoration, results.size(),
-                results);
-        writer.write(output);
-        writer.flush();
+        FakebookResultWriter out = beginQuery(writer, 9);
+        out.write(results.size());
+        out.write(" pair(s) of potential siblings:");
+        out.newLine();
+        out.write(results);
+        endQuery(out);
+    }
+
+    // [Query Header Function]
+    // EFFECTS:  returns a FakebookResultWriter on <writer> to which the header line of
+    //           query <query> has been written
+    private static FakebookResultWriter beginQuery(Writer writer, int query) throws IOException {
+        FakebookResultWriter out = new FakebookResultWriter(writer);
+        out.write(FakebookOracleConstants.PrintDecoration);
+        out.write("Query ");
+        out.write(query);
+        out.write(FakebookOracleConstants.PrintDecoration);
+        out.newLine();
+        return out;
+    }
+
+    // [Query Footer Function]
+    // EFFECTS:  ends the output of a query with a blank line and flushes it to its Writer
+    private static void endQuery(FakebookResultWriter out) throws IOException {
+        out.newLine();
+        out.newLine();
+        out.flush();
     }
 }
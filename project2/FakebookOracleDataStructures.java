@@ -1,29 +1,76 @@
 package project2;
 
+import java.io.IOException;
+
 /*
     The UserInfo class stores a subset of the information about Fakebook users;
     specifically, it stores user IDs, first names, and last names. Query 0,
     Query 2, Query 3, Query 4, Query 5, Query 6, Query 8, and Query 9 will use this data
-    structure.
+    structure. A UserInfo read in bulk is a view of one user held in a FakebookUserStore,
+    so that results of many users share their names and hold no strings of their own; a
+    UserInfo created on its own (such as the ERROR users of Query 8) holds its ID and
+    names directly, so it costs no more than a single object.
 */
-final class UserInfo {
+final class UserInfo implements FakebookRenderable {
     // [Constructor]
+    // EFFECTS:  creates a UserInfo holding its ID and names itself; users read in bulk
+    //           should be added to a shared FakebookUserStore instead
     public UserInfo(long userID, String firstName, String lastName) {
+        store = null;
+        handle = 0;
         this.userID = userID;
         this.firstName = firstName;
         this.lastName = lastName;
     }
 
+    // [View Constructor]
+    // REQUIRES: 0 <= <handle> < store.size()
+    UserInfo(FakebookUserStore store, int handle) {
+        this.store = store;
+        this.handle = handle;
+        userID = 0;
+        firstName = null;
+        lastName = null;
+    }
+
+    // [Accessors]
+    long getUserID() {
+        return store == null ? userID : store.userID(handle);
+    }
+
+    String getFirstName() {
+        return store == null ? firstName : store.firstName(handle);
+    }
+
+    String getLastName() {
+        return store == null ? lastName : store.lastName(handle);
+    }
+
     // [UserInfo-to-String Converter]
     // EFFECTS:  returns a string representation of this UserInfo instance
     public String toString() {
-        return String.format("%s %s (%d)", firstName, lastName, userID);
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [UserInfo Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this UserInfo instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        out.write(getFirstName());
+        out.write(' ');
+        out.write(getLastName());
+        out.write(" (");
+        out.write(getUserID());
+        out.write(')');
     }
 
     // Member Variables
-    private long userID;
-    private String firstName;
-    private String lastName;
+    final FakebookUserStore store;
+    final int handle;
+    private final long userID;
+    private final String firstName;
+    private final String lastName;
 }
 
 /*
@@ -32,7 +79,7 @@ final class UserInfo {
     latter two of which refer to the album that contains the photo in question).
     Query 4 and Query 5 will use this data structure.
 */
-final class PhotoInfo {
+final class PhotoInfo implements FakebookRenderable {
     // [Constructor]
     public PhotoInfo(long photoID, long albumID, String link, String albumName) {
         this.photoID = photoID;
@@ -44,8 +91,23 @@ final class PhotoInfo {
     // [PhotoInfo-to-String Converter]
     // EFFECTS:  returns a string representation of this PhotoInfo instance
     public String toString() {
-        return String.format("(Photo #%d) from Album #%d (%s) at url '%s'",
-                photoID, albumID, albumName, link);
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [PhotoInfo Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this PhotoInfo instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        out.write("(Photo #");
+        out.write(photoID);
+        out.write(") from Album #");
+        out.write(albumID);
+        out.write(" (");
+        out.write(albumName);
+        out.write(") at url '");
+        out.write(link);
+        out.write('\'');
     }
 
     // Member Variables
@@ -61,7 +123,7 @@ final class PhotoInfo {
     photo and a list of UserInfo instances identifying the users tagged in that
     photo. Query 4 will use this data structure.
 */
-final class TaggedPhotoInfo {
+final class TaggedPhotoInfo implements FakebookRenderable {
     // [Constructor]
     // REQUIRES: <photo> is not NULL
     public TaggedPhotoInfo(PhotoInfo photo) {
@@ -80,7 +142,20 @@ final class TaggedPhotoInfo {
     // [TaggedPhotoInfo-to-String Converter]
     // EFFECTS:  returns a string representation of this TaggedPhotoInfo instance
     public String toString() {
-        return String.format("%s%n%d Tags%n%s", photo, usersTagged.size(), usersTagged);
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [TaggedPhotoInfo Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this TaggedPhotoInfo instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        out.write(photo);
+        out.newLine();
+        out.write(usersTagged.size());
+        out.write(" Tags");
+        out.newLine();
+        out.write(usersTagged);
     }
 
     // Member Variables
@@ -94,7 +169,7 @@ final class TaggedPhotoInfo {
     user (plus each user's birth year) and a list of PhotoInfo instances identifying
     the photos in which they are both tagged. Query 5 will use this data structure.
 */
-final class MatchPair {
+final class MatchPair implements FakebookRenderable {
     // [Constructor]
     // REQUIRES: neither <user1> nor <user2> is NULL
     public MatchPair(UserInfo user1, long user1Year, UserInfo user2, long user2Year) {
@@ -116,9 +191,27 @@ final class MatchPair {
     // [MatchPair-to-String Converter]
     // EFFECTS:  returns a string representation of this MatchPair instance
     public String toString() {
-        return String.format("%s born in %d / %s born in %d%n" +
-                "They are not Fakebook friends and are tagged in %d common photo(s)%n%s",
-                user1, user1Year, user2, user2Year, sharedPhotos.size(), sharedPhotos);
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [MatchPair Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this MatchPair instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        out.write(user1);
+        out.write(" born in ");
+        out.write(user1Year);
+        out.write(" / ");
+        out.write(user2);
+        out.write(" born in ");
+        out.write(user2Year);
+        out.newLine();
+        out.write("They are not Fakebook friends and are tagged in ");
+        out.write(sharedPhotos.size());
+        out.write(" common photo(s)");
+        out.newLine();
+        out.write(sharedPhotos);
     }
 
     // Member Variables
@@ -135,7 +228,7 @@ final class MatchPair {
     users and a list of UserInfo instances identifying the two users' common
     friends. Query 6 will use this data structure.
 */
-final class UsersPair {
+final class UsersPair implements FakebookRenderable {
     // [Constructor]
     // REQUIRES: neither <user1> nor <user2> is NULL
     public UsersPair(UserInfo user1, UserInfo user2) {
@@ -155,8 +248,22 @@ final class UsersPair {
     // [UserPair-to-String Converter]
     // EFFECTS:  returns a string representation of this UsersPair instance
     public String toString() {
-        return String.format("%s and %s are not Fakebook friends but share %d common friends:%n%s",
-                user1, user2, sharedFriends.size(), sharedFriends);
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [UsersPair Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this UsersPair instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        out.write(user1);
+        out.write(" and ");
+        out.write(user2);
+        out.write(" are not Fakebook friends but share ");
+        out.write(sharedFriends.size());
+        out.write(" common friends:");
+        out.newLine();
+        out.write(sharedFriends);
     }
 
     // Member Variables
@@ -170,7 +277,7 @@ final class UsersPair {
     siblings; specifically, it stores one UserInfo instance for each of th two
     users. Query 9 will use this data structure.
 */
-final class SiblingInfo {
+final class SiblingInfo implements FakebookRenderable {
     // [Constructor]
     // REQUIRES: neither <user1> nor <user2> are NULL
     public SiblingInfo(UserInfo user1, UserInfo user2) {
@@ -181,7 +288,17 @@ final class SiblingInfo {
     // [SiblingInfo-to-String Converter]
     // EFFECTS:  returns a string representation of this SiblingInfo instance
     public String toString() {
-        return String.format("%s and %s", user1.toString(), user2.toString());
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [SiblingInfo Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this SiblingInfo instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        user1.writeTo(out);
+        out.write(" and ");
+        user2.writeTo(out);
     }
 
     // Member Variables
@@ -196,7 +313,7 @@ final class SiblingInfo {
     are, and the month in which the fewest (but at least 1) users were born
     and who those users are. Query 0 will use this data structure.
 */
-final class BirthMonthInfo {
+final class BirthMonthInfo implements FakebookRenderable {
     // [Constructor]
     public BirthMonthInfo(long totalUsers, int mostPopularMonth, int leastPopularMonth) {
         this.totalUsers = totalUsers;
@@ -225,12 +342,34 @@ final class BirthMonthInfo {
     // [BirthMonthInfo-to-String Converter]
     // EFFECTS:  returns a string representation of this BirthMonthInfo instance
     public String toString() {
-        return String.format("Users with birth month info: %d%n" +
-                "The most common birth month is %d (%d users)%nUsers: %s%n" +
-                "The least common birth month is %d (%d users)%nUsers: %s",
-                totalUsers,
-                mostPopularMonth, usersBornInMostPopularMonth.size(), usersBornInMostPopularMonth,
-                leastPopularMonth, usersBornInLeastPopularMonth.size(), usersBornInLeastPopularMonth);
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [BirthMonthInfo Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this BirthMonthInfo instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        out.write("Users with birth month info: ");
+        out.write(totalUsers);
+        out.newLine();
+        out.write("The most common birth month is ");
+        out.write(mostPopularMonth);
+        out.write(" (");
+        out.write(usersBornInMostPopularMonth.size());
+        out.write(" users)");
+        out.newLine();
+        out.write("Users: ");
+        out.write(usersBornInMostPopularMonth);
+        out.newLine();
+        out.write("The least common birth month is ");
+        out.write(leastPopularMonth);
+        out.write(" (");
+        out.write(usersBornInLeastPopularMonth.size());
+        out.write(" users)");
+        out.newLine();
+        out.write("Users: ");
+        out.write(usersBornInLeastPopularMonth);
     }
 
     // Member Variables
@@ -247,7 +386,7 @@ final class BirthMonthInfo {
     names with the fewest letters, and a list of the most commonly-held first names and
     how many users have that first name. Query 1 will use this data structure.
 */
-final class FirstNameInfo {
+final class FirstNameInfo implements FakebookRenderable {
     // [Constructor]
     public FirstNameInfo() {
         commonCount = 0;
@@ -279,10 +418,25 @@ final class FirstNameInfo {
     // [FirstNameInfo-to-String Converter]
     // EFFECTS:  returns a string representation of this FirstNameInfo instance
     public String toString() {
-        return String.format("The longest first name(s) is (are) %s%n" +
-                "The shortest first name(s) is (are) %s%n" +
-                "The most common first name(s) is (are) %s - having %d users having each one",
-                longestFirstNames, shortestFirstNames, mostCommonFirstNames, commonCount);
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [FirstNameInfo Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this FirstNameInfo instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        out.write("The longest first name(s) is (are) ");
+        out.write(longestFirstNames);
+        out.newLine();
+        out.write("The shortest first name(s) is (are) ");
+        out.write(shortestFirstNames);
+        out.newLine();
+        out.write("The most common first name(s) is (are) ");
+        out.write(mostCommonFirstNames);
+        out.write(" - having ");
+        out.write(commonCount);
+        out.write(" users having each one");
     }
 
     // Member Variables
@@ -297,7 +451,7 @@ final class FirstNameInfo {
     held; specifically, it stores a list of the states in which the most events are
     held and the number of events therein held. Query 7 will use this data structure.
 */
-final class EventStateInfo {
+final class EventStateInfo implements FakebookRenderable {
     // [Constructor]
     public EventStateInfo(long eventCount) {
         this.eventCount = eventCount;
@@ -312,9 +466,19 @@ final class EventStateInfo {
     // [EventStateInfo-to-String Converter]
     // EFFECTS:  returns a string representation of this EventStateInfo instance
     public String toString() {
-        return String.format("State(s) with the most events: %s%n" +
-                "Number of events in that (those) state(s): %d",
-                popularStates, eventCount);
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [EventStateInfo Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this EventStateInfo instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        out.write("State(s) with the most events: ");
+        out.write(popularStates);
+        out.newLine();
+        out.write("Number of events in that (those) state(s): ");
+        out.write(eventCount);
     }
 
     // Member Variables
@@ -327,7 +491,7 @@ final class EventStateInfo {
     though it does not store information about who that particular user is. Query 8 will
     use this data structure.
 */
-final class AgeInfo {
+final class AgeInfo implements FakebookRenderable {
     // [Constructor]
     // REQUIRES: neither <oldest> nor <youngest> is NULL
     public AgeInfo(UserInfo oldestFriend, UserInfo youngestFriend) {
@@ -338,8 +502,19 @@ final class AgeInfo {
     // [AgeInfo-to-String Converter]
     // EFFECTS:  returns a string representation of this AgeInfo instance
     public String toString() {
-        return String.format("Oldest friend: %s%nYoungest friend: %s",
-                oldestFriend, youngestFriend);
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [AgeInfo Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this AgeInfo instance to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        out.write("Oldest friend: ");
+        out.write(oldestFriend);
+        out.newLine();
+        out.write("Youngest friend: ");
+        out.write(youngestFriend);
     }
 
     // Member Variabls
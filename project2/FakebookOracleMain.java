@@ -1,79 +1,183 @@
 package project2;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.io.StringWriter;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class FakebookOracleMain {
     // Member Variables
     private static String username = "bxz"; // replace with your uniqname
     private static String password = "eecs484"; // replace with your Oracle password (default: eecsclass)
+    private static boolean inMemory = false;
+    private static String snapshotDirectory = null;
+    private static int threads = 1;
+    private static int port = FakebookOracleServer.DefaultPort;
+    private static long cacheCapacity = 0L;
+    private static long cacheTimeToLive = CachingFakebookOracle.DefaultTimeToLive;
+    private static int warmup = 0;
+    private static int iterations = 1;
+    private static String timingFile = null;
+    private static String traceFile = null;
+    private static FakebookTracer tracer = null;
+    private static CachingFakebookOracle resultCache = null;
+    private static boolean incremental = false;
+    private static FakebookSnapshot snapshot = null;
+    private static String friendIndexFile = null;
+    private static boolean passed = true;
+    private static boolean streaming = false;
+    private static FakebookSharedScan sharedScan = null;
+
+    // Queries run by the stress mode: those that used to create shared views
+    private static final int[] StressQueries = { 6, 8, 9 };
 
     // [Main Function]
     // Expected Command Line Arguments:
-    //  [0] either "all" or a digit 0-9, representing what query to run
+    //  [0] either "all" or a digit 0-9, representing what query to run, or "serve" to start
+    //      a FakebookOracleServer instead, in which case [1] is omitted; a server takes
+    //      "port=<port>" and uses "parallel=<threads>" as the number of connections to pool;
+    //      or "stress" to run Queries 6, 8 and 9 on up to "parallel=<threads>" threads at
+    //      once, "iterations=<n>" times each per thread, checking every result (see stress);
+    //      the process exits with status 1 if any result was wrong or failed
     //  [1] either "p" or "t", indicating "print results" and "time queries" respectively
+    //  [2] (optional) either "oracle" or "memory", selecting the backend; "memory" loads a
+    //      snapshot of every table once and then answers the queries in-process, and
+    //      "memory=<directory>" loads the snapshot from FakebookDataGenerator files instead
+    //      of the database
+    //  [3] (optional) "parallel" or "parallel=<threads>", running the queries concurrently
+    //      on separate pooled connections (one thread per query unless <threads> is given);
+    //      results are still printed in query order
+    //  [4] (optional) "cache" or "cache=<rows>", answering repeated calls from a
+    //      CachingFakebookOracle holding up to <rows> result rows, each for "ttl=<seconds>"
+    //  [5] (optional, timing only) "warmup=<n>" and "iterations=<n>", running each query
+    //      <n> times untimed and then timing <n> runs of it (the median is printed as its
+    //      time, followed by its latency percentiles if more than one run is timed), and
+    //      "out=<file>", also writing the timings to <file> as comma-separated values;
+    //      queries are timed building their full results, as graded, and "streaming" also
+    //      times the streaming variants of Queries 2, 3, 5 and 9 on separate rows labelled
+    //      "(Streaming)", which are not written to <file>
+    //  [6] (optional, not in server mode) "trace=<file>", tracing each query and the SQL
+    //      statements it runs, writing the trace to <file> as collapsed stacks for flame
+    //      graph tools and a summary of it to standard error
+    //  [7] (optional) "incremental", answering Queries 0, 1 and 7 from FakebookAggregates
+    //      built once when the backend is set up (see FakebookAggregatesCheck for their test)
+    //  [8] (optional) "friends=<file>", answering the friendship parts of Queries 2, 6, 8
+    //      and 9 from the memory-mapped friend index in <file>, which is built from the
+    //      database first if it does not exist; with the in-memory backend the index is only
+    //      written from the snapshot, if it does not exist
+    //  [9] (optional) "shared", reading each table the chosen queries need exactly once
+    //      when the backend is set up and answering every query of the batch from that one
+    //      shared scan (see FakebookSharedScan), which reads the table files instead of the
+    //      database if "memory=<directory>" is also given; Queries 0, 1 and 7 are then
+    //      always answered from aggregates, so "incremental" is ignored
     public static void main(String[] args) {
+        boolean serve = args[0].equals("serve");
+        boolean stress = args[0].equals("stress");
         int start = 0; // inclusive
         int stop = 10; // exclusive
-        if (!(args[0].equals("all"))) {
+        if (!serve && !stress && !(args[0].equals("all"))) {
             start = Integer.parseInt(args[0]);
             stop = start + 1;
         }
 
-        boolean print = args[1].equals("p");
-        if (print) {
+        boolean print = !serve && !stress && args[1].equals("p");
+        if (serve) {
+            threads = 4;
+        }
+        if (stress) {
+            threads = 8;
+            iterations = 10;
+        }
+        for (int i = serve || stress ? 1 : 2; i < args.length; i++) {
+            if (args[i].startsWith("memory")) {
+                inMemory = true;
+                if (args[i].startsWith("memory=")) {
+                    snapshotDirectory = args[i].substring("memory=".length());
+                }
+            } else if (args[i].equals("parallel")) {
+                threads = stop - start;
+            } else if (args[i].startsWith("parallel=")) {
+                threads = Integer.parseInt(args[i].substring("parallel=".length()));
+            } else if (args[i].startsWith("port=")) {
+                port = Integer.parseInt(args[i].substring("port=".length()));
+            } else if (args[i].equals("cache")) {
+                cacheCapacity = CachingFakebookOracle.DefaultCapacity;
+            } else if (args[i].startsWith("cache=")) {
+                cacheCapacity = Long.parseLong(args[i].substring("cache=".length()));
+            } else if (args[i].startsWith("ttl=")) {
+                cacheTimeToLive = Long.parseLong(args[i].substring("ttl=".length())) * 1000L;
+            } else if (args[i].startsWith("warmup=")) {
+                warmup = Integer.parseInt(args[i].substring("warmup=".length()));
+            } else if (args[i].startsWith("iterations=")) {
+                iterations = Math.max(1, Integer.parseInt(args[i].substring("iterations=".length())));
+            } else if (args[i].startsWith("out=")) {
+                timingFile = args[i].substring("out=".length());
+            } else if (args[i].startsWith("trace=") && !serve) {
+                traceFile = args[i].substring("trace=".length());
+                tracer = new FakebookTracer();
+            } else if (args[i].equals("incremental")) {
+                incremental = true;
+            } else if (args[i].startsWith("friends=")) {
+                friendIndexFile = args[i].substring("friends=".length());
+            } else if (args[i].equals("streaming")) {
+                streaming = true;
+            } else if (args[i].equals("shared")) {
+                sharedScan = new FakebookSharedScan(start, stop);
+            }
+        }
+        if (serve) {
+            serve();
+        } else if (stress) {
+            passed = stress();
+        } else if (print) {
             query(start, stop);
         } else {
             time(start, stop);
         }
+        if (tracer != null) {
+            writeTrace();
+        }
+        if (!passed) {
+            System.exit(1);
+        }
     }
 
     private static void query(int start, int stop) {
-        try (Connection oracleConnection = getConnection()) {
-            FakebookOracle db = new StudentFakebookOracle(oracleConnection);
+        try (FakebookConnectionPool pool = openPool()) {
+            FakebookOracle db = getBackend(pool);
             OutputStreamWriter out = new OutputStreamWriter(System.out);
 
-            for (int query = start; query < stop; query++) {
-                switch (query) {
-                    case 0:
-                        db.printQuery0(out, db.findMonthOfBirthInfo());
-                        break;
-                    case 1:
-                        db.printQuery1(out, db.findNameInfo());
-                        break;
-                    case 2:
-                        db.printQuery2(out, db.lonelyUsers());
-                        break;
-                    case 3:
-                        db.printQuery3(out, db.liveAwayFromHome());
-                        break;
-                    case 4:
-                        db.printQuery4(out, db.findPhotosWithMostTags(5));
-                        break;
-                    case 5:
-                        db.printQuery5(out, db.matchMaker(5, 2));
-                        break;
-                    case 6:
-                        db.printQuery6(out, db.suggestFriends(5));
-                        break;
-                    case 7:
-                        db.printQuery7(out, db.findEventStates());
-                        break;
-                    case 8:
-                        db.printQuery8(out, db.findAgeInfo(215L));
-                        break;
-                    case 9:
-                        db.printQuery9(out, db.findPotentialSiblings());
-                        break;
-                    default:
-                        break;
+            if (threads > 1) {
+                // Render each query's output separately and write them out in query order
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                try {
+                    ArrayList<Future<String>> outputs = new ArrayList<Future<String>>();
+                    for (int query = start; query < stop; query++) {
+                        final int q = query;
+                        outputs.add(executor.submit(() -> render(db, q)));
+                    }
+                    for (Future<String> output : outputs) {
+                        out.write(await(output));
+                        out.flush();
+                    }
+                } finally {
+                    executor.shutdownNow();
+                }
+            } else {
+                for (int query = start; query < stop; query++) {
+                    new FakebookQueryRequest(query).print(db, out);
                 }
             }
-
-            oracleConnection.close();
         } catch (SQLException e) {
             e.printStackTrace();
         } catch (IOException e) {
@@ -85,61 +189,387 @@ public final class FakebookOracleMain {
         long beginTime = 0L;
         long endTime = 0L;
 
-        try (Connection oracleConnection = getConnection()) {
-            FakebookOracle db = new StudentFakebookOracle(oracleConnection);
+        try (FakebookConnectionPool pool = openPool()) {
             OutputStreamWriter out = new OutputStreamWriter(System.out);
+            beginTime = System.currentTimeMillis();
+            FakebookOracle db = getBackend(pool);
+            endTime = System.currentTimeMillis();
+            if (sharedScan != null) {
+                out.write(String.format("Shared Scan Time: %.3f (%d tables)%n", (endTime - beginTime) / 1000.0,
+                        sharedScan.tableCount()));
+                out.flush();
+            } else if (inMemory) {
+                out.write(String.format("Snapshot Load Time: %.3f%n", (endTime - beginTime) / 1000.0));
+                out.flush();
+            }
 
-            for (int query = start; query < stop; query++) {
-                beginTime = System.currentTimeMillis();
-                switch (query) {
-                    case 0:
-                        db.findMonthOfBirthInfo();
-                        break;
-                    case 1:
-                        db.findNameInfo();
-                        break;
-                    case 2:
-                        db.lonelyUsers();
-                        break;
-                    case 3:
-                        db.liveAwayFromHome();
-                        break;
-                    case 4:
-                        db.findPhotosWithMostTags(5);
-                        break;
-                    case 5:
-                        db.matchMaker(5, 2);
-                        break;
-                    case 6:
-                        db.suggestFriends(5);
-                        break;
-                    case 7:
-                        db.findEventStates();
-                        break;
-                    case 8:
-                        db.findAgeInfo(215L);
-                        break;
-                    case 9:
-                        db.findPotentialSiblings();
-                        break;
-                    default:
-                        break;
+            FakebookLatencyHistogram[] latencies = new FakebookLatencyHistogram[stop - start];
+            if (threads > 1) {
+                // Time each query on its own thread, and the batch as a whole
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                try {
+                    beginTime = System.nanoTime();
+                    ArrayList<Future<FakebookLatencyHistogram>> measured =
+                            new ArrayList<Future<FakebookLatencyHistogram>>();
+                    ArrayList<Future<FakebookLatencyHistogram>> streamed =
+                            new ArrayList<Future<FakebookLatencyHistogram>>();
+                    for (int query = start; query < stop; query++) {
+                        final int q = query;
+                        measured.add(executor.submit(() -> measure(db, q, false)));
+                        streamed.add(streams(q) ? executor.submit(() -> measure(db, q, true)) : null);
+                    }
+                    for (int query = start; query < stop; query++) {
+                        latencies[query - start] = await(measured.get(query - start));
+                        report(out, String.format("Query %d", query), latencies[query - start]);
+                        if (streamed.get(query - start) != null) {
+                            report(out, String.format("Query %d (Streaming)", query),
+                                    await(streamed.get(query - start)));
+                        }
+                    }
+                    endTime = System.nanoTime();
+                    out.write(String.format("Total Wall Time: %.3f%n", (endTime - beginTime) / 1e9));
+                    out.flush();
+                } finally {
+                    executor.shutdownNow();
                 }
-                endTime = System.currentTimeMillis();
-
-                out.write(String.format("Query %d Time: %.3f%n", query, (endTime - beginTime) / 1000.0));
+            } else {
+                for (int query = start; query < stop; query++) {
+                    latencies[query - start] = measure(db, query, false);
+                    report(out, String.format("Query %d", query), latencies[query - start]);
+                    if (streams(query)) {
+                        report(out, String.format("Query %d (Streaming)", query), measure(db, query, true));
+                    }
+                }
+            }
+            if (timingFile != null) {
+                writeTimings(start, latencies);
+            }
+            // On standard error, so that the times keep the format of PublicTime.txt
+            if (!inMemory && sharedScan == null) {
+                System.err.println(String.format("Statement cache: %d hit(s), %d miss(es)", pool.statementHits(),
+                        pool.statementMisses()));
+            }
+            if (resultCache != null) {
+                out.write(String.format("%s%n", resultCache));
                 out.flush();
             }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // [Streaming Timing Test]
+    // EFFECTS:  returns true if the streaming variant of query <query> is to be timed too
+    private static boolean streams(int query) {
+        return streaming && new FakebookQueryRequest(query).isStreamable();
+    }
+
+    // [Measure Function]
+    // EFFECTS:  runs query <query> against <db> <warmup> times, and then <iterations> more
+    //           times, returning the latencies of the latter; the query builds its full
+    //           results, or streams them if <streamed>
+    private static FakebookLatencyHistogram measure(FakebookOracle db, int query, boolean streamed)
+            throws SQLException {
+        FakebookQueryRequest request = new FakebookQueryRequest(query);
+        for (int run = 0; run < warmup; run++) {
+            execute(request, db, streamed);
+        }
+
+        FakebookLatencyHistogram latencies = new FakebookLatencyHistogram();
+        for (int run = 0; run < iterations; run++) {
+            long beginTime = System.nanoTime();
+            execute(request, db, streamed);
+            latencies.record(System.nanoTime() - beginTime);
+        }
+        return latencies;
+    }
+
+    private static void execute(FakebookQueryRequest request, FakebookOracle db, boolean streamed)
+            throws SQLException {
+        if (streamed) {
+            request.stream(db);
+        } else {
+            request.run(db);
+        }
+    }
+
+    // [Report Function]
+    // EFFECTS:  prints the median latency of the runs labelled <label> (e.g. "Query 4") to
+    //           <out> in the same form as PublicTime.txt, followed by their percentiles if
+    //           more than one run was timed
+    private static void report(Writer out, String label, FakebookLatencyHistogram latencies) throws IOException {
+        out.write(String.format("%s Time: %.3f%n", label, latencies.percentile(50) / 1e9));
+        if (latencies.count() > 1) {
+            out.write(String.format("    %d runs (ms): min %.3f, p50 %.3f, p90 %.3f, p99 %.3f, p99.9 %.3f, "
+                    + "max %.3f; %.1f queries/s%n", latencies.count(), latencies.min() / 1e6,
+                    latencies.percentile(50) / 1e6, latencies.percentile(90) / 1e6,
+                    latencies.percentile(99) / 1e6, latencies.percentile(99.9) / 1e6, latencies.max() / 1e6,
+                    latencies.throughput()));
+        }
+        out.flush();
+    }
+
+    // [Timing File Writer]
+    // EFFECTS:  writes one line of comma-separated values per query in <latencies>, the
+    //           first of which is query <start>, to <timingFile>; times are in nanoseconds
+    private static void writeTimings(int start, FakebookLatencyHistogram[] latencies) throws IOException {
+        try (Writer file = new FileWriter(timingFile)) {
+            file.write(String.format("query,runs,min_ns,p50_ns,p90_ns,p99_ns,p999_ns,max_ns,mean_ns,queries_per_s%n"));
+            for (int idx = 0; idx < latencies.length; idx++) {
+                FakebookLatencyHistogram h = latencies[idx];
+                file.write(String.format("%d,%d,%d,%d,%d,%d,%d,%d,%.0f,%.3f%n", start + idx, h.count(), h.min(),
+                        h.percentile(50), h.percentile(90), h.percentile(99), h.percentile(99.9), h.max(),
+                        h.mean(), h.throughput()));
+            }
+        }
+    }
+
+    // [Server Mode]
+    // EFFECTS:  builds the backend once, warms it up, and then answers requests on <port>
+    //           until the process is stopped
+    private static void serve() {
+        try (FakebookConnectionPool pool = openPool()) {
+            long beginTime = System.currentTimeMillis();
+            FakebookOracle db = getBackend(pool);
+            try (FakebookOracleServer server = new FakebookOracleServer(db, port)) {
+                server.warmUp();
+                long endTime = System.currentTimeMillis();
+                System.err.println(String.format("Serving on port %d with %s threads (ready in %.3f s)",
+                        server.getPort(), server.getThreadKind(), (endTime - beginTime) / 1000.0));
+                server.serve();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // [Stress Mode]
+    // EFFECTS:  runs Queries 6, 8 and 9 with their default parameters on 1, 2, 4, ... and
+    //           finally <threads> threads at once, each thread running every query
+    //           <iterations> times, starting at a different one; every result is compared
+    //           with one computed before any thread started, and the throughput and number of
+    //           wrong or failed results are printed for each number of threads; returns
+    //           true if every result matched and the run was not cut short by an error
+    private static boolean stress() {
+        try (FakebookConnectionPool pool = openPool()) {
+            FakebookOracle db = getBackend(pool);
+            OutputStreamWriter out = new OutputStreamWriter(System.out);
+            String[] expected = new String[StressQueries.length];
+            for (int idx = 0; idx < StressQueries.length; idx++) {
+                expected[idx] = render(db, StressQueries[idx]);
+            }
 
-            oracleConnection.close();
+            int failures = 0;
+            int most = Math.max(1, threads);
+            for (int level = 1; ; level = Math.min(level * 2, most)) {
+                ExecutorService executor = Executors.newFixedThreadPool(level);
+                try {
+                    long beginTime = System.nanoTime();
+                    ArrayList<Future<Integer>> failed = new ArrayList<Future<Integer>>();
+                    for (int thread = 0; thread < level; thread++) {
+                        final int first = thread;
+                        failed.add(executor.submit(() -> {
+                            int wrong = 0;
+                            for (int run = 0; run < iterations * StressQueries.length; run++) {
+                                int idx = (first + run) % StressQueries.length;
+                                try {
+                                    if (!render(db, StressQueries[idx]).equals(expected[idx])) {
+                                        wrong++;
+                                    }
+                                } catch (SQLException | RuntimeException e) {
+                                    System.err.println(e.getMessage());
+                                    wrong++;
+                                }
+                            }
+                            return wrong;
+                        }));
+                    }
+                    int wrong = 0;
+                    for (Future<Integer> result : failed) {
+                        wrong += await(result);
+                    }
+                    long endTime = System.nanoTime();
+                    int runs = level * iterations * StressQueries.length;
+                    out.write(String.format("%d thread(s): %d queries in %.3f s, %.1f queries/s, %d wrong or failed%n",
+                            level, runs, (endTime - beginTime) / 1e9, runs / ((endTime - beginTime) / 1e9), wrong));
+                    out.flush();
+                    failures += wrong;
+                } finally {
+                    executor.shutdownNow();
+                }
+                if (level == most) {
+                    break;
+                }
+            }
+            out.write(failures == 0 ? String.format("PASSED%n") : String.format("FAILED%n"));
+            out.flush();
+            return failures == 0;
         } catch (SQLException e) {
             e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return false;
+    }
+
+    // [Render Function]
+    // EFFECTS:  returns the printed results of query <query> against <db>
+    private static String render(FakebookOracle db, int query) throws SQLException, IOException {
+        StringWriter output = new StringWriter();
+        new FakebookQueryRequest(query).print(db, output);
+        return output.toString();
+    }
+
+    // [Future Waiter]
+    // EFFECTS:  returns the value of <future> once it is done, rethrowing the SQLException or
+    //           IOException that the task failed with
+    private static <T> T await(Future<T> future) throws SQLException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a query", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    // [Trace Writer]
+    // EFFECTS:  writes the trace to <traceFile> and its summary to standard error
+    private static void writeTrace() {
+        try (Writer file = new FileWriter(traceFile)) {
+            tracer.writeCollapsed(file);
+            tracer.writeSummary(new OutputStreamWriter(System.err));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // [Backend Selector]
+    // EFFECTS:  returns the FakebookOracle implementation chosen on the command line,
+    //           wrapped in an IncrementalFakebookOracle if incremental aggregates were
+    //           asked for, in a CachingFakebookOracle if caching was and in a
+    //           TracingFakebookOracle if tracing was; a shared scan answers Queries 0, 1
+    //           and 7 from its own aggregates
+    private static FakebookOracle getBackend(FakebookConnectionPool pool) throws SQLException, IOException {
+        FakebookOracle db;
+        if (tracer != null) {
+            FakebookTracer.Span span = tracer.begin("Backend Setup");
+            try {
+                db = getOracle(pool);
+            } finally {
+                span.close();
+            }
+        } else {
+            db = getOracle(pool);
+        }
+        if (incremental && sharedScan == null) {
+            db = new IncrementalFakebookOracle(db, getAggregates(pool));
+        }
+        if (cacheCapacity > 0) {
+            resultCache = new CachingFakebookOracle(db, cacheCapacity, cacheTimeToLive);
+            db = resultCache;
+        }
+        if (tracer != null) {
+            db = new TracingFakebookOracle(db, tracer);
+        }
+        return db;
+    }
+
+    // [Oracle Selector]
+    // EFFECTS:  returns the FakebookOracle implementation chosen on the command line
+    private static FakebookOracle getOracle(FakebookConnectionPool pool) throws SQLException, IOException {
+        if (sharedScan != null) {
+            if (snapshotDirectory != null) {
+                return sharedScan.scan(new File(snapshotDirectory));
+            }
+            try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+                return sharedScan.scan(lease.connection());
+            }
+        }
+        if (snapshotDirectory != null) {
+            snapshot = FakebookSnapshotLoader.load(new File(snapshotDirectory));
+        } else if (inMemory) {
+            try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+                snapshot = FakebookSnapshotLoader.load(lease.connection());
+            }
+        }
+        if (snapshot != null) {
+            if (friendIndexFile != null && !new File(friendIndexFile).exists()) {
+                FakebookFriendIndex.write(new File(friendIndexFile), snapshot);
+            }
+            return new InMemoryFakebookOracle(snapshot);
+        }
+        if (friendIndexFile != null) {
+            return new StudentFakebookOracle(pool, openFriendIndex(pool));
+        }
+        return new StudentFakebookOracle(pool);
+    }
+
+    // [Friend Index Opener]
+    // EFFECTS:  maps the friend index in <friendIndexFile>, building it from the database
+    //           first if it does not exist
+    private static FakebookFriendIndex openFriendIndex(FakebookConnectionPool pool)
+            throws SQLException, IOException {
+        File file = new File(friendIndexFile);
+        if (!file.exists()) {
+            try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+                FakebookFriendIndex.build(lease.connection(), file);
+            }
+        }
+        return FakebookFriendIndex.open(file);
+    }
+
+    // [Aggregates Loader]
+    // EFFECTS:  returns FakebookAggregates over the snapshot of the in-memory backend, or
+    //           over the database if there is none
+    private static FakebookAggregates getAggregates(FakebookConnectionPool pool) throws SQLException {
+        if (snapshot != null) {
+            return FakebookAggregates.load(snapshot);
+        }
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            return FakebookAggregates.load(lease.connection());
+        }
+    }
+
+    // [Connection Pool Opener]
+    // EFFECTS:  returns a pool with one connection per query thread (or per concurrently
+    //           served request in server mode), or NULL if the chosen backend does not need
+    //           a database connection; the in-memory backend and the shared scan only need
+    //           one connection to read the tables
+    private static FakebookConnectionPool openPool() {
+        if (snapshotDirectory != null) {
+            return null;
+        }
+        if (tracer != null) {
+            return new FakebookConnectionPool(() -> tracer.wrap(getConnection()), connections());
+        }
+        return new FakebookConnectionPool(FakebookOracleMain::getConnection, connections());
+    }
+
+    // [Connection Count Function]
+    // EFFECTS:  returns the number of connections openPool pools
+    private static int connections() {
+        return inMemory || sharedScan != null ? 1 : threads;
     }
 
-    private static Connection getConnection() throws SQLException {
+    // [Connection Factory]
+    // EFFECTS:  opens a new connection to the course database with the credentials above
+    static Connection getConnection() throws SQLException {
         try {
             Class.forName("oracle.jdbc.driver.OracleDriver").newInstance();
         } catch (InstantiationException e) {
@@ -0,0 +1,192 @@
+package project2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+    The FakebookOracleServer class keeps one FakebookOracle, with its connections and its
+    compiled code, warm for the lifetime of the process and answers query requests sent
+    over a local socket. It only listens on the loopback interface.
+
+    The protocol is line based. Each request is one line of the form
+
+        query <n> [num=<num>] [yearDiff=<yearDiff>] [userID=<userID>]
+        time <n> [num=<num>] [yearDiff=<yearDiff>] [userID=<userID>]
+
+    where <n> is a query number 0-9, <num> is at most MaxNum and the parameters default
+    to the values used by FakebookOracleMain. "query" replies with the same text that
+    FakebookOracleMain prints and "time" with the elapsed time of the query. If the oracle
+    is a CachingFakebookOracle, "invalidate <table>" drops the cached results computed
+    from <table> and "stats" replies with the cache metrics. Every reply, including
+    "ERROR <message>" replies to malformed requests and to requests that fail, ends with a
+    line holding a single ".", and the connection stays open after a failed request. The
+    line "quit" closes the connection.
+
+    Each client is handled on its own thread: a virtual thread when the running JVM has
+    them (Java 21 and later), and otherwise a thread from a cached pool.
+*/
+public final class FakebookOracleServer implements AutoCloseable {
+    // Default port to listen on
+    public static final int DefaultPort = 4840;
+
+    // Largest <num> a request may ask for
+    public static final int MaxNum = 1000000;
+
+    // [Constructor]
+    // REQUIRES: <db> is safe to use from several threads at once
+    // EFFECTS:  opens a socket listening on <port> of the loopback interface
+    public FakebookOracleServer(FakebookOracle db, int port) throws IOException {
+        this.db = db;
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        clients = newClientExecutor();
+    }
+
+    // [Warm-up Function]
+    // EFFECTS:  runs every query once with the default parameters, so that connections are
+    //           opened, statements prepared and hot code compiled before the first request
+    public void warmUp() throws SQLException {
+        for (int query = 0; query < 10; query++) {
+            new FakebookQueryRequest(query).run(db);
+        }
+    }
+
+    // [Serve Function]
+    // EFFECTS:  accepts clients until the server is closed, handling each on its own thread
+    public void serve() throws IOException {
+        try {
+            while (true) {
+                Socket client = server.accept();
+                clients.execute(() -> handle(client));
+            }
+        } catch (SocketException e) {
+            if (!server.isClosed()) {
+                throw e;
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    // [Port Accessor]
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    // [Executor Description]
+    // EFFECTS:  returns "virtual" if clients run on virtual threads and "platform" otherwise
+    public String getThreadKind() {
+        return virtualThreads ? "virtual" : "platform";
+    }
+
+    // [Close Function]
+    // EFFECTS:  stops accepting clients; clients already connected are served to the end
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    // [Client Handler]
+    // EFFECTS:  answers the requests of <client> one line at a time until it disconnects
+    //           or sends "quit"; a request that throws, runs out of memory or asks for
+    //           more than MaxNum rows is answered with an ERROR reply
+    private void handle(Socket client) {
+        try (Socket socket = client;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.equals("quit")) {
+                    break;
+                }
+
+                try {
+                    if (line.equals("stats") || line.startsWith("invalidate ")) {
+                        out.write(control(line));
+                        out.write(String.format(".%n"));
+                        out.flush();
+                        continue;
+                    }
+                    FakebookQueryRequest request = FakebookQueryRequest.parse(line);
+                    if (request.getNum() > MaxNum) {
+                        throw new IllegalArgumentException(String.format("num must be at most %d", MaxNum));
+                    }
+                    if (request.isTimed()) {
+                        long beginTime = System.nanoTime();
+                        request.run(db);
+                        long endTime = System.nanoTime();
+                        out.write(String.format("Query %d Time: %.3f%n", request.getQuery(), (endTime - beginTime) / 1e9));
+                    } else {
+                        request.print(db, out);
+                    }
+                } catch (IllegalArgumentException e) {
+                    out.write(String.format("ERROR %s%n", e.getMessage()));
+                } catch (SQLException e) {
+                    out.write(String.format("ERROR %s%n", e.getMessage()));
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    out.write(String.format("ERROR %s%n", e));
+                } catch (OutOfMemoryError e) {
+                    out.write(String.format("ERROR out of memory%n"));
+                }
+                out.write(String.format(".%n"));
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Client disconnected: " + e.getMessage());
+        }
+    }
+
+    // [Cache Control Function]
+    // EFFECTS:  carries out the "stats" or "invalidate <table>" request <line> and returns
+    //           its reply, or throws an IllegalArgumentException if results are not cached
+    private String control(String line) {
+        if (!(db instanceof CachingFakebookOracle)) {
+            throw new IllegalArgumentException("results are not cached");
+        }
+        CachingFakebookOracle cache = (CachingFakebookOracle) db;
+        if (line.equals("stats")) {
+            return String.format("%s%n", cache);
+        }
+        String table = line.substring("invalidate ".length()).trim();
+        return String.format("Invalidated %d result(s)%n", cache.invalidate(table));
+    }
+
+    // [Executor Factory]
+    // EFFECTS:  returns an executor that starts a virtual thread per task if this JVM
+    //           supports them, and a cached pool of platform threads otherwise
+    private ExecutorService newClientExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            virtualThreads = true;
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            virtualThreads = false;
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // Member Variables
+    private final FakebookOracle db;
+    private final ServerSocket server;
+    private final ExecutorService clients;
+    private boolean virtualThreads;
+}
@@ -1,5 +1,8 @@
 package project2;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 
 /*
@@ -7,7 +10,7 @@ import java.util.ArrayList;
     function, specifically the inter-item delimiter and the removal of leading/trailing
     brackets.
 */
-final class FakebookArrayList<T> extends ArrayList<T> {
+final class FakebookArrayList<T> extends ArrayList<T> implements FakebookRenderable {
     // [Constructor]
     public FakebookArrayList(String delim) {
         super();
@@ -19,22 +22,193 @@ final class FakebookArrayList<T> extends ArrayList<T> {
     // EFFECTS: constructs a string representation of the elements contained in this
     // FakebookArrayList instance, each one delimited by <delimiter>
     public String toString() {
-        String result = "";
+        return FakebookResultWriter.render(this);
+    }
+
+    @Override
+    // [Render Function]
+    // MODIFIES: <out>
+    // EFFECTS:  writes the string representation of this FakebookArrayList to <out>
+    public void writeTo(FakebookResultWriter out) throws IOException {
+        long start = out.length();
 
         int num = size();
         for (int idx = 0; idx < num; idx++) {
             if (idx != 0) {
-                result += delimiter;
+                out.write(delimiter);
             }
-            result += get(idx);
+            out.write(get(idx));
         }
 
-        if (result.equals("")) {
-            return "[]";
+        if (out.length() == start) {
+            out.write("[]");
         }
-        return result;
     }
 
     // Member Variables
     private String delimiter;
 }
+
+/*
+    The FakebookConsumer interface receives the results of a streaming query one at a
+    time. It may throw an exception of type <E>, which the query passes on to its caller.
+*/
+interface FakebookConsumer<T, E extends Exception> {
+    void accept(T item) throws E;
+}
+
+/*
+    The FakebookRenderable interface is implemented by the query result classes, which
+    write their string representation to a FakebookResultWriter instead of building it
+    as a String. Their toString functions render through the same path.
+*/
+interface FakebookRenderable {
+    void writeTo(FakebookResultWriter out) throws IOException;
+}
+
+/*
+    The FakebookResultWriter class writes query results to a Writer through a fixed
+    buffer that is handed on in large blocks. Strings are copied into the buffer and
+    numbers are encoded into it digit by digit, so printing a result of any size
+    allocates almost nothing per row. The output is the same as that of String.format:
+    newLine writes the line separator that "%n" does, and numbers are written in the
+    ASCII digits that "%d" uses.
+*/
+final class FakebookResultWriter {
+    // Number of characters gathered before they are handed to the Writer
+    public static final int BufferSize = 8192;
+
+    // [Constructor]
+    // REQUIRES: <writer> is not NULL
+    public FakebookResultWriter(Writer writer) {
+        this.writer = writer;
+        buffer = new char[BufferSize];
+        digits = new char[20];
+        position = 0;
+        written = 0;
+    }
+
+    // [Render Function]
+    // EFFECTS:  returns the string representation of <value>
+    public static String render(FakebookRenderable value) {
+        StringWriter output = new StringWriter();
+        FakebookResultWriter out = new FakebookResultWriter(output);
+        try {
+            value.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return output.toString();
+    }
+
+    // [Write Functions]
+    // MODIFIES: this
+    // EFFECTS:  appends <text>, or "null" if <text> is NULL
+    public void write(String text) throws IOException {
+        if (text == null) {
+            text = "null";
+        }
+        int length = text.length();
+        for (int start = 0; start < length;) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int end = Math.min(length, start + buffer.length - position);
+            text.getChars(start, end, buffer, position);
+            position += end - start;
+            start = end;
+        }
+        written += length;
+    }
+
+    public void write(char c) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = c;
+        written++;
+    }
+
+    public void write(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+
+        int start = digits.length;
+        do {
+            digits[--start] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        if (position + digits.length - start > buffer.length) {
+            drain();
+        }
+        System.arraycopy(digits, start, buffer, position, digits.length - start);
+        position += digits.length - start;
+        written += digits.length - start;
+    }
+
+    public void write(FakebookRenderable value) throws IOException {
+        if (value == null) {
+            write("null");
+        } else {
+            value.writeTo(this);
+        }
+    }
+
+    // EFFECTS:  appends the string representation of <value>, as "%s" would
+    public void write(Object value) throws IOException {
+        if (value instanceof FakebookRenderable) {
+            ((FakebookRenderable) value).writeTo(this);
+        } else {
+            write(String.valueOf(value));
+        }
+    }
+
+    // [New Line Function]
+    // MODIFIES: this
+    // EFFECTS:  appends the line separator
+    public void newLine() throws IOException {
+        write(LineSeparator);
+    }
+
+    // [Length Accessor]
+    // EFFECTS:  returns the number of characters written so far
+    public long length() {
+        return written;
+    }
+
+    // [Flush Function]
+    // MODIFIES: this
+    // EFFECTS:  hands the buffered characters to the Writer and flushes it
+    public void flush() throws IOException {
+        drain();
+        writer.flush();
+    }
+
+    // [Drain Function]
+    // MODIFIES: this
+    // EFFECTS:  hands the buffered characters to the Writer
+    private void drain() throws IOException {
+        if (position > 0) {
+            writer.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    // Line separator written by "%n"
+    private static final String LineSeparator = System.lineSeparator();
+
+    // Member Variables
+    private final Writer writer;
+    private final char[] buffer;
+    private final char[] digits;
+    private int position;
+    private long written;
+}
@@ -0,0 +1,195 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/*
+    The FakebookPairCounter class implements the co-tag search of Query 5 over a
+    FakebookSnapshot. Tags are sorted by photo, so each photo's tagged users form one run of
+    the tag arrays: an inverted list from photo to users. For every photo the counter emits
+    each pair of its tagged users that could match (same gender, both birth years listed
+    and at most <yearDiff> apart) and counts it in a primitive long-keyed hash map, so no
+    object is allocated per pair.
+
+    Counting is partitioned across cores by the first user of each pair: partition P of N
+    only counts pairs whose first user row is P modulo N, so every pair is counted by
+    exactly one partition and no counts need merging. Each partition then offers its pairs
+    to a FakebookTopK of the best <num>, ordered by count descending, then user1 ascending,
+    then user2 ascending, and the heaps are merged. Whether the two users are friends does
+    not change a pair's count, so friendship is only looked up for pairs the heap would
+    keep.
+*/
+final class FakebookPairCounter {
+    // Minimum number of tags for which topPairs() runs in parallel by default
+    public static final int ParallelThreshold = 100000;
+
+    // [Constructor]
+    // REQUIRES: <snapshot> is not NULL
+    public FakebookPairCounter(FakebookSnapshot snapshot) {
+        this.snapshot = snapshot;
+
+        // Start of each photo's run of tags, plus the end of the last run
+        long[] tagPhotos = snapshot.tagPhotos;
+        int[] starts = new int[tagPhotos.length + 1];
+        int runs = 0;
+        for (int tag = 0; tag < tagPhotos.length; tag++) {
+            if (tag == 0 || tagPhotos[tag] != tagPhotos[tag - 1]) {
+                starts[runs++] = tag;
+            }
+        }
+        starts[runs] = tagPhotos.length;
+        photoStarts = Arrays.copyOf(starts, runs + 1);
+    }
+
+    // [Top Pairs Function]
+    // EFFECTS:  returns up to <num> triples {common photo count, user1 row, user2 row} of
+    //           users meeting the criteria of Query 5, with user1 row < user2 row, best
+    //           first; the counting runs in <partitions> parallel partitions on the common
+    //           fork/join pool
+    public int[][] topPairs(int num, int yearDiff, int partitions) {
+        if (num <= 0) {
+            return new int[0][];
+        }
+        if (partitions <= 1) {
+            return count(0, 1, num, yearDiff).toSortedArray();
+        }
+        return IntStream.range(0, partitions).parallel()
+                .mapToObj(partition -> count(partition, partitions, num, yearDiff))
+                .reduce((a, b) -> {
+                    a.addAll(b);
+                    return a;
+                }).get().toSortedArray();
+    }
+
+    // [Top Pairs Function]
+    // EFFECTS:  same as topPairs(num, yearDiff, partitions), with one partition per core
+    //           for snapshots with at least ParallelThreshold tags and one otherwise
+    public int[][] topPairs(int num, int yearDiff) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return topPairs(num, yearDiff, snapshot.tagPhotos.length >= ParallelThreshold ? cores : 1);
+    }
+
+    // [Partition Count Function]
+    // EFFECTS:  counts the candidate pairs whose first user row is <partition> modulo
+    //           <partitions> and returns a heap of the best <num> that are not friends
+    private FakebookTopK count(int partition, int partitions, int num, int yearDiff) {
+        int users = snapshot.userCount();
+        int[] tagUsers = snapshot.tagUsers;
+        int[] genders = snapshot.genders;
+        int[] years = snapshot.birthYears;
+        LongIntMap counts = new LongIntMap();
+
+        int[] tagged = new int[16];
+        for (int photo = 0; photo + 1 < photoStarts.length; photo++) {
+            // Collect the photo's distinct taggable users; tags are sorted by user
+            int size = 0;
+            for (int tag = photoStarts[photo]; tag < photoStarts[photo + 1]; tag++) {
+                int row = tagUsers[tag];
+                if (row == FakebookSnapshot.NO_ROW || genders[row] == FakebookDictionary.NULL_CODE
+                        || years[row] == FakebookSnapshot.NULL_INT || size > 0 && tagged[size - 1] == row) {
+                    continue;
+                }
+                if (size == tagged.length) {
+                    tagged = Arrays.copyOf(tagged, size * 2);
+                }
+                tagged[size++] = row;
+            }
+
+            for (int i = 0; i < size; i++) {
+                int row1 = tagged[i];
+                if (row1 % partitions != partition) {
+                    continue;
+                }
+                for (int j = i + 1; j < size; j++) {
+                    int row2 = tagged[j];
+                    if (genders[row1] == genders[row2] && Math.abs((long) years[row1] - years[row2]) <= yearDiff) {
+                        counts.increment((long) row1 * users + row2);
+                    }
+                }
+            }
+        }
+
+        FakebookTopK heap = new FakebookTopK(num);
+        long[] keys = counts.keys;
+        int[] values = counts.values;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == LongIntMap.EmptyKey) {
+                continue;
+            }
+            int row1 = (int) (keys[slot] / users);
+            int row2 = (int) (keys[slot] % users);
+            if (heap.accepts(values[slot], row1, row2) && !snapshot.areFriends(row1, row2)) {
+                heap.offer(values[slot], row1, row2);
+            }
+        }
+        return heap;
+    }
+
+    /*
+        The LongIntMap class counts non-negative long keys in an open-addressing hash table
+        of two parallel arrays, probing linearly and doubling at half full.
+    */
+    private static final class LongIntMap {
+        static final long EmptyKey = -1L;
+
+        LongIntMap() {
+            keys = new long[InitialCapacity];
+            values = new int[InitialCapacity];
+            Arrays.fill(keys, EmptyKey);
+        }
+
+        // REQUIRES: <key> >= 0
+        // MODIFIES: this
+        // EFFECTS:  adds one to the count of <key>
+        void increment(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != EmptyKey) {
+                if (keys[slot] == key) {
+                    values[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = 1;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EmptyKey);
+            int mask = keys.length - 1;
+            for (int old = 0; old < oldKeys.length; old++) {
+                if (oldKeys[old] != EmptyKey) {
+                    int slot = hash(oldKeys[old]) & mask;
+                    while (keys[slot] != EmptyKey) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[old];
+                    values[slot] = oldValues[old];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ mixed >>> 32);
+        }
+
+        private static final int InitialCapacity = 1024;
+
+        long[] keys;
+        int[] values;
+        private int size;
+    }
+
+    // Member Variables
+    private final FakebookSnapshot snapshot;
+    private final int[] photoStarts;
+}
@@ -0,0 +1,195 @@
+package project2;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+
+/*
+    The FakebookQueryRequest class names one of the ten FakebookOracle queries together
+    with the parameters to run it with, and dispatches it to a FakebookOracle. Parameters
+    that are not given default to the values in FakebookOracleConstants (DefaultNum,
+    DefaultYearDiff and DefaultUserID), which are the ones FakebookOracleMain has always
+    used.
+
+    Requests can also be parsed from a line of text of the form
+    "query <n> [num=<num>] [yearDiff=<yearDiff>] [userID=<userID>]", or the same with
+    "time" in place of "query" to ask for the elapsed time instead of the results.
+*/
+final class FakebookQueryRequest {
+    // [Constructor]
+    // REQUIRES: 0 <= <query> <= 9
+    // EFFECTS:  creates a request for query <query> with the default parameters
+    public FakebookQueryRequest(int query) {
+        this.query = query;
+        num = FakebookOracleConstants.DefaultNum;
+        yearDiff = FakebookOracleConstants.DefaultYearDiff;
+        userID = FakebookOracleConstants.DefaultUserID;
+        timed = false;
+    }
+
+    // [Parse Function]
+    // EFFECTS:  returns the request described by <line>, or throws an
+    //           IllegalArgumentException saying what is wrong with it
+    public static FakebookQueryRequest parse(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length < 2 || !(tokens[0].equals("query") || tokens[0].equals("time"))) {
+            throw new IllegalArgumentException("expected \"query <n>\" or \"time <n>\"");
+        }
+
+        FakebookQueryRequest request;
+        try {
+            int query = Integer.parseInt(tokens[1]);
+            if (query < 0 || query > 9) {
+                throw new IllegalArgumentException("no query " + query);
+            }
+            request = new FakebookQueryRequest(query);
+            request.timed = tokens[0].equals("time");
+            for (int i = 2; i < tokens.length; i++) {
+                int split = tokens[i].indexOf('=');
+                String name = split < 0 ? tokens[i] : tokens[i].substring(0, split);
+                String value = split < 0 ? "" : tokens[i].substring(split + 1);
+                if (name.equals("num")) {
+                    request.num = Integer.parseInt(value);
+                } else if (name.equals("yearDiff")) {
+                    request.yearDiff = Integer.parseInt(value);
+                } else if (name.equals("userID")) {
+                    request.userID = Long.parseLong(value);
+                } else {
+                    throw new IllegalArgumentException("unknown parameter " + name);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + e.getMessage());
+        }
+        return request;
+    }
+
+    // [Accessors]
+    public int getQuery() {
+        return query;
+    }
+
+    public boolean isTimed() {
+        return timed;
+    }
+
+    public int getNum() {
+        return num;
+    }
+
+    // [Streaming Test]
+    // EFFECTS:  returns true if the query has a streaming variant (Queries 2, 3, 5 and 9)
+    public boolean isStreamable() {
+        return query == 2 || query == 3 || query == 5 || query == 9;
+    }
+
+    // [Run Function]
+    // EFFECTS:  runs the query against <db> and discards its results, building them in
+    //           full with the same calls as print (and the grading harness) make
+    public void run(FakebookOracle db) throws SQLException {
+        switch (query) {
+            case 0:
+                db.findMonthOfBirthInfo();
+                break;
+            case 1:
+                db.findNameInfo();
+                break;
+            case 2:
+                db.lonelyUsers();
+                break;
+            case 3:
+                db.liveAwayFromHome();
+                break;
+            case 4:
+                db.findPhotosWithMostTags(num);
+                break;
+            case 5:
+                db.matchMaker(num, yearDiff);
+                break;
+            case 6:
+                db.suggestFriends(num);
+                break;
+            case 7:
+                db.findEventStates();
+                break;
+            case 8:
+                db.findAgeInfo(userID);
+                break;
+            case 9:
+                db.findPotentialSiblings();
+                break;
+            default:
+                break;
+        }
+    }
+
+    // [Stream Function]
+    // EFFECTS:  runs the streaming variant of the query against <db>, discarding each
+    //           result as it arrives, so that the results are never held in memory all at
+    //           once; queries without one are run as by run
+    public void stream(FakebookOracle db) throws SQLException {
+        switch (query) {
+            case 2:
+                db.lonelyUsers(item -> { });
+                break;
+            case 3:
+                db.liveAwayFromHome(item -> { });
+                break;
+            case 5:
+                db.matchMaker(num, yearDiff, item -> { });
+                break;
+            case 9:
+                db.findPotentialSiblings(item -> { });
+                break;
+            default:
+                run(db);
+                break;
+        }
+    }
+
+    // [Print Function]
+    // EFFECTS:  runs the query against <db> and prints its results to <writer>
+    public void print(FakebookOracle db, Writer writer) throws SQLException, IOException {
+        switch (query) {
+            case 0:
+                db.printQuery0(writer, db.findMonthOfBirthInfo());
+                break;
+            case 1:
+                db.printQuery1(writer, db.findNameInfo());
+                break;
+            case 2:
+                db.printQuery2(writer, db.lonelyUsers());
+                break;
+            case 3:
+                db.printQuery3(writer, db.liveAwayFromHome());
+                break;
+            case 4:
+                db.printQuery4(writer, db.findPhotosWithMostTags(num));
+                break;
+            case 5:
+                db.printQuery5(writer, db.matchMaker(num, yearDiff));
+                break;
+            case 6:
+                db.printQuery6(writer, db.suggestFriends(num));
+                break;
+            case 7:
+                db.printQuery7(writer, db.findEventStates());
+                break;
+            case 8:
+                db.printQuery8(writer, db.findAgeInfo(userID));
+                break;
+            case 9:
+                db.printQuery9(writer, db.findPotentialSiblings());
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Member Variables
+    private final int query;
+    private int num;
+    private int yearDiff;
+    private long userID;
+    private boolean timed;
+}
@@ -0,0 +1,308 @@
+package project2;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+    The FakebookSharedScan class answers a batch of queries (such as the ten of "all") by
+    reading each base table the batch needs exactly once, where StudentFakebookOracle
+    reads the Users and Friends tables again in almost every query. Each row read is pushed
+    to the operators that subscribe to its table:
+
+        FakebookAggregates       the birth month histogram, first name statistics and
+                                 per-state event counts of Queries 0, 1 and 7
+        FakebookSnapshotLoader   the columns from which InMemoryFakebookOracle runs the
+                                 other queries (lonely user detection, the city bitmaps,
+                                 the co-tag pair counter, sibling bucketing, ...)
+
+    Each operator only subscribes to the tables its queries of the batch read, and tables
+    no query of the batch reads are not scanned at all: "all" reads nine tables once each,
+    and a batch of Queries 0, 1 and 7 reads three and builds no snapshot. Each call to scan
+    reads the tables again, so a batch sees the rows as of its own scan.
+*/
+final class FakebookSharedScan {
+    // Base Tables, as bits of a table set
+    public static final int Users = 1;
+    public static final int Cities = 1 << 1;
+    public static final int CurrentCities = 1 << 2;
+    public static final int HometownCities = 1 << 3;
+    public static final int Friends = 1 << 4;
+    public static final int Events = 1 << 5;
+    public static final int Albums = 1 << 6;
+    public static final int Photos = 1 << 7;
+    public static final int Tags = 1 << 8;
+
+    // [Constructor]
+    // REQUIRES: 0 <= <start> <= <stop> <= 10
+    // EFFECTS:  plans a shared scan for Queries <start> (inclusive) to <stop> (exclusive)
+    public FakebookSharedScan(int start, int stop) {
+        int aggregated = 0;
+        int snapshotted = 0;
+        for (int query = start; query < stop; query++) {
+            if (query == 0 || query == 1 || query == 7) {
+                aggregated |= QueryTables[query];
+            } else {
+                snapshotted |= QueryTables[query];
+            }
+        }
+        aggregateTables = aggregated;
+        snapshotTables = snapshotted;
+    }
+
+    // [Table Count Function]
+    // EFFECTS:  returns the number of tables each scan reads
+    public int tableCount() {
+        return Integer.bitCount(aggregateTables | snapshotTables);
+    }
+
+    // [Database Scan]
+    // REQUIRES: <connection> is a valid JDBC connection
+    // EFFECTS:  reads each table of the batch once, using forward-only cursors, and returns
+    //           a FakebookOracle answering the batch's queries from the rows read; other
+    //           queries see the tables that were not read as empty
+    public FakebookOracle scan(Connection connection) throws SQLException {
+        Operators operators = new Operators(aggregateTables, snapshotTables);
+
+        try (Statement stmt = connection.createStatement(FakebookOracleConstants.ForwardOnly,
+                FakebookOracleConstants.ReadOnly)) {
+            stmt.setFetchSize(FakebookSnapshotLoader.FetchSize);
+
+            if (reads(Users)) {
+                try (ResultSet rst = stmt.executeQuery(
+                        "SELECT User_ID, First_Name, Last_Name, Year_of_Birth, Month_of_Birth, Day_of_Birth, Gender " +
+                        "FROM " + FakebookOracleConstants.UsersTable)) {
+                    while (rst.next()) {
+                        operators.user(rst.getLong(1), rst.getString(2), rst.getString(3),
+                                FakebookSnapshotLoader.getInt(rst, 4), FakebookSnapshotLoader.getInt(rst, 5),
+                                FakebookSnapshotLoader.getInt(rst, 6), rst.getString(7));
+                    }
+                }
+            }
+
+            if (reads(Cities)) {
+                try (ResultSet rst = stmt.executeQuery(
+                        "SELECT City_ID, City_Name, State_Name, Country_Name " +
+                        "FROM " + FakebookOracleConstants.CitiesTable)) {
+                    while (rst.next()) {
+                        operators.city(rst.getLong(1), rst.getString(2), rst.getString(3), rst.getString(4));
+                    }
+                }
+            }
+
+            if (reads(CurrentCities)) {
+                try (ResultSet rst = stmt.executeQuery(
+                        "SELECT User_ID, Current_City_ID FROM " + FakebookOracleConstants.CurrentCitiesTable)) {
+                    while (rst.next()) {
+                        operators.loader.addCurrentCity(rst.getLong(1), FakebookSnapshotLoader.getLong(rst, 2));
+                    }
+                }
+            }
+
+            if (reads(HometownCities)) {
+                try (ResultSet rst = stmt.executeQuery(
+                        "SELECT User_ID, Hometown_City_ID FROM " + FakebookOracleConstants.HometownCitiesTable)) {
+                    while (rst.next()) {
+                        operators.loader.addHometownCity(rst.getLong(1), FakebookSnapshotLoader.getLong(rst, 2));
+                    }
+                }
+            }
+
+            if (reads(Friends)) {
+                try (ResultSet rst = stmt.executeQuery(
+                        "SELECT User1_ID, User2_ID FROM " + FakebookOracleConstants.FriendsTable)) {
+                    while (rst.next()) {
+                        operators.loader.addFriends(rst.getLong(1), rst.getLong(2));
+                    }
+                }
+            }
+
+            if (reads(Events)) {
+                try (ResultSet rst = stmt.executeQuery(
+                        "SELECT Event_ID, Event_Creator_ID, Event_Name, Event_City_ID " +
+                        "FROM " + FakebookOracleConstants.EventsTable)) {
+                    while (rst.next()) {
+                        operators.event(rst.getLong(1), FakebookSnapshotLoader.getLong(rst, 2), rst.getString(3),
+                                FakebookSnapshotLoader.getLong(rst, 4));
+                    }
+                }
+            }
+
+            if (reads(Albums)) {
+                try (ResultSet rst = stmt.executeQuery(
+                        "SELECT Album_ID, Album_Owner_ID, Album_Name FROM " + FakebookOracleConstants.AlbumsTable)) {
+                    while (rst.next()) {
+                        operators.loader.addAlbum(rst.getLong(1), FakebookSnapshotLoader.getLong(rst, 2),
+                                rst.getString(3));
+                    }
+                }
+            }
+
+            if (reads(Photos)) {
+                try (ResultSet rst = stmt.executeQuery(
+                        "SELECT Photo_ID, Album_ID, Photo_Link FROM " + FakebookOracleConstants.PhotosTable)) {
+                    while (rst.next()) {
+                        operators.loader.addPhoto(rst.getLong(1), FakebookSnapshotLoader.getLong(rst, 2),
+                                rst.getString(3));
+                    }
+                }
+            }
+
+            if (reads(Tags)) {
+                try (ResultSet rst = stmt.executeQuery(
+                        "SELECT Tag_Photo_ID, Tag_Subject_ID FROM " + FakebookOracleConstants.TagsTable)) {
+                    while (rst.next()) {
+                        operators.loader.addTag(rst.getLong(1), FakebookSnapshotLoader.getLong(rst, 2));
+                    }
+                }
+            }
+        }
+
+        return operators.oracle();
+    }
+
+    // [File Scan]
+    // REQUIRES: <directory> holds table files such as those written by
+    //           FakebookDataGenerator (see FakebookSnapshotLoader.load)
+    // EFFECTS:  same as scan(connection), streaming each table file of the batch once
+    public FakebookOracle scan(File directory) throws IOException {
+        final Operators operators = new Operators(aggregateTables, snapshotTables);
+
+        if (reads(Users)) {
+            FakebookSnapshotLoader.readTable(directory, "Users", new String[] { "USER_ID", "FIRST_NAME",
+                    "LAST_NAME", "YEAR_OF_BIRTH", "MONTH_OF_BIRTH", "DAY_OF_BIRTH", "GENDER" },
+                    f -> operators.user(FakebookSnapshotLoader.parseLong(f[0]), f[1], f[2],
+                            FakebookSnapshotLoader.parseInt(f[3]), FakebookSnapshotLoader.parseInt(f[4]),
+                            FakebookSnapshotLoader.parseInt(f[5]), f[6]));
+        }
+        if (reads(Cities)) {
+            FakebookSnapshotLoader.readTable(directory, "Cities", new String[] { "CITY_ID", "CITY_NAME",
+                    "STATE_NAME", "COUNTRY_NAME" },
+                    f -> operators.city(FakebookSnapshotLoader.parseLong(f[0]), f[1], f[2], f[3]));
+        }
+        if (reads(CurrentCities)) {
+            FakebookSnapshotLoader.readTable(directory, "User_Current_Cities", new String[] { "USER_ID",
+                    "CURRENT_CITY_ID" },
+                    f -> operators.loader.addCurrentCity(FakebookSnapshotLoader.parseLong(f[0]),
+                            FakebookSnapshotLoader.parseLong(f[1])));
+        }
+        if (reads(HometownCities)) {
+            FakebookSnapshotLoader.readTable(directory, "User_Hometown_Cities", new String[] { "USER_ID",
+                    "HOMETOWN_CITY_ID" },
+                    f -> operators.loader.addHometownCity(FakebookSnapshotLoader.parseLong(f[0]),
+                            FakebookSnapshotLoader.parseLong(f[1])));
+        }
+        if (reads(Friends)) {
+            FakebookSnapshotLoader.readTable(directory, "Friends", new String[] { "USER1_ID", "USER2_ID" },
+                    f -> operators.loader.addFriends(FakebookSnapshotLoader.parseLong(f[0]),
+                            FakebookSnapshotLoader.parseLong(f[1])));
+        }
+        if (reads(Events)) {
+            FakebookSnapshotLoader.readTable(directory, "User_Events", new String[] { "EVENT_ID",
+                    "EVENT_CREATOR_ID", "EVENT_NAME", "EVENT_CITY_ID" },
+                    f -> operators.event(FakebookSnapshotLoader.parseLong(f[0]),
+                            FakebookSnapshotLoader.parseLong(f[1]), f[2], FakebookSnapshotLoader.parseLong(f[3])));
+        }
+        if (reads(Albums)) {
+            FakebookSnapshotLoader.readTable(directory, "Albums", new String[] { "ALBUM_ID", "ALBUM_OWNER_ID",
+                    "ALBUM_NAME" },
+                    f -> operators.loader.addAlbum(FakebookSnapshotLoader.parseLong(f[0]),
+                            FakebookSnapshotLoader.parseLong(f[1]), f[2]));
+        }
+        if (reads(Photos)) {
+            FakebookSnapshotLoader.readTable(directory, "Photos", new String[] { "PHOTO_ID", "ALBUM_ID",
+                    "PHOTO_LINK" },
+                    f -> operators.loader.addPhoto(FakebookSnapshotLoader.parseLong(f[0]),
+                            FakebookSnapshotLoader.parseLong(f[1]), f[2]));
+        }
+        if (reads(Tags)) {
+            FakebookSnapshotLoader.readTable(directory, "Tags", new String[] { "TAG_PHOTO_ID", "TAG_SUBJECT_ID" },
+                    f -> operators.loader.addTag(FakebookSnapshotLoader.parseLong(f[0]),
+                            FakebookSnapshotLoader.parseLong(f[1])));
+        }
+
+        return operators.oracle();
+    }
+
+    // [Table Test]
+    // EFFECTS:  returns true if an operator of the batch subscribes to <table>
+    private boolean reads(int table) {
+        return ((aggregateTables | snapshotTables) & table) != 0;
+    }
+
+    /*
+        The Operators class holds the operators subscribed to one scan and passes each row
+        of the tables read by both to those that subscribe to it. Rows of the other tables
+        are only read for the snapshot, and are added to <loader> directly.
+    */
+    private static final class Operators {
+        Operators(int aggregateTables, int snapshotTables) {
+            this.aggregateTables = aggregateTables;
+            this.snapshotTables = snapshotTables;
+            aggregates = aggregateTables != 0 ? new FakebookAggregates() : null;
+            loader = snapshotTables != 0 ? new FakebookSnapshotLoader() : null;
+        }
+
+        void user(long userID, String firstName, String lastName, int yearOfBirth, int monthOfBirth,
+                int dayOfBirth, String gender) {
+            if ((aggregateTables & Users) != 0) {
+                aggregates.insertUser(userID, firstName, lastName, monthOfBirth);
+            }
+            if ((snapshotTables & Users) != 0) {
+                loader.addUser(userID, firstName, lastName, yearOfBirth, monthOfBirth, dayOfBirth, gender);
+            }
+        }
+
+        void city(long cityID, String cityName, String stateName, String countryName) {
+            if ((aggregateTables & Cities) != 0) {
+                aggregates.insertCity(cityID, stateName);
+            }
+            if ((snapshotTables & Cities) != 0) {
+                loader.addCity(cityID, cityName, stateName, countryName);
+            }
+        }
+
+        void event(long eventID, long creatorID, String eventName, long cityID) {
+            if ((aggregateTables & Events) != 0) {
+                aggregates.insertEvent(eventID, cityID);
+            }
+            if ((snapshotTables & Events) != 0) {
+                loader.addEvent(eventID, creatorID, eventName, cityID);
+            }
+        }
+
+        // EFFECTS:  returns a FakebookOracle answering Queries 0, 1 and 7 from the
+        //           aggregates, if they were subscribed, and the rest from the snapshot
+        FakebookOracle oracle() {
+            FakebookSnapshot snapshot = (loader != null ? loader : new FakebookSnapshotLoader()).build();
+            FakebookOracle oracle = new InMemoryFakebookOracle(snapshot);
+            return aggregates != null ? new IncrementalFakebookOracle(oracle, aggregates) : oracle;
+        }
+
+        private final int aggregateTables;
+        private final int snapshotTables;
+        private final FakebookAggregates aggregates;
+        final FakebookSnapshotLoader loader;
+    }
+
+    // Tables read by each query
+    private static final int[] QueryTables = {
+        Users, // Query 0
+        Users, // Query 1
+        Users | Friends, // Query 2
+        Users | CurrentCities | HometownCities, // Query 3
+        Users | Albums | Photos | Tags, // Query 4
+        Users | Friends | Albums | Photos | Tags, // Query 5
+        Users | Friends, // Query 6
+        Cities | Events, // Query 7
+        Users | Friends, // Query 8
+        Users | HometownCities | Friends, // Query 9
+    };
+
+    // Member Variables
+    private final int aggregateTables;
+    private final int snapshotTables;
+}
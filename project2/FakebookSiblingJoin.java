@@ -0,0 +1,125 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/*
+    The FakebookSiblingJoin class implements Query 9 over a FakebookSnapshot as a join of
+    the friendships with the users, without any DDL. Users are first bucketed by their join
+    key (last name dictionary code, hometown city ID), so that each user row maps to a
+    dense bucket number, or to none if either part of its key is NULL. Each friendship edge
+    is then probed by comparing the bucket numbers of its two users and, if they match,
+    their birth years.
+
+    Edges are stored sorted by (user1 row, user2 row), which is (user1 ID, user2 ID) order,
+    so the edge array is split into contiguous partitions probed in parallel, and the
+    partitions' outputs, each already sorted, merge by concatenation in partition order.
+    The join holds no state while probing, so any number of threads can run it at once.
+*/
+final class FakebookSiblingJoin {
+    // Minimum number of friendships for which siblingEdges() runs in parallel by default
+    public static final int ParallelThreshold = 100000;
+
+    // Maximum difference in birth years of potential siblings, exclusive
+    public static final int YearWindow = 10;
+
+    // [Constructor]
+    // REQUIRES: <snapshot> is not NULL
+    // EFFECTS:  buckets the users of <snapshot> by last name and hometown
+    public FakebookSiblingJoin(FakebookSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int users = snapshot.userCount();
+        int[] lastNames = snapshot.lastNames;
+        long[] hometowns = snapshot.hometownCities;
+
+        Integer[] keyed = new Integer[users];
+        int size = 0;
+        for (int row = 0; row < users; row++) {
+            if (lastNames[row] != FakebookDictionary.NULL_CODE && hometowns[row] != FakebookSnapshot.NULL_LONG) {
+                keyed[size++] = row;
+            }
+        }
+        Arrays.sort(keyed, 0, size, (a, b) -> lastNames[a] != lastNames[b]
+                ? Integer.compare(lastNames[a], lastNames[b]) : Long.compare(hometowns[a], hometowns[b]));
+
+        buckets = new int[users];
+        Arrays.fill(buckets, NoBucket);
+        int bucket = -1;
+        for (int idx = 0; idx < size; idx++) {
+            int row = keyed[idx];
+            if (idx == 0 || lastNames[row] != lastNames[keyed[idx - 1]]
+                    || hometowns[row] != hometowns[keyed[idx - 1]]) {
+                bucket++;
+            }
+            buckets[row] = bucket;
+        }
+    }
+
+    // [Sibling Edges Function]
+    // EFFECTS:  returns the indices into the snapshot's friendship arrays of the
+    //           friendships between potential siblings, in (user1, user2) order, probing
+    //           <partitions> partitions of the edges in parallel on the common fork/join
+    //           pool
+    public int[] siblingEdges(int partitions) {
+        int edges = snapshot.friendUser1.length;
+        if (partitions <= 1) {
+            return probe(0, edges);
+        }
+        int[][] parts = IntStream.range(0, partitions).parallel()
+                .mapToObj(part -> probe((int) ((long) edges * part / partitions),
+                        (int) ((long) edges * (part + 1) / partitions)))
+                .toArray(int[][]::new);
+
+        int total = 0;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] result = new int[total];
+        int size = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, result, size, part.length);
+            size += part.length;
+        }
+        return result;
+    }
+
+    // [Sibling Edges Function]
+    // EFFECTS:  same as siblingEdges(partitions), with one partition per core for
+    //           snapshots with at least ParallelThreshold friendships and one otherwise
+    public int[] siblingEdges() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return siblingEdges(snapshot.friendUser1.length >= ParallelThreshold ? cores : 1);
+    }
+
+    // [Probe Function]
+    // EFFECTS:  returns the indices in [<start>, <end>) of the friendships between
+    //           potential siblings, in ascending order
+    private int[] probe(int start, int end) {
+        int[] user1 = snapshot.friendUser1;
+        int[] user2 = snapshot.friendUser2;
+        int[] years = snapshot.birthYears;
+        int[] matches = new int[16];
+        int size = 0;
+        for (int edge = start; edge < end; edge++) {
+            int row1 = user1[edge];
+            int row2 = user2[edge];
+            if (buckets[row1] == NoBucket || buckets[row1] != buckets[row2]
+                    || years[row1] == FakebookSnapshot.NULL_INT || years[row2] == FakebookSnapshot.NULL_INT
+                    || Math.abs((long) years[row1] - years[row2]) >= YearWindow) {
+                continue;
+            }
+            if (size == matches.length) {
+                matches = Arrays.copyOf(matches, size * 2);
+            }
+            matches[size++] = edge;
+        }
+        return Arrays.copyOf(matches, size);
+    }
+
+    // Bucket of users whose last name or hometown is NULL
+    private static final int NoBucket = -1;
+
+    // Member Variables
+    private final FakebookSnapshot snapshot;
+    private final int[] buckets;
+}
@@ -0,0 +1,300 @@
+package project2;
+
+import java.util.Arrays;
+
+/*
+    The FakebookSnapshot class is an immutable, column-oriented copy of the eleven
+    Fakebook tables. Every table is stored as a set of parallel primitive arrays sorted
+    by the table's key, strings are stored as FakebookDictionary codes, and references
+    to users are resolved to user row numbers (positions in <userIds>). Because the user
+    rows are sorted by user ID, ordering by row number is the same as ordering by ID.
+
+    Rows that reference a user that does not exist are kept with NO_ROW in place of the
+    user row, except for friendships, which are dropped.
+*/
+final class FakebookSnapshot {
+    // Null and Missing-Row Markers
+    public static final int NULL_INT = Integer.MIN_VALUE;
+    public static final long NULL_LONG = Long.MIN_VALUE;
+    public static final int NO_ROW = -1;
+
+    // [Constructor]
+    // EFFECTS:  sorts and indexes the rows staged in <loader>
+    FakebookSnapshot(FakebookSnapshotLoader loader) {
+        names = loader.names;
+        strings = loader.strings;
+
+        // Users
+        int[] order = sortedOrder(loader.userIds, null);
+        userIds = permute(loader.userIds, order);
+        firstNames = permute(loader.userFirstNames, order);
+        lastNames = permute(loader.userLastNames, order);
+        birthYears = permute(loader.userBirthYears, order);
+        birthMonths = permute(loader.userBirthMonths, order);
+        birthDays = permute(loader.userBirthDays, order);
+        genders = permute(loader.userGenders, order);
+        users = new FakebookUserStore(names, userIds, firstNames, lastNames, userIds.length);
+
+        currentCities = new long[userIds.length];
+        Arrays.fill(currentCities, NULL_LONG);
+        for (int idx = 0; idx < loader.currentCityUsers.size(); idx++) {
+            int row = userRow(loader.currentCityUsers.get(idx));
+            if (row != NO_ROW) {
+                currentCities[row] = loader.currentCityIds.get(idx);
+            }
+        }
+        hometownCities = new long[userIds.length];
+        Arrays.fill(hometownCities, NULL_LONG);
+        for (int idx = 0; idx < loader.hometownCityUsers.size(); idx++) {
+            int row = userRow(loader.hometownCityUsers.get(idx));
+            if (row != NO_ROW) {
+                hometownCities[row] = loader.hometownCityIds.get(idx);
+            }
+        }
+
+        // Friends
+        order = sortedOrder(loader.friendUser1Ids, loader.friendUser2Ids);
+        IntColumn friends1 = new IntColumn();
+        IntColumn friends2 = new IntColumn();
+        for (int idx : order) {
+            int row1 = userRow(loader.friendUser1Ids.get(idx));
+            int row2 = userRow(loader.friendUser2Ids.get(idx));
+            if (row1 == NO_ROW || row2 == NO_ROW || row1 == row2) {
+                continue;
+            }
+            int last = friends1.size() - 1;
+            if (last >= 0 && friends1.get(last) == row1 && friends2.get(last) == row2) {
+                continue;
+            }
+            friends1.add(row1);
+            friends2.add(row2);
+        }
+        friendUser1 = friends1.toArray();
+        friendUser2 = friends2.toArray();
+        friends = new FakebookFriendGraph(userIds.length, friendUser1, friendUser2);
+
+        // Cities
+        order = sortedOrder(loader.cityIds, null);
+        cityIds = permute(loader.cityIds, order);
+        cityNames = permute(loader.cityNames, order);
+        cityStates = permute(loader.cityStates, order);
+        cityCountries = permute(loader.cityCountries, order);
+
+        // Programs and Education
+        order = sortedOrder(loader.programIds, null);
+        programIds = permute(loader.programIds, order);
+        programInstitutions = permute(loader.programInstitutions, order);
+        programConcentrations = permute(loader.programConcentrations, order);
+        programDegrees = permute(loader.programDegrees, order);
+
+        order = sortedOrder(loader.educationUserIds, loader.educationProgramIds);
+        educationUsers = new int[order.length];
+        for (int idx = 0; idx < order.length; idx++) {
+            educationUsers[idx] = userRow(loader.educationUserIds.get(order[idx]));
+        }
+        educationPrograms = permute(loader.educationProgramIds, order);
+        educationYears = permute(loader.educationYears, order);
+
+        // Events
+        order = sortedOrder(loader.eventIds, null);
+        eventIds = permute(loader.eventIds, order);
+        eventCreators = permute(loader.eventCreatorIds, order);
+        eventNames = permute(loader.eventNames, order);
+        eventCities = permute(loader.eventCityIds, order);
+
+        // Albums and Photos
+        order = sortedOrder(loader.albumIds, null);
+        albumIds = permute(loader.albumIds, order);
+        albumOwners = permute(loader.albumOwnerIds, order);
+        albumNames = permute(loader.albumNames, order);
+
+        order = sortedOrder(loader.photoIds, null);
+        photoIds = permute(loader.photoIds, order);
+        photoAlbums = permute(loader.photoAlbumIds, order);
+        photoLinks = permute(loader.photoLinks, order);
+
+        // Tags
+        order = sortedOrder(loader.tagPhotoIds, loader.tagSubjectIds);
+        tagPhotos = permute(loader.tagPhotoIds, order);
+        tagSubjects = permute(loader.tagSubjectIds, order);
+        tagUsers = new int[tagSubjects.length];
+        for (int idx = 0; idx < tagSubjects.length; idx++) {
+            tagUsers[idx] = tagSubjects[idx] == NULL_LONG ? NO_ROW : userRow(tagSubjects[idx]);
+        }
+    }
+
+    // [User Count Function]
+    public int userCount() {
+        return userIds.length;
+    }
+
+    // [User Row Lookup]
+    // EFFECTS:  returns the row of the user with ID <userID>, or NO_ROW if there is none
+    public int userRow(long userID) {
+        int row = Arrays.binarySearch(userIds, userID);
+        return row < 0 ? NO_ROW : row;
+    }
+
+    // [City Row Lookup]
+    public int cityRow(long cityID) {
+        int row = cityID == NULL_LONG ? -1 : Arrays.binarySearch(cityIds, cityID);
+        return row < 0 ? NO_ROW : row;
+    }
+
+    // [Album Row Lookup]
+    public int albumRow(long albumID) {
+        int row = albumID == NULL_LONG ? -1 : Arrays.binarySearch(albumIds, albumID);
+        return row < 0 ? NO_ROW : row;
+    }
+
+    // [Photo Row Lookup]
+    public int photoRow(long photoID) {
+        int row = Arrays.binarySearch(photoIds, photoID);
+        return row < 0 ? NO_ROW : row;
+    }
+
+    // [Friendship Test]
+    // EFFECTS:  returns true if the users in rows <row1> and <row2> are friends
+    public boolean areFriends(int row1, int row2) {
+        return friends.areFriends(row1, row2);
+    }
+
+    // [UserInfo Converter]
+    // REQUIRES: 0 <= <row> < userCount()
+    // EFFECTS:  returns a UserInfo for the user in row <row>, a view of the snapshot's own
+    //           columns that copies nothing
+    public UserInfo userInfo(int row) {
+        return users.userInfo(row);
+    }
+
+    // [PhotoInfo Converter]
+    // REQUIRES: the photo in row <photoRow> belongs to the album in row <albumRow>
+    // EFFECTS:  returns a PhotoInfo for the photo in row <photoRow>
+    public PhotoInfo photoInfo(int photoRow, int albumRow) {
+        return new PhotoInfo(photoIds[photoRow], albumIds[albumRow], strings.decode(photoLinks[photoRow]),
+                strings.decode(albumNames[albumRow]));
+    }
+
+    // [Sort Order Function]
+    // EFFECTS:  returns the permutation that sorts rows by <primary>, then by <secondary>
+    //           (if not NULL); the sort is stable
+    private static int[] sortedOrder(LongColumn primary, LongColumn secondary) {
+        int size = primary.size();
+        int[] order = new int[size];
+        int[] buffer = new int[size];
+        for (int idx = 0; idx < size; idx++) {
+            order[idx] = idx;
+        }
+
+        // Bottom-up merge sort over row indexes
+        for (int width = 1; width < size; width *= 2) {
+            for (int lo = 0; lo < size - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, size);
+                int left = lo;
+                int right = mid;
+                int out = lo;
+                while (left < mid && right < hi) {
+                    if (compareRows(primary, secondary, order[right], order[left]) < 0) {
+                        buffer[out++] = order[right++];
+                    } else {
+                        buffer[out++] = order[left++];
+                    }
+                }
+                while (left < mid) {
+                    buffer[out++] = order[left++];
+                }
+                while (right < hi) {
+                    buffer[out++] = order[right++];
+                }
+                System.arraycopy(buffer, lo, order, lo, hi - lo);
+            }
+        }
+        return order;
+    }
+
+    // [Row Comparison Function]
+    private static int compareRows(LongColumn primary, LongColumn secondary, int row1, int row2) {
+        int cmp = Long.compare(primary.get(row1), primary.get(row2));
+        if (cmp != 0 || secondary == null) {
+            return cmp;
+        }
+        return Long.compare(secondary.get(row1), secondary.get(row2));
+    }
+
+    // [Permutation Functions]
+    // EFFECTS:  return the values of <column> rearranged into the order given by <order>
+    private static long[] permute(LongColumn column, int[] order) {
+        long[] result = new long[order.length];
+        for (int idx = 0; idx < order.length; idx++) {
+            result[idx] = column.get(order[idx]);
+        }
+        return result;
+    }
+
+    private static int[] permute(IntColumn column, int[] order) {
+        int[] result = new int[order.length];
+        for (int idx = 0; idx < order.length; idx++) {
+            result[idx] = column.get(order[idx]);
+        }
+        return result;
+    }
+
+    // Member Variables
+    final FakebookDictionary names;
+    final FakebookDictionary strings;
+
+    // Users, sorted by user ID
+    final long[] userIds;
+    final int[] firstNames;
+    final int[] lastNames;
+    final int[] birthYears;
+    final int[] birthMonths;
+    final int[] birthDays;
+    final int[] genders;
+    final long[] currentCities;
+    final long[] hometownCities;
+
+    // The ID and name columns above as a store, whose handles are user rows; it must not
+    // be added to, as that would add names to <names>
+    final FakebookUserStore users;
+
+    // Friends, as sorted pairs of user rows with user1 < user2, plus the symmetric graph
+    final int[] friendUser1;
+    final int[] friendUser2;
+    final FakebookFriendGraph friends;
+
+    // Cities, sorted by city ID
+    final long[] cityIds;
+    final int[] cityNames;
+    final int[] cityStates;
+    final int[] cityCountries;
+
+    // Programs, sorted by program ID, and Education, sorted by (user ID, program ID)
+    final long[] programIds;
+    final int[] programInstitutions;
+    final int[] programConcentrations;
+    final int[] programDegrees;
+    final int[] educationUsers;
+    final long[] educationPrograms;
+    final int[] educationYears;
+
+    // Events, sorted by event ID
+    final long[] eventIds;
+    final long[] eventCreators;
+    final int[] eventNames;
+    final long[] eventCities;
+
+    // Albums and Photos, sorted by ID
+    final long[] albumIds;
+    final long[] albumOwners;
+    final int[] albumNames;
+    final long[] photoIds;
+    final long[] photoAlbums;
+    final int[] photoLinks;
+
+    // Tags, sorted by (photo ID, subject ID)
+    final long[] tagPhotos;
+    final long[] tagSubjects;
+    final int[] tagUsers;
+}
@@ -0,0 +1,392 @@
+package project2;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+    The FakebookSnapshotLoader class collects the rows of the eleven Fakebook tables
+    into growable primitive columns and then hands them to FakebookSnapshot, which
+    sorts them and builds the indexes used to answer queries in memory. Rows may be
+    added in any order; strings are dictionary-coded as they arrive.
+
+    Rows can come from the database or from a directory of comma-separated table files
+    in the format written by FakebookDataGenerator.
+*/
+final class FakebookSnapshotLoader {
+    // Number of rows requested from the database per fetch round trip
+    public static final int FetchSize = 5000;
+
+    // [Constructor]
+    public FakebookSnapshotLoader() {
+        names = new FakebookDictionary();
+        strings = new FakebookDictionary();
+    }
+
+    // [Add User Function]
+    // REQUIRES: no other user with <userID> has been added
+    // EFFECTS:  stages one row of the Users table; NULL integer fields are given as
+    //           FakebookSnapshot.NULL_INT
+    public void addUser(long userID, String firstName, String lastName, int yearOfBirth, int monthOfBirth,
+            int dayOfBirth, String gender) {
+        userIds.add(userID);
+        userFirstNames.add(names.encode(firstName));
+        userLastNames.add(names.encode(lastName));
+        userBirthYears.add(yearOfBirth);
+        userBirthMonths.add(monthOfBirth);
+        userBirthDays.add(dayOfBirth);
+        userGenders.add(strings.encode(gender));
+    }
+
+    // [Add City Function]
+    public void addCity(long cityID, String cityName, String stateName, String countryName) {
+        cityIds.add(cityID);
+        cityNames.add(strings.encode(cityName));
+        cityStates.add(strings.encode(stateName));
+        cityCountries.add(strings.encode(countryName));
+    }
+
+    // [Add Current City Function]
+    public void addCurrentCity(long userID, long cityID) {
+        currentCityUsers.add(userID);
+        currentCityIds.add(cityID);
+    }
+
+    // [Add Hometown City Function]
+    public void addHometownCity(long userID, long cityID) {
+        hometownCityUsers.add(userID);
+        hometownCityIds.add(cityID);
+    }
+
+    // [Add Friendship Function]
+    // EFFECTS:  stages one row of the Friends table; the pair is normalized so that
+    //           the smaller ID comes first
+    public void addFriends(long user1ID, long user2ID) {
+        friendUser1Ids.add(Math.min(user1ID, user2ID));
+        friendUser2Ids.add(Math.max(user1ID, user2ID));
+    }
+
+    // [Add Program Function]
+    public void addProgram(long programID, String institution, String concentration, String degree) {
+        programIds.add(programID);
+        programInstitutions.add(strings.encode(institution));
+        programConcentrations.add(strings.encode(concentration));
+        programDegrees.add(strings.encode(degree));
+    }
+
+    // [Add Education Function]
+    public void addEducation(long userID, long programID, int programYear) {
+        educationUserIds.add(userID);
+        educationProgramIds.add(programID);
+        educationYears.add(programYear);
+    }
+
+    // [Add Event Function]
+    public void addEvent(long eventID, long creatorID, String eventName, long cityID) {
+        eventIds.add(eventID);
+        eventCreatorIds.add(creatorID);
+        eventNames.add(strings.encode(eventName));
+        eventCityIds.add(cityID);
+    }
+
+    // [Add Album Function]
+    public void addAlbum(long albumID, long ownerID, String albumName) {
+        albumIds.add(albumID);
+        albumOwnerIds.add(ownerID);
+        albumNames.add(strings.encode(albumName));
+    }
+
+    // [Add Photo Function]
+    public void addPhoto(long photoID, long albumID, String link) {
+        photoIds.add(photoID);
+        photoAlbumIds.add(albumID);
+        photoLinks.add(strings.encode(link));
+    }
+
+    // [Add Tag Function]
+    public void addTag(long photoID, long subjectID) {
+        tagPhotoIds.add(photoID);
+        tagSubjectIds.add(subjectID);
+    }
+
+    // [Build Function]
+    // EFFECTS:  returns an immutable snapshot of every row staged so far
+    public FakebookSnapshot build() {
+        return new FakebookSnapshot(this);
+    }
+
+    // [Database Loader]
+    // REQUIRES: <connection> is a valid JDBC connection
+    // EFFECTS:  reads each of the eleven Fakebook tables exactly once, using forward-only
+    //           cursors, and returns the resulting snapshot
+    public static FakebookSnapshot load(Connection connection) throws SQLException {
+        FakebookSnapshotLoader loader = new FakebookSnapshotLoader();
+
+        try (Statement stmt = connection.createStatement(FakebookOracleConstants.ForwardOnly,
+                FakebookOracleConstants.ReadOnly)) {
+            stmt.setFetchSize(FetchSize);
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT User_ID, First_Name, Last_Name, Year_of_Birth, Month_of_Birth, Day_of_Birth, Gender " +
+                    "FROM " + FakebookOracleConstants.UsersTable)) {
+                while (rst.next()) {
+                    loader.addUser(rst.getLong(1), rst.getString(2), rst.getString(3), getInt(rst, 4),
+                            getInt(rst, 5), getInt(rst, 6), rst.getString(7));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT City_ID, City_Name, State_Name, Country_Name " +
+                    "FROM " + FakebookOracleConstants.CitiesTable)) {
+                while (rst.next()) {
+                    loader.addCity(rst.getLong(1), rst.getString(2), rst.getString(3), rst.getString(4));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT User_ID, Current_City_ID FROM " + FakebookOracleConstants.CurrentCitiesTable)) {
+                while (rst.next()) {
+                    loader.addCurrentCity(rst.getLong(1), getLong(rst, 2));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT User_ID, Hometown_City_ID FROM " + FakebookOracleConstants.HometownCitiesTable)) {
+                while (rst.next()) {
+                    loader.addHometownCity(rst.getLong(1), getLong(rst, 2));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT User1_ID, User2_ID FROM " + FakebookOracleConstants.FriendsTable)) {
+                while (rst.next()) {
+                    loader.addFriends(rst.getLong(1), rst.getLong(2));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT Program_ID, Institution, Concentration, Degree " +
+                    "FROM " + FakebookOracleConstants.ProgramsTable)) {
+                while (rst.next()) {
+                    loader.addProgram(rst.getLong(1), rst.getString(2), rst.getString(3), rst.getString(4));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT User_ID, Program_ID, Program_Year FROM " + FakebookOracleConstants.EducationTable)) {
+                while (rst.next()) {
+                    loader.addEducation(rst.getLong(1), rst.getLong(2), getInt(rst, 3));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT Event_ID, Event_Creator_ID, Event_Name, Event_City_ID " +
+                    "FROM " + FakebookOracleConstants.EventsTable)) {
+                while (rst.next()) {
+                    loader.addEvent(rst.getLong(1), getLong(rst, 2), rst.getString(3), getLong(rst, 4));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT Album_ID, Album_Owner_ID, Album_Name FROM " + FakebookOracleConstants.AlbumsTable)) {
+                while (rst.next()) {
+                    loader.addAlbum(rst.getLong(1), getLong(rst, 2), rst.getString(3));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT Photo_ID, Album_ID, Photo_Link FROM " + FakebookOracleConstants.PhotosTable)) {
+                while (rst.next()) {
+                    loader.addPhoto(rst.getLong(1), getLong(rst, 2), rst.getString(3));
+                }
+            }
+
+            try (ResultSet rst = stmt.executeQuery(
+                    "SELECT Tag_Photo_ID, Tag_Subject_ID FROM " + FakebookOracleConstants.TagsTable)) {
+                while (rst.next()) {
+                    loader.addTag(rst.getLong(1), getLong(rst, 2));
+                }
+            }
+        }
+
+        return loader.build();
+    }
+
+    // [File Loader]
+    // REQUIRES: <directory> holds <table>.csv files with a header line of column names,
+    //           such as those written by FakebookDataGenerator; fields contain no commas
+    // EFFECTS:  streams each table file once and returns the resulting snapshot; missing
+    //           files are treated as empty tables and empty fields as NULL
+    public static FakebookSnapshot load(File directory) throws IOException {
+        final FakebookSnapshotLoader loader = new FakebookSnapshotLoader();
+
+        readTable(directory, "Users", new String[] { "USER_ID", "FIRST_NAME", "LAST_NAME", "YEAR_OF_BIRTH",
+                "MONTH_OF_BIRTH", "DAY_OF_BIRTH", "GENDER" },
+                f -> loader.addUser(parseLong(f[0]), f[1], f[2], parseInt(f[3]), parseInt(f[4]), parseInt(f[5]),
+                        f[6]));
+        readTable(directory, "Cities", new String[] { "CITY_ID", "CITY_NAME", "STATE_NAME", "COUNTRY_NAME" },
+                f -> loader.addCity(parseLong(f[0]), f[1], f[2], f[3]));
+        readTable(directory, "User_Current_Cities", new String[] { "USER_ID", "CURRENT_CITY_ID" },
+                f -> loader.addCurrentCity(parseLong(f[0]), parseLong(f[1])));
+        readTable(directory, "User_Hometown_Cities", new String[] { "USER_ID", "HOMETOWN_CITY_ID" },
+                f -> loader.addHometownCity(parseLong(f[0]), parseLong(f[1])));
+        readTable(directory, "Friends", new String[] { "USER1_ID", "USER2_ID" },
+                f -> loader.addFriends(parseLong(f[0]), parseLong(f[1])));
+        readTable(directory, "Programs", new String[] { "PROGRAM_ID", "INSTITUTION", "CONCENTRATION", "DEGREE" },
+                f -> loader.addProgram(parseLong(f[0]), f[1], f[2], f[3]));
+        readTable(directory, "Education", new String[] { "USER_ID", "PROGRAM_ID", "PROGRAM_YEAR" },
+                f -> loader.addEducation(parseLong(f[0]), parseLong(f[1]), parseInt(f[2])));
+        readTable(directory, "User_Events", new String[] { "EVENT_ID", "EVENT_CREATOR_ID", "EVENT_NAME",
+                "EVENT_CITY_ID" },
+                f -> loader.addEvent(parseLong(f[0]), parseLong(f[1]), f[2], parseLong(f[3])));
+        readTable(directory, "Albums", new String[] { "ALBUM_ID", "ALBUM_OWNER_ID", "ALBUM_NAME" },
+                f -> loader.addAlbum(parseLong(f[0]), parseLong(f[1]), f[2]));
+        readTable(directory, "Photos", new String[] { "PHOTO_ID", "ALBUM_ID", "PHOTO_LINK" },
+                f -> loader.addPhoto(parseLong(f[0]), parseLong(f[1]), f[2]));
+        readTable(directory, "Tags", new String[] { "TAG_PHOTO_ID", "TAG_SUBJECT_ID" },
+                f -> loader.addTag(parseLong(f[0]), parseLong(f[1])));
+
+        return loader.build();
+    }
+
+    /*
+        The RowHandler interface receives the requested fields of one table file row.
+    */
+    interface RowHandler {
+        void handle(String[] fields);
+    }
+
+    // [Table File Reader]
+    // EFFECTS:  calls <handler> once per row of <directory>/<table>.csv with the fields
+    //           named by <columns>, in that order
+    static void readTable(File directory, String table, String[] columns, RowHandler handler)
+            throws IOException {
+        File file = new File(directory, table + ".csv");
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8), 1 << 16)) {
+            String header = in.readLine();
+            if (header == null) {
+                return;
+            }
+            String[] headerFields = header.split(",", -1);
+            int[] positions = new int[columns.length];
+            for (int col = 0; col < columns.length; col++) {
+                positions[col] = -1;
+                for (int idx = 0; idx < headerFields.length; idx++) {
+                    if (headerFields[idx].trim().equalsIgnoreCase(columns[col])) {
+                        positions[col] = idx;
+                    }
+                }
+                if (positions[col] < 0) {
+                    throw new IOException(file + " has no column " + columns[col]);
+                }
+            }
+
+            String[] all = new String[headerFields.length];
+            String[] fields = new String[columns.length];
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int start = 0;
+                for (int idx = 0; idx < all.length; idx++) {
+                    int end = line.indexOf(',', start);
+                    if (end < 0) {
+                        end = line.length();
+                    }
+                    all[idx] = start < end ? line.substring(start, end) : null;
+                    start = Math.min(end + 1, line.length());
+                }
+                for (int col = 0; col < columns.length; col++) {
+                    fields[col] = all[positions[col]];
+                }
+                handler.handle(fields);
+            }
+        }
+    }
+
+    // [Nullable Field Parsers]
+    // EFFECTS:  return the number in <field>, or NULL_INT / NULL_LONG if it is NULL
+    static int parseInt(String field) {
+        return field == null ? FakebookSnapshot.NULL_INT : Integer.parseInt(field);
+    }
+
+    static long parseLong(String field) {
+        return field == null ? FakebookSnapshot.NULL_LONG : Long.parseLong(field);
+    }
+
+    // [Nullable Integer Reader]
+    // EFFECTS:  returns the integer in column <column>, or NULL_INT if it is NULL
+    static int getInt(ResultSet rst, int column) throws SQLException {
+        int value = rst.getInt(column);
+        return rst.wasNull() ? FakebookSnapshot.NULL_INT : value;
+    }
+
+    // [Nullable Long Reader]
+    // EFFECTS:  returns the long in column <column>, or NULL_LONG if it is NULL
+    static long getLong(ResultSet rst, int column) throws SQLException {
+        long value = rst.getLong(column);
+        return rst.wasNull() ? FakebookSnapshot.NULL_LONG : value;
+    }
+
+    // Member Variables
+    final FakebookDictionary names;
+    final FakebookDictionary strings;
+
+    final LongColumn userIds = new LongColumn();
+    final IntColumn userFirstNames = new IntColumn();
+    final IntColumn userLastNames = new IntColumn();
+    final IntColumn userBirthYears = new IntColumn();
+    final IntColumn userBirthMonths = new IntColumn();
+    final IntColumn userBirthDays = new IntColumn();
+    final IntColumn userGenders = new IntColumn();
+
+    final LongColumn cityIds = new LongColumn();
+    final IntColumn cityNames = new IntColumn();
+    final IntColumn cityStates = new IntColumn();
+    final IntColumn cityCountries = new IntColumn();
+
+    final LongColumn currentCityUsers = new LongColumn();
+    final LongColumn currentCityIds = new LongColumn();
+    final LongColumn hometownCityUsers = new LongColumn();
+    final LongColumn hometownCityIds = new LongColumn();
+
+    final LongColumn friendUser1Ids = new LongColumn();
+    final LongColumn friendUser2Ids = new LongColumn();
+
+    final LongColumn programIds = new LongColumn();
+    final IntColumn programInstitutions = new IntColumn();
+    final IntColumn programConcentrations = new IntColumn();
+    final IntColumn programDegrees = new IntColumn();
+
+    final LongColumn educationUserIds = new LongColumn();
+    final LongColumn educationProgramIds = new LongColumn();
+    final IntColumn educationYears = new IntColumn();
+
+    final LongColumn eventIds = new LongColumn();
+    final LongColumn eventCreatorIds = new LongColumn();
+    final IntColumn eventNames = new IntColumn();
+    final LongColumn eventCityIds = new LongColumn();
+
+    final LongColumn albumIds = new LongColumn();
+    final LongColumn albumOwnerIds = new LongColumn();
+    final IntColumn albumNames = new IntColumn();
+
+    final LongColumn photoIds = new LongColumn();
+    final LongColumn photoAlbumIds = new LongColumn();
+    final IntColumn photoLinks = new IntColumn();
+
+    final LongColumn tagPhotoIds = new LongColumn();
+    final LongColumn tagSubjectIds = new LongColumn();
+}
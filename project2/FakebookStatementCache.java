@@ -0,0 +1,139 @@
+package project2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    The FakebookStatementCache class prepares each distinct SQL text at most once per
+    connection and hands the same PreparedStatement back on later requests, so that the
+    database parses each query once and later executions only bind new values. The
+    least recently used statement is closed when more than <capacity> are cached.
+
+    Statements handed out by the cache must not be closed by the caller; only their
+    result sets should be closed. Hits and misses are counted for monitoring.
+
+    Statements are forward-only by default, so the driver keeps only the rows of the
+    current fetch rather than buffering the whole result for scrolling. Reading their
+    result sets with next lets the fetch size grow with the number of rows read: small
+    results cost a single small fetch, and large ones are read in ever larger batches up
+    to FakebookOracleConstants.StreamingFetchSize rows.
+*/
+final class FakebookStatementCache implements AutoCloseable {
+    // Default number of statements kept open per connection
+    public static final int DefaultCapacity = 64;
+
+    // [Constructor]
+    // REQUIRES: <connection> is a valid JDBC connection and <capacity> > 0
+    public FakebookStatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+        statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+        hits = 0;
+        misses = 0;
+    }
+
+    // [Constructor]
+    public FakebookStatementCache(Connection connection) {
+        this(connection, DefaultCapacity);
+    }
+
+    // [Prepare Function]
+    // MODIFIES: this
+    // EFFECTS:  returns the cached statement for <sql>, preparing it (forward-only and
+    //           read-only) on a miss
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, FakebookOracleConstants.ForwardOnly);
+    }
+
+    // [Prepare Function]
+    // REQUIRES: <resultSetType> is FakebookOracleConstants.AllScroll or ForwardOnly
+    // MODIFIES: this
+    // EFFECTS:  returns the cached read-only statement for <sql> whose result sets are of
+    //           type <resultSetType>, preparing it on a miss
+    public synchronized PreparedStatement prepare(String sql, int resultSetType) throws SQLException {
+        String key = resultSetType + ":" + sql;
+        PreparedStatement stmt = statements.get(key);
+        if (stmt != null && !stmt.isClosed()) {
+            hits++;
+            return stmt;
+        }
+
+        misses++;
+        stmt = connection.prepareStatement(sql, resultSetType, FakebookOracleConstants.ReadOnly);
+        statements.put(key, stmt);
+        if (statements.size() > capacity) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = statements.entrySet().iterator();
+            PreparedStatement evicted = eldest.next().getValue();
+            eldest.remove();
+            evicted.close();
+        }
+        return stmt;
+    }
+
+    // [Adaptive Next Function]
+    // MODIFIES: <rst>
+    // EFFECTS:  moves <rst> to its next row and returns true, or returns false if there
+    //           is none; once as many rows have been read as twice the fetch size, the
+    //           fetch size is doubled, up to FakebookOracleConstants.StreamingFetchSize
+    public static boolean next(ResultSet rst) throws SQLException {
+        if (!rst.next()) {
+            return false;
+        }
+        int fetchSize = rst.getFetchSize();
+        if (fetchSize > 0 && fetchSize < FakebookOracleConstants.StreamingFetchSize
+                && rst.getRow() >= 2 * fetchSize) {
+            rst.setFetchSize(Math.min(2 * fetchSize, FakebookOracleConstants.StreamingFetchSize));
+        }
+        return true;
+    }
+
+    // [Counter Accessors]
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    // [Close Function]
+    // MODIFIES: this
+    // EFFECTS:  closes every cached statement; the connection itself is left open
+    @Override
+    public synchronized void close() throws SQLException {
+        SQLException failure = null;
+        for (PreparedStatement stmt : statements.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                failure = e;
+            }
+        }
+        statements.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // [Statistics Converter]
+    // EFFECTS:  returns a one-line summary of the cache counters
+    public synchronized String toString() {
+        return String.format("Statement cache: %d hit(s), %d miss(es), %d open", hits, misses, statements.size());
+    }
+
+    // Member Variables
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private long hits;
+    private long misses;
+}
@@ -0,0 +1,150 @@
+package project2;
+
+import java.util.Arrays;
+
+/*
+    The FakebookTopK class is the top-N operator of the in-process backends: it keeps the
+    best <capacity> entries {key, first, second} offered to it in a binary heap whose root
+    is the worst entry kept, stored as three parallel int arrays. Entries rank by key
+    descending, then first ascending, then second ascending, which is the order of
+    Queries 4, 5 and 6 (tag or common friend count, then the rows of the photo or pair),
+    so ties are broken exactly as the ORDER BY clauses of those queries break them.
+
+    Offering n entries costs O(n log <capacity>) time and O(min(n, <capacity>)) space,
+    where a sort would cost O(n log n) and hold every entry: the arrays start at
+    InitialCapacity entries and double as entries are kept, so a large <capacity> costs
+    nothing until that many entries are offered. Heaps filled by separate threads over
+    disjoint inputs can be merged with addAll.
+*/
+final class FakebookTopK {
+    // [Constructor]
+    // REQUIRES: <capacity> >= 0
+    public FakebookTopK(int capacity) {
+        this.capacity = capacity;
+        keys = new int[Math.min(capacity, InitialCapacity)];
+        firsts = new int[keys.length];
+        seconds = new int[keys.length];
+        size = 0;
+    }
+
+    // [Accepts Function]
+    // EFFECTS:  returns true if the entry would be kept by offer(), so that callers can
+    //           skip work for entries that cannot make the top <capacity>
+    public boolean accepts(int key, int first, int second) {
+        return size < capacity || capacity > 0 && isBetter(key, first, second, keys[0], firsts[0], seconds[0]);
+    }
+
+    // [Offer Function]
+    // MODIFIES: this
+    // EFFECTS:  keeps the entry if it is among the best <capacity> entries seen so far
+    public void offer(int key, int first, int second) {
+        if (size < capacity) {
+            if (size == keys.length) {
+                grow();
+            }
+            set(size, key, first, second);
+            siftUp(size++);
+        } else if (accepts(key, first, second)) {
+            set(0, key, first, second);
+            siftDown(0);
+        }
+    }
+
+    // [Merge Function]
+    // MODIFIES: this
+    // EFFECTS:  offers every entry kept by <other>
+    public void addAll(FakebookTopK other) {
+        for (int idx = 0; idx < other.size; idx++) {
+            offer(other.keys[idx], other.firsts[idx], other.seconds[idx]);
+        }
+    }
+
+    // [Sorted Array Function]
+    // MODIFIES: this
+    // EFFECTS:  returns the kept entries as {key, first, second}, best first, and empties
+    //           this heap
+    public int[][] toSortedArray() {
+        int[][] result = new int[size][];
+        for (int idx = size - 1; idx >= 0; idx--) {
+            result[idx] = new int[] { keys[0], firsts[0], seconds[0] };
+            size--;
+            set(0, keys[size], firsts[size], seconds[size]);
+            siftDown(0);
+        }
+        return result;
+    }
+
+    // [Grow Function]
+    // MODIFIES: this
+    // EFFECTS:  doubles the room in the arrays, up to <capacity> entries
+    private void grow() {
+        int length = (int) Math.min((long) keys.length * 2, capacity);
+        keys = Arrays.copyOf(keys, length);
+        firsts = Arrays.copyOf(firsts, length);
+        seconds = Arrays.copyOf(seconds, length);
+    }
+
+    private void siftUp(int idx) {
+        while (idx > 0) {
+            int parent = (idx - 1) / 2;
+            if (!isBetter(keys[parent], firsts[parent], seconds[parent], keys[idx], firsts[idx], seconds[idx])) {
+                return;
+            }
+            swap(idx, parent);
+            idx = parent;
+        }
+    }
+
+    private void siftDown(int idx) {
+        while (true) {
+            int worst = idx;
+            for (int child = 2 * idx + 1; child <= 2 * idx + 2 && child < size; child++) {
+                if (isBetter(keys[worst], firsts[worst], seconds[worst], keys[child], firsts[child],
+                        seconds[child])) {
+                    worst = child;
+                }
+            }
+            if (worst == idx) {
+                return;
+            }
+            swap(idx, worst);
+            idx = worst;
+        }
+    }
+
+    private void set(int idx, int key, int first, int second) {
+        keys[idx] = key;
+        firsts[idx] = first;
+        seconds[idx] = second;
+    }
+
+    private void swap(int a, int b) {
+        int key = keys[a];
+        int first = firsts[a];
+        int second = seconds[a];
+        set(a, keys[b], firsts[b], seconds[b]);
+        set(b, key, first, second);
+    }
+
+    // [Order Function]
+    // EFFECTS:  returns true if entry A ranks before entry B
+    private static boolean isBetter(int keyA, int firstA, int secondA, int keyB, int firstB, int secondB) {
+        if (keyA != keyB) {
+            return keyA > keyB;
+        }
+        if (firstA != firstB) {
+            return firstA < firstB;
+        }
+        return secondA < secondB;
+    }
+
+    // Number of entries the arrays have room for before they first grow
+    private static final int InitialCapacity = 16;
+
+    // Member Variables
+    private final int capacity;
+    private int[] keys;
+    private int[] firsts;
+    private int[] seconds;
+    private int size;
+}
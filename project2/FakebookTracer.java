@@ -0,0 +1,368 @@
+package project2;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+/*
+    The FakebookTracer class records where the time of each query goes. Callers open a
+    Span around a unit of work, optionally counting the result rows it produces, and
+    spans opened while another is open on the same thread are nested under it.
+    Connections wrapped by the tracer record a span for each SQL statement they run,
+    named by the statement's fingerprint (its text with literals replaced by "?"), with
+    a child span for each of its phases:
+
+        prepare  time spent preparing the statement (once per statement cache miss)
+        execute  time spent in executeQuery or executeUpdate
+        fetch    time spent in ResultSet.next, with the number of rows read and the
+                 number of round trips that took (one each time the rows fetched so
+                 far run out, at the fetch size in force at that moment)
+
+    Spans are not kept individually: each is added to the totals of its stack of names,
+    so memory does not grow with the number of queries traced. The totals can be written
+    as collapsed stacks, the input format of flame graph tools, or as a table.
+*/
+final class FakebookTracer {
+    /*
+        The Span class is one open unit of work. Closing it adds its time, and the number
+        of result rows counted on it, to the totals.
+    */
+    final class Span implements AutoCloseable {
+        private Span(String name, Span parent) {
+            this.parent = parent;
+            path = parent == null ? name : parent.path + ";" + name;
+            begin = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            long elapsed = System.nanoTime() - begin;
+            record(path, 1, elapsed, elapsed - childTime, rows, 0);
+            if (parent != null) {
+                parent.childTime += elapsed;
+            }
+            open = false;
+            if (current.get() == this) {
+                current.set(parent);
+            }
+        }
+
+        // [Row Counter]
+        // MODIFIES: this
+        // EFFECTS:  counts <count> more rows produced by the work of this span
+        public void addRows(long count) {
+            rows += count;
+        }
+
+        private final Span parent;
+        private final String path;
+        private final long begin;
+        private long childTime;
+        private long rows;
+        private boolean open = true;
+    }
+
+    // [Constructor]
+    public FakebookTracer() {
+        current = new ThreadLocal<Span>();
+        totals = new HashMap<String, long[]>();
+    }
+
+    // [Begin Function]
+    // MODIFIES: this
+    // EFFECTS:  opens a span called <name> under the span open on this thread, if any;
+    //           <name> must not contain ';'
+    public Span begin(String name) {
+        Span span = new Span(name, current.get());
+        current.set(span);
+        return span;
+    }
+
+    // [Wrap Function]
+    // EFFECTS:  returns a connection that behaves as <connection> but records a span for
+    //           each statement it runs; closing it closes <connection>
+    public Connection wrap(Connection connection) {
+        return proxy(Connection.class, new ConnectionTracer(connection));
+    }
+
+    // [Collapsed Stack Writer]
+    // EFFECTS:  writes one line per stack of span names to <writer>, holding the names
+    //           separated by ';' and the time spent in the innermost span itself, in
+    //           microseconds, as flame graph tools expect
+    public void writeCollapsed(Writer writer) throws IOException {
+        for (String path : paths()) {
+            long self = totals(path)[SelfTime] / 1000;
+            if (self > 0) {
+                writer.write(String.format("%s %d%n", path, self));
+            }
+        }
+        writer.flush();
+    }
+
+    // [Summary Writer]
+    // EFFECTS:  writes a table of every stack of span names to <writer>, indented by
+    //           depth, with how many spans it had, their total and own time, and the rows
+    //           produced (fetched, for statements) and round trips fetched
+    public void writeSummary(Writer writer) throws IOException {
+        writer.write(String.format("%8s %12s %12s %10s %8s  %s%n", "Count", "Total (ms)", "Self (ms)", "Rows",
+                "Fetches", "Span"));
+        for (String path : paths()) {
+            long[] total = totals(path);
+            int depth = 0;
+            for (int idx = path.indexOf(';'); idx >= 0; idx = path.indexOf(';', idx + 1)) {
+                depth++;
+            }
+            String name = path.substring(path.lastIndexOf(';') + 1);
+            StringBuilder indent = new StringBuilder();
+            for (int level = 0; level < depth; level++) {
+                indent.append("  ");
+            }
+            writer.write(String.format("%8d %12.3f %12.3f %10d %8d  %s%s%n", total[Count], total[TotalTime] / 1e6,
+                    total[SelfTime] / 1e6, total[Rows], total[Fetches], indent, name));
+        }
+        writer.flush();
+    }
+
+    // [Fingerprint Function]
+    // EFFECTS:  returns <sql> with its whitespace collapsed, its string and number literals
+    //           replaced by "?" and its schema prefixes removed, shortened to at most 96
+    //           characters and made safe to use as a span name
+    static String fingerprint(String sql) {
+        StringBuilder result = new StringBuilder();
+        int length = sql.length();
+        for (int idx = 0; idx < length; idx++) {
+            char c = sql.charAt(idx);
+            if (c == '\'') {
+                // Skip to the closing quote; two quotes in a row stand for one quote
+                for (idx++; idx < length; idx++) {
+                    if (sql.charAt(idx) == '\'') {
+                        if (idx + 1 < length && sql.charAt(idx + 1) == '\'') {
+                            idx++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                result.append('?');
+            } else if (Character.isDigit(c) && (result.length() == 0
+                    || !Character.isLetterOrDigit(result.charAt(result.length() - 1))
+                    && result.charAt(result.length() - 1) != '_')) {
+                while (idx + 1 < length && (Character.isDigit(sql.charAt(idx + 1)) || sql.charAt(idx + 1) == '.')) {
+                    idx++;
+                }
+                result.append('?');
+            } else if (Character.isWhitespace(c)) {
+                if (result.length() > 0 && result.charAt(result.length() - 1) != ' ') {
+                    result.append(' ');
+                }
+            } else if (c != ';') {
+                result.append(c);
+            }
+        }
+
+        // Statements that only differ after the cut keep apart by the hash of the whole
+        String fingerprint = result.toString().trim().replace(SchemaPrefix, "");
+        if (fingerprint.length() > 96) {
+            fingerprint = String.format("%s... #%08x", fingerprint.substring(0, 83), fingerprint.hashCode());
+        }
+        return fingerprint;
+    }
+
+    // [Record Function]
+    // MODIFIES: this
+    // EFFECTS:  adds <count> spans with the given times and counts to the totals of <path>
+    private synchronized void record(String path, long count, long total, long self, long rows, long fetches) {
+        long[] counts = totals.get(path);
+        if (counts == null) {
+            counts = new long[5];
+            totals.put(path, counts);
+        }
+        counts[Count] += count;
+        counts[TotalTime] += total;
+        counts[SelfTime] += self;
+        counts[Rows] += rows;
+        counts[Fetches] += fetches;
+    }
+
+    // [Totals Accessors]
+    private synchronized ArrayList<String> paths() {
+        ArrayList<String> paths = new ArrayList<String>(totals.keySet());
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private synchronized long[] totals(String path) {
+        return totals.get(path).clone();
+    }
+
+    // [Phase Function]
+    // MODIFIES: this
+    // EFFECTS:  records a completed phase called <phase> of the statement <fingerprint>
+    //           under <parent>, which was the open span when the statement started; the
+    //           statement itself counts one span per execution
+    private void phase(Span parent, String fingerprint, String phase, long elapsed, long rows, long fetches) {
+        String path = (parent == null ? "" : parent.path + ";") + fingerprint;
+        record(path, phase.equals("execute") ? 1 : 0, elapsed, 0, rows, fetches);
+        record(path + ";" + phase, 1, elapsed, elapsed, rows, fetches);
+        if (parent != null && parent.open) {
+            parent.childTime += elapsed;
+        }
+    }
+
+    // [Proxy Factory]
+    // EFFECTS:  returns an instance of <type> whose calls are handled by <handler>
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(FakebookTracer.class.getClassLoader(), new Class<?>[] { type },
+                handler));
+    }
+
+    // [Invoke Function]
+    // EFFECTS:  calls <method> on <target>, rethrowing what it throws unwrapped
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /*
+        The ConnectionTracer class handles calls to a wrapped Connection, wrapping the
+        statements it creates.
+    */
+    private final class ConnectionTracer implements InvocationHandler {
+        ConnectionTracer(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("prepareStatement") && args != null && args[0] instanceof String) {
+                String fingerprint = fingerprint((String) args[0]);
+                long begin = System.nanoTime();
+                Object stmt = FakebookTracer.invoke(connection, method, args);
+                phase(current.get(), fingerprint, "prepare", System.nanoTime() - begin, 0, 0);
+                return proxy(PreparedStatement.class, new StatementTracer((Statement) stmt, fingerprint));
+            }
+            if (name.equals("createStatement")) {
+                return proxy(Statement.class, new StatementTracer((Statement) FakebookTracer.invoke(connection,
+                        method, args), null));
+            }
+            return FakebookTracer.invoke(connection, method, args);
+        }
+
+        private final Connection connection;
+    }
+
+    /*
+        The StatementTracer class handles calls to a wrapped Statement or PreparedStatement,
+        recording how long each execution takes and wrapping the result sets it returns.
+        Plain statements are fingerprinted by the SQL passed to each execution.
+    */
+    private final class StatementTracer implements InvocationHandler {
+        StatementTracer(Statement stmt, String fingerprint) {
+            this.stmt = stmt;
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                return FakebookTracer.invoke(stmt, method, args);
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String
+                    ? fingerprint((String) args[0]) : fingerprint;
+            Span parent = current.get();
+            long begin = System.nanoTime();
+            Object result = FakebookTracer.invoke(stmt, method, args);
+            phase(parent, sql, "execute", System.nanoTime() - begin, 0, 0);
+            if (result instanceof ResultSet) {
+                return proxy(ResultSet.class, new ResultSetTracer((ResultSet) result, parent, sql));
+            }
+            return result;
+        }
+
+        private final Statement stmt;
+        private final String fingerprint;
+    }
+
+    /*
+        The ResultSetTracer class handles calls to a wrapped ResultSet, timing and counting
+        the rows read from it and recording them as a fetch phase when it is closed. A
+        round trip is counted whenever next() is called with no fetched rows left; it
+        fetches as many rows as the result set's fetch size at that moment, which callers
+        such as FakebookStatementCache.next may change while the rows are read.
+    */
+    private final class ResultSetTracer implements InvocationHandler {
+        ResultSetTracer(ResultSet rst, Span parent, String fingerprint) {
+            this.rst = rst;
+            this.parent = parent;
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("next")) {
+                if (buffered == 0) {
+                    int fetchSize = rst.getFetchSize();
+                    buffered = fetchSize > 0 ? fetchSize : DefaultFetchSize;
+                    fetches++;
+                }
+                long begin = System.nanoTime();
+                Object more = FakebookTracer.invoke(rst, method, args);
+                fetchTime += System.nanoTime() - begin;
+                if (Boolean.TRUE.equals(more)) {
+                    rows++;
+                    buffered--;
+                }
+                return more;
+            }
+            if (name.equals("close") && !closed) {
+                closed = true;
+                phase(parent, fingerprint, "fetch", fetchTime, rows, fetches);
+            }
+            return FakebookTracer.invoke(rst, method, args);
+        }
+
+        private final ResultSet rst;
+        private final Span parent;
+        private final String fingerprint;
+        private long fetchTime;
+        private long rows;
+        private long fetches;
+        private int buffered;
+        private boolean closed;
+    }
+
+    // Fetch size the Oracle driver uses unless told otherwise
+    private static final int DefaultFetchSize = 10;
+
+    // Schema prefix removed from fingerprints
+    private static final String SchemaPrefix = "project2.";
+
+    // Indices into the totals of a stack of span names
+    private static final int Count = 0;
+    private static final int TotalTime = 1;
+    private static final int SelfTime = 2;
+    private static final int Rows = 3;
+    private static final int Fetches = 4;
+
+    // Member Variables
+    private final ThreadLocal<Span> current;
+    private final HashMap<String, long[]> totals;
+}
@@ -0,0 +1,137 @@
+package project2;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/*
+    The FakebookUserStore class holds the ID, first name and last name of a list of users
+    as three parallel primitive arrays, with names stored as codes into a FakebookDictionary
+    that any number of stores may share. A user is added once and referred to afterwards
+    by its handle (its position in the store); UserInfo instances are flyweight views of a
+    handle, so a user costs 16 bytes in the store plus one small view, and each distinct
+    name is held once however many users share it, rather than once per row read.
+
+    Stores only grow, and a handle keeps its user for the life of the store. A store is
+    filled by one thread; its views may be read by any thread the filled store is safely
+    handed to. Queries that stream their users fill a sequence of stores of at most
+    ChunkSize users (see chunk), so that users the consumer has dropped can be freed.
+*/
+final class FakebookUserStore {
+    // Number of users after which chunk() starts a new store
+    public static final int ChunkSize = 4096;
+
+    // [Constructor]
+    // EFFECTS:  creates an empty store with a dictionary of its own
+    public FakebookUserStore() {
+        this(new FakebookDictionary());
+    }
+
+    // [Constructor]
+    // REQUIRES: <names> is not NULL and is only used by the thread filling this store
+    // EFFECTS:  creates an empty store that encodes names with <names>
+    public FakebookUserStore(FakebookDictionary names) {
+        this(names, new long[InitialCapacity], new int[InitialCapacity], new int[InitialCapacity], 0);
+    }
+
+    // [Column Constructor]
+    // REQUIRES: the arrays are of length <size> or more, the name arrays hold codes of
+    //           <names>, and none of them is modified while the store is in use
+    // EFFECTS:  creates a store of the first <size> users of the arrays, without copying
+    //           them; adding to the store copies them first
+    FakebookUserStore(FakebookDictionary names, long[] userIds, int[] firstNames, int[] lastNames, int size) {
+        this.names = names;
+        this.userIds = userIds;
+        this.firstNames = firstNames;
+        this.lastNames = lastNames;
+        this.size = size;
+    }
+
+    // [Add Function]
+    // MODIFIES: this
+    // EFFECTS:  adds the user <userID> with the given names (either of which may be NULL)
+    //           and returns its handle
+    public int add(long userID, String firstName, String lastName) {
+        return add(userID, names.encode(firstName), names.encode(lastName));
+    }
+
+    // [Add Function]
+    // MODIFIES: this
+    // EFFECTS:  adds a copy of <user> and returns its handle; names are copied as codes if
+    //           <user> is held in a store sharing this store's dictionary
+    public int add(UserInfo user) {
+        FakebookUserStore source = user.store;
+        int handle = user.handle;
+        if (source != null && source.names == names) {
+            return add(source.userIds[handle], source.firstNames[handle], source.lastNames[handle]);
+        }
+        return add(user.getUserID(), user.getFirstName(), user.getLastName());
+    }
+
+    // [Read Function]
+    // REQUIRES: columns <column> to <column> + 2 of the current row of <rst> are a
+    //           user's USER_ID, FIRST_NAME and LAST_NAME
+    // MODIFIES: this
+    // EFFECTS:  adds that user and returns a view of it
+    public UserInfo read(ResultSet rst, int column) throws SQLException {
+        return userInfo(add(rst.getLong(column), rst.getString(column + 1), rst.getString(column + 2)));
+    }
+
+    // [Chunk Function]
+    // EFFECTS:  returns this store if it holds fewer than ChunkSize users, and otherwise a
+    //           new empty store sharing this store's dictionary
+    public FakebookUserStore chunk() {
+        return size < ChunkSize ? this : new FakebookUserStore(names);
+    }
+
+    // [UserInfo Converter]
+    // REQUIRES: 0 <= <handle> < size()
+    // EFFECTS:  returns a view of the user <handle>
+    public UserInfo userInfo(int handle) {
+        return new UserInfo(this, handle);
+    }
+
+    // [User Accessors]
+    // REQUIRES: 0 <= <handle> < size()
+    // EFFECTS:  return the ID and names of the user <handle>
+    public long userID(int handle) {
+        return userIds[handle];
+    }
+
+    public String firstName(int handle) {
+        return names.decode(firstNames[handle]);
+    }
+
+    public String lastName(int handle) {
+        return names.decode(lastNames[handle]);
+    }
+
+    // [Size Function]
+    // EFFECTS:  returns the number of users in this store
+    public int size() {
+        return size;
+    }
+
+    // [Add Function]
+    private int add(long userID, int firstName, int lastName) {
+        if (size == userIds.length) {
+            int capacity = Math.max(InitialCapacity, size * 2);
+            userIds = Arrays.copyOf(userIds, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+        }
+        userIds[size] = userID;
+        firstNames[size] = firstName;
+        lastNames[size] = lastName;
+        return size++;
+    }
+
+    private static final int InitialCapacity = 16;
+
+    // Member Variables
+    private final FakebookDictionary names;
+    private long[] userIds;
+    private int[] firstNames;
+    private int[] lastNames;
+    private int size;
+}
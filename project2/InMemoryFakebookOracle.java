@@ -0,0 +1,483 @@
+package project2;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    The InMemoryFakebookOracle class is derived from the FakebookOracle class and answers
+    the ten queries entirely in-process from a FakebookSnapshot, without issuing any SQL
+    after the snapshot has been loaded. Results (including ordering and tie-breaking) are
+    the same as those produced by StudentFakebookOracle against the same data.
+*/
+public final class InMemoryFakebookOracle extends FakebookOracle {
+    // [Constructor]
+    // REQUIRES: <snapshot> is not NULL
+    public InMemoryFakebookOracle(FakebookSnapshot snapshot) {
+        this.snapshot = snapshot;
+        bitmaps = new FakebookBitmapIndex(snapshot);
+        pairCounter = new FakebookPairCounter(snapshot);
+        birthRanks = rankBirthDates();
+        siblingJoin = new FakebookSiblingJoin(snapshot);
+
+        // Photo rows each user is tagged in, in compressed sparse row form: the photos of
+        // user row U are userPhotos[userPhotoOffsets[U]] through
+        // userPhotos[userPhotoOffsets[U + 1] - 1], in photo ID order
+        int[] tagUsers = snapshot.tagUsers;
+        int[] tagPhotoRows = new int[tagUsers.length];
+        userPhotoOffsets = new int[snapshot.userCount() + 1];
+        for (int tag = 0; tag < tagUsers.length; tag++) {
+            tagPhotoRows[tag] = userPhotoRow(tag);
+            if (tagPhotoRows[tag] != FakebookSnapshot.NO_ROW) {
+                userPhotoOffsets[tagUsers[tag] + 1]++;
+            }
+        }
+        for (int row = 0; row < snapshot.userCount(); row++) {
+            userPhotoOffsets[row + 1] += userPhotoOffsets[row];
+        }
+        userPhotos = new int[userPhotoOffsets[snapshot.userCount()]];
+        int[] next = Arrays.copyOf(userPhotoOffsets, snapshot.userCount());
+        for (int tag = 0; tag < tagUsers.length; tag++) {
+            if (tagPhotoRows[tag] != FakebookSnapshot.NO_ROW) {
+                userPhotos[next[tagUsers[tag]]++] = tagPhotoRows[tag];
+            }
+        }
+    }
+
+    // [Bitmap Index Accessor]
+    // EFFECTS:  returns the bitmaps of users answering Queries 0, 2, 3 and 5, which can be
+    //           combined to select users by other predicates
+    public FakebookBitmapIndex getBitmapIndex() {
+        return bitmaps;
+    }
+
+    @Override
+    // Query 0
+    // -----------------------------------------------------------------------------------
+    // Each birth month's users are a precomputed bitmap, so the months are ranked by the
+    // bitmaps' sizes and only the winning months' users are decoded. Ties for the most
+    // common month go to the earliest month; ties for the least common month go to the
+    // latest month.
+    public BirthMonthInfo findMonthOfBirthInfo() throws SQLException {
+        int total = 0;
+        int mostMonth = 0;
+        int leastMonth = 0;
+        int mostCount = 0;
+        int leastCount = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, FakebookBitmap> month : bitmaps.birthMonths().entrySet()) {
+            int count = month.getValue().cardinality();
+            total += count;
+            if (count > mostCount) {
+                mostCount = count;
+                mostMonth = month.getKey();
+            }
+            if (count <= leastCount) {
+                leastCount = count;
+                leastMonth = month.getKey();
+            }
+        }
+
+        BirthMonthInfo info = new BirthMonthInfo(total, mostMonth, leastMonth);
+        if (total > 0) {
+            bitmaps.decode(bitmaps.birthMonth(mostMonth), info::addMostPopularBirthMonthUser);
+            bitmaps.decode(bitmaps.birthMonth(leastMonth), info::addLeastPopularBirthMonthUser);
+        }
+        return info;
+    }
+
+    @Override
+    // Query 1
+    // -----------------------------------------------------------------------------------
+    // First names are counted per dictionary code; lengths and counts are then compared
+    // over the distinct names only.
+    public FirstNameInfo findNameInfo() throws SQLException {
+        FirstNameInfo info = new FirstNameInfo();
+        FakebookDictionary names = snapshot.names;
+
+        int[] counts = new int[names.size()];
+        for (int row = 0; row < snapshot.userCount(); row++) {
+            if (snapshot.firstNames[row] != FakebookDictionary.NULL_CODE) {
+                counts[snapshot.firstNames[row]]++;
+            }
+        }
+
+        int mostLetters = -1;
+        int leastLetters = Integer.MAX_VALUE;
+        int mostCount = 0;
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] == 0) {
+                continue;
+            }
+            int length = names.decode(code).length();
+            mostLetters = Math.max(mostLetters, length);
+            leastLetters = Math.min(leastLetters, length);
+            mostCount = Math.max(mostCount, counts[code]);
+        }
+
+        ArrayList<String> longNames = new ArrayList<String>();
+        ArrayList<String> shortNames = new ArrayList<String>();
+        ArrayList<String> commonNames = new ArrayList<String>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] == 0) {
+                continue;
+            }
+            String name = names.decode(code);
+            if (name.length() == mostLetters) {
+                longNames.add(name);
+            }
+            if (name.length() == leastLetters) {
+                shortNames.add(name);
+            }
+            if (counts[code] == mostCount) {
+                commonNames.add(name);
+            }
+        }
+        Collections.sort(longNames);
+        Collections.sort(shortNames);
+        Collections.sort(commonNames);
+
+        for (String name : longNames) {
+            info.addLongName(name);
+        }
+        for (String name : shortNames) {
+            info.addShortName(name);
+        }
+        for (String name : commonNames) {
+            info.addCommonName(name);
+        }
+        info.setCommonNameCount(mostCount);
+        return info;
+    }
+
+    @Override
+    // Query 2
+    // -----------------------------------------------------------------------------------
+    public FakebookArrayList<UserInfo> lonelyUsers() throws SQLException {
+        FakebookArrayList<UserInfo> results = new FakebookArrayList<UserInfo>(", ");
+        lonelyUsers(results::add);
+        return results;
+    }
+
+    @Override
+    // Query 2 (Streaming)
+    // -----------------------------------------------------------------------------------
+    // Lonely users are every user ANDNOT the users with friends.
+    public <E extends Exception> void lonelyUsers(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        bitmaps.decode(bitmaps.all().andNot(bitmaps.hasFriend()), consumer);
+    }
+
+    @Override
+    // Query 3
+    // -----------------------------------------------------------------------------------
+    public FakebookArrayList<UserInfo> liveAwayFromHome() throws SQLException {
+        FakebookArrayList<UserInfo> results = new FakebookArrayList<UserInfo>(", ");
+        liveAwayFromHome(results::add);
+        return results;
+    }
+
+    @Override
+    // Query 3 (Streaming)
+    // -----------------------------------------------------------------------------------
+    public <E extends Exception> void liveAwayFromHome(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        bitmaps.decode(bitmaps.livesAway(), consumer);
+    }
+
+    @Override
+    // Query 4
+    // -----------------------------------------------------------------------------------
+    // Tags are sorted by photo, so each photo's tags form one contiguous run. A photo
+    // qualifies only if both it and its album exist. Only the best <num> photos are kept,
+    // in a FakebookTopK, rather than sorting every photo.
+    public FakebookArrayList<TaggedPhotoInfo> findPhotosWithMostTags(int num) throws SQLException {
+        FakebookArrayList<TaggedPhotoInfo> results = new FakebookArrayList<TaggedPhotoInfo>("\n");
+
+        // Keep the best <num> photos as {tag count, photo row, first tag}; photo rows are in
+        // photo ID order and unique, so the first tag never decides a tie
+        FakebookTopK top = new FakebookTopK(Math.max(num, 0));
+        long[] tagPhotos = snapshot.tagPhotos;
+        for (int start = 0; start < tagPhotos.length;) {
+            int end = start;
+            int count = 0;
+            while (end < tagPhotos.length && tagPhotos[end] == tagPhotos[start]) {
+                if (snapshot.tagSubjects[end] != FakebookSnapshot.NULL_LONG) {
+                    count++;
+                }
+                end++;
+            }
+            int photoRow = snapshot.photoRow(tagPhotos[start]);
+            if (photoRow != FakebookSnapshot.NO_ROW && top.accepts(count, photoRow, start)
+                    && snapshot.albumRow(snapshot.photoAlbums[photoRow]) != FakebookSnapshot.NO_ROW) {
+                top.offer(count, photoRow, start);
+            }
+            start = end;
+        }
+
+        for (int[] candidate : top.toSortedArray()) {
+            int photoRow = candidate[1];
+            int albumRow = snapshot.albumRow(snapshot.photoAlbums[photoRow]);
+            TaggedPhotoInfo tagged = new TaggedPhotoInfo(snapshot.photoInfo(photoRow, albumRow));
+            long photoID = tagPhotos[candidate[2]];
+            for (int tag = candidate[2]; tag < tagPhotos.length && tagPhotos[tag] == photoID; tag++) {
+                if (snapshot.tagUsers[tag] != FakebookSnapshot.NO_ROW) {
+                    tagged.addTaggedUser(snapshot.userInfo(snapshot.tagUsers[tag]));
+                }
+            }
+            results.add(tagged);
+        }
+        return results;
+    }
+
+    @Override
+    // Query 5
+    // -----------------------------------------------------------------------------------
+    // Every pair of distinct users tagged in the same photo is a candidate; candidates are
+    // filtered by gender, birth year and friendship and counted per pair, in parallel for
+    // large snapshots; see FakebookPairCounter.
+    public FakebookArrayList<MatchPair> matchMaker(int num, int yearDiff) throws SQLException {
+        FakebookArrayList<MatchPair> results = new FakebookArrayList<MatchPair>("\n");
+        matchMaker(num, yearDiff, results::add);
+        return results;
+    }
+
+    @Override
+    // Query 5 (Streaming)
+    // -----------------------------------------------------------------------------------
+    // The pair counts have to be complete before the first pair can be ranked, but each
+    // MatchPair (with its shared photos) is only built when it is passed on.
+    public <E extends Exception> void matchMaker(int num, int yearDiff, FakebookConsumer<? super MatchPair, E> consumer)
+            throws SQLException, E {
+        for (int[] candidate : pairCounter.topPairs(num, yearDiff)) {
+            int row1 = candidate[1];
+            int row2 = candidate[2];
+            MatchPair pair = new MatchPair(snapshot.userInfo(row1), snapshot.birthYears[row1],
+                    snapshot.userInfo(row2), snapshot.birthYears[row2]);
+            for (int photoRow : sharedPhotos(row1, row2)) {
+                int albumRow = snapshot.albumRow(snapshot.photoAlbums[photoRow]);
+                if (albumRow != FakebookSnapshot.NO_ROW) {
+                    pair.addSharedPhoto(snapshot.photoInfo(photoRow, albumRow));
+                }
+            }
+            consumer.accept(pair);
+        }
+    }
+
+    @Override
+    // Query 6
+    // -----------------------------------------------------------------------------------
+    // The friend graph counts common friends for every non-adjacent pair and keeps only the
+    // top <num> pairs; see FakebookFriendGraph.suggestPairs().
+    public FakebookArrayList<UsersPair> suggestFriends(int num) throws SQLException {
+        FakebookArrayList<UsersPair> results = new FakebookArrayList<UsersPair>("\n");
+        FakebookFriendGraph friends = snapshot.friends;
+
+        for (int[] candidate : friends.suggestPairs(num)) {
+            int row1 = candidate[1];
+            int row2 = candidate[2];
+            UsersPair pair = new UsersPair(snapshot.userInfo(row1), snapshot.userInfo(row2));
+            for (int friend : friends.commonNeighbours(row1, row2)) {
+                pair.addSharedFriend(snapshot.userInfo(friend));
+            }
+            results.add(pair);
+        }
+        return results;
+    }
+
+    @Override
+    // Query 7
+    // -----------------------------------------------------------------------------------
+    // Events are counted per state dictionary code; events whose city does not exist are
+    // ignored, and NULL state names sort after all others.
+    public EventStateInfo findEventStates() throws SQLException {
+        HashMap<Integer, int[]> stateCounts = new HashMap<Integer, int[]>();
+        for (int event = 0; event < snapshot.eventIds.length; event++) {
+            int cityRow = snapshot.cityRow(snapshot.eventCities[event]);
+            if (cityRow != FakebookSnapshot.NO_ROW) {
+                stateCounts.computeIfAbsent(snapshot.cityStates[cityRow], k -> new int[1])[0]++;
+            }
+        }
+        if (stateCounts.isEmpty()) {
+            System.err.println("No events found");
+            return new EventStateInfo(-1);
+        }
+
+        int maxCount = 0;
+        for (int[] count : stateCounts.values()) {
+            maxCount = Math.max(maxCount, count[0]);
+        }
+        ArrayList<String> states = new ArrayList<String>();
+        for (HashMap.Entry<Integer, int[]> entry : stateCounts.entrySet()) {
+            if (entry.getValue()[0] == maxCount) {
+                states.add(snapshot.strings.decode(entry.getKey()));
+            }
+        }
+        states.sort((a, b) -> a == null ? (b == null ? 0 : 1) : (b == null ? -1 : a.compareTo(b)));
+
+        EventStateInfo info = new EventStateInfo(maxCount);
+        for (String state : states) {
+            info.addState(state);
+        }
+        return info;
+    }
+
+    @Override
+    // Query 8
+    // -----------------------------------------------------------------------------------
+    // Friends are compared by (year, month, day) of birth with NULL parts treated as later
+    // than any date, which matches Oracle's default NULL placement; ties go to the
+    // larger user ID. Birth dates are ranked once, so each friend costs one int compare.
+    public AgeInfo findAgeInfo(long userID) throws SQLException {
+        return ageInfo(snapshot.userRow(userID));
+    }
+
+    @Override
+    // Query 8 (Batch)
+    // -----------------------------------------------------------------------------------
+    public Map<Long, AgeInfo> findAgeInfo(long[] userIDs) throws SQLException {
+        Map<Long, AgeInfo> results = new LinkedHashMap<Long, AgeInfo>();
+        for (long userID : userIDs) {
+            if (!results.containsKey(userID)) {
+                results.put(userID, ageInfo(snapshot.userRow(userID)));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    // Query 9
+    // -----------------------------------------------------------------------------------
+    // Friendships are probed against users bucketed by last name and hometown, in parallel
+    // for large snapshots; see FakebookSiblingJoin. Friendships are stored as sorted
+    // (user1, user2) row pairs, so the results come out already ordered.
+    public FakebookArrayList<SiblingInfo> findPotentialSiblings() throws SQLException {
+        FakebookArrayList<SiblingInfo> results = new FakebookArrayList<SiblingInfo>("\n");
+        findPotentialSiblings(results::add);
+        return results;
+    }
+
+    @Override
+    // Query 9 (Streaming)
+    // -----------------------------------------------------------------------------------
+    public <E extends Exception> void findPotentialSiblings(FakebookConsumer<? super SiblingInfo, E> consumer)
+            throws SQLException, E {
+        for (int edge : siblingJoin.siblingEdges()) {
+            consumer.accept(new SiblingInfo(snapshot.userInfo(snapshot.friendUser1[edge]),
+                    snapshot.userInfo(snapshot.friendUser2[edge])));
+        }
+    }
+
+    // [Shared Photos Function]
+    // EFFECTS:  returns the rows, in photo ID order, of the photos in which the users in
+    //           rows <row1> and <row2> are both tagged, by merging the two users' photo
+    //           lists
+    private ArrayList<Integer> sharedPhotos(int row1, int row2) {
+        ArrayList<Integer> photos = new ArrayList<Integer>();
+        int idx1 = userPhotoOffsets[row1];
+        int idx2 = userPhotoOffsets[row2];
+        while (idx1 < userPhotoOffsets[row1 + 1] && idx2 < userPhotoOffsets[row2 + 1]) {
+            if (userPhotos[idx1] < userPhotos[idx2]) {
+                idx1++;
+            } else if (userPhotos[idx1] > userPhotos[idx2]) {
+                idx2++;
+            } else {
+                photos.add(userPhotos[idx1]);
+                idx1++;
+                idx2++;
+            }
+        }
+        return photos;
+    }
+
+    // [User Photo Row Function]
+    // EFFECTS:  returns the row of the photo of tag <tag>, or NO_ROW if the tag names no
+    //           user or photo in the snapshot or repeats the tag before it
+    private int userPhotoRow(int tag) {
+        long[] tagPhotos = snapshot.tagPhotos;
+        int[] tagUsers = snapshot.tagUsers;
+        if (tagUsers[tag] == FakebookSnapshot.NO_ROW
+                || (tag > 0 && tagPhotos[tag] == tagPhotos[tag - 1] && tagUsers[tag] == tagUsers[tag - 1])) {
+            return FakebookSnapshot.NO_ROW;
+        }
+        return snapshot.photoRow(tagPhotos[tag]);
+    }
+
+    // [Age Function]
+    // EFFECTS:  returns the oldest and youngest friends of the user in <row>, or an error
+    //           AgeInfo if <row> is NO_ROW or the user has no friends
+    private AgeInfo ageInfo(int row) {
+        FakebookFriendGraph friends = snapshot.friends;
+        if (row == FakebookSnapshot.NO_ROW || friends.degree(row) == 0) {
+            return new AgeInfo(new UserInfo(-1, "ERROR", "ERROR"), new UserInfo(-1, "ERROR", "ERROR"));
+        }
+
+        int oldest = -1;
+        int youngest = -1;
+        int[] neighbours = friends.neighbours();
+        for (int idx = friends.firstNeighbour(row); idx < friends.endNeighbour(row); idx++) {
+            int friend = neighbours[idx];
+            // Friend lists are in ascending ID order, so a later friend wins every tie
+            if (oldest == -1 || birthRanks[friend] <= birthRanks[oldest]) {
+                oldest = friend;
+            }
+            if (youngest == -1 || birthRanks[friend] >= birthRanks[youngest]) {
+                youngest = friend;
+            }
+        }
+        return new AgeInfo(snapshot.userInfo(oldest), snapshot.userInfo(youngest));
+    }
+
+    // [Birth Date Ranking Function]
+    // EFFECTS:  returns the rank of each user row's birth date among all users' birth
+    //           dates: earlier dates rank lower, and equal dates share a rank
+    private int[] rankBirthDates() {
+        Integer[] order = new Integer[snapshot.userCount()];
+        for (int row = 0; row < order.length; row++) {
+            order[row] = row;
+        }
+        Arrays.sort(order, this::compareBirthDates);
+
+        int[] ranks = new int[order.length];
+        int rank = 0;
+        for (int idx = 0; idx < order.length; idx++) {
+            if (idx > 0 && compareBirthDates(order[idx - 1], order[idx]) != 0) {
+                rank++;
+            }
+            ranks[order[idx]] = rank;
+        }
+        return ranks;
+    }
+
+    // [Birth Date Comparison Function]
+    // EFFECTS:  returns a negative number if the user in <row1> was born before the user in
+    //           <row2>, a positive number if after, and zero if the dates are equal
+    private int compareBirthDates(int row1, int row2) {
+        int cmp = Long.compare(dateKey(snapshot.birthYears[row1]), dateKey(snapshot.birthYears[row2]));
+        if (cmp == 0) {
+            cmp = Long.compare(dateKey(snapshot.birthMonths[row1]), dateKey(snapshot.birthMonths[row2]));
+        }
+        if (cmp == 0) {
+            cmp = Long.compare(dateKey(snapshot.birthDays[row1]), dateKey(snapshot.birthDays[row2]));
+        }
+        return cmp;
+    }
+
+    // [Date Key Function]
+    // EFFECTS:  maps NULL_INT above every other date part
+    private static long dateKey(int part) {
+        return part == FakebookSnapshot.NULL_INT ? Long.MAX_VALUE : part;
+    }
+
+    // Member Variables
+    private final FakebookSnapshot snapshot;
+    private final FakebookBitmapIndex bitmaps;
+    private final FakebookPairCounter pairCounter;
+    private final int[] birthRanks;
+    private final FakebookSiblingJoin siblingJoin;
+    private final int[] userPhotoOffsets;
+    private final int[] userPhotos;
+}
@@ -0,0 +1,124 @@
+package project2;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+/*
+    The IncrementalFakebookOracle class is derived from the FakebookOracle class and answers
+    Queries 0, 1 and 7 from FakebookAggregates maintained as rows change, in time
+    proportional to the size of each result, and passes every other query to another
+    FakebookOracle. Changes made to the tables must also be made to the aggregates (see
+    getAggregates) for the two to agree.
+*/
+public final class IncrementalFakebookOracle extends FakebookOracle {
+    // [Constructor]
+    // REQUIRES: neither <oracle> nor <aggregates> is NULL, and <aggregates> hold the same
+    //           rows as the tables <oracle> queries
+    public IncrementalFakebookOracle(FakebookOracle oracle, FakebookAggregates aggregates) {
+        this.oracle = oracle;
+        this.aggregates = aggregates;
+    }
+
+    // [Aggregates Accessor]
+    public FakebookAggregates getAggregates() {
+        return aggregates;
+    }
+
+    @Override
+    // Query 0
+    public BirthMonthInfo findMonthOfBirthInfo() throws SQLException {
+        return aggregates.birthMonthInfo();
+    }
+
+    @Override
+    // Query 1
+    public FirstNameInfo findNameInfo() throws SQLException {
+        return aggregates.nameInfo();
+    }
+
+    @Override
+    // Query 2
+    public FakebookArrayList<UserInfo> lonelyUsers() throws SQLException {
+        return oracle.lonelyUsers();
+    }
+
+    @Override
+    // Query 2 (Streaming)
+    public <E extends Exception> void lonelyUsers(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        oracle.lonelyUsers(consumer);
+    }
+
+    @Override
+    // Query 3
+    public FakebookArrayList<UserInfo> liveAwayFromHome() throws SQLException {
+        return oracle.liveAwayFromHome();
+    }
+
+    @Override
+    // Query 3 (Streaming)
+    public <E extends Exception> void liveAwayFromHome(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        oracle.liveAwayFromHome(consumer);
+    }
+
+    @Override
+    // Query 4
+    public FakebookArrayList<TaggedPhotoInfo> findPhotosWithMostTags(int num) throws SQLException {
+        return oracle.findPhotosWithMostTags(num);
+    }
+
+    @Override
+    // Query 5
+    public FakebookArrayList<MatchPair> matchMaker(int num, int yearDiff) throws SQLException {
+        return oracle.matchMaker(num, yearDiff);
+    }
+
+    @Override
+    // Query 5 (Streaming)
+    public <E extends Exception> void matchMaker(int num, int yearDiff, FakebookConsumer<? super MatchPair, E> consumer)
+            throws SQLException, E {
+        oracle.matchMaker(num, yearDiff, consumer);
+    }
+
+    @Override
+    // Query 6
+    public FakebookArrayList<UsersPair> suggestFriends(int num) throws SQLException {
+        return oracle.suggestFriends(num);
+    }
+
+    @Override
+    // Query 7
+    public EventStateInfo findEventStates() throws SQLException {
+        return aggregates.eventStates();
+    }
+
+    @Override
+    // Query 8
+    public AgeInfo findAgeInfo(long userID) throws SQLException {
+        return oracle.findAgeInfo(userID);
+    }
+
+    @Override
+    // Query 8 (Batch)
+    public Map<Long, AgeInfo> findAgeInfo(long[] userIDs) throws SQLException {
+        return oracle.findAgeInfo(userIDs);
+    }
+
+    @Override
+    // Query 9
+    public FakebookArrayList<SiblingInfo> findPotentialSiblings() throws SQLException {
+        return oracle.findPotentialSiblings();
+    }
+
+    @Override
+    // Query 9 (Streaming)
+    public <E extends Exception> void findPotentialSiblings(FakebookConsumer<? super SiblingInfo, E> consumer)
+            throws SQLException, E {
+        oracle.findPotentialSiblings(consumer);
+    }
+
+    // Member Variables
+    private final FakebookOracle oracle;
+    private final FakebookAggregates aggregates;
+}
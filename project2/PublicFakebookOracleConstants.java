@@ -30,8 +30,17 @@ final class FakebookOracleConstants {
 
     // Result Set Constants Renamed
     public static final int AllScroll = ResultSet.TYPE_SCROLL_INSENSITIVE;
+    public static final int ForwardOnly = ResultSet.TYPE_FORWARD_ONLY;
     public static final int ReadOnly = ResultSet.CONCUR_READ_ONLY;
 
+    // Streaming Constants
+    public static final int StreamingFetchSize = 1000;
+
+    // Default Query Parameters
+    public static final int DefaultNum = 5;
+    public static final int DefaultYearDiff = 2;
+    public static final long DefaultUserID = 215L;
+
     // [Constructor]
     // EFFECTS: throws an AssertionError
     private FakebookOracleConstants() {
@@ -3,11 +3,12 @@ package project2;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -20,7 +21,33 @@ public final class StudentFakebookOracle extends FakebookOracle {
     // [Constructor]
     // REQUIRES: <connection> is a valid JDBC connection
     public StudentFakebookOracle(Connection connection) {
-        oracle = connection;
+        this(new FakebookConnectionPool(connection));
+    }
+
+    // [Constructor]
+    // REQUIRES: <pool> lends out valid JDBC connections
+    // EFFECTS:  creates an oracle that borrows a connection from <pool> for each query, so
+    //           that it can be shared by threads running queries concurrently
+    public StudentFakebookOracle(FakebookConnectionPool pool) {
+        this(pool, null);
+    }
+
+    // [Constructor]
+    // REQUIRES: <pool> lends out valid JDBC connections, and <friendIndex> is NULL or was
+    //           built from the friendships in the database
+    // EFFECTS:  creates an oracle as above that, if <friendIndex> is not NULL, answers the
+    //           friendship parts of Queries 2, 6, 8 and 9 from the index instead of joining
+    //           Public_Friends
+    public StudentFakebookOracle(FakebookConnectionPool pool, FakebookFriendIndex friendIndex) {
+        this.pool = pool;
+        this.friendIndex = friendIndex;
+    }
+
+    // [Connection Pool Accessor]
+    // EFFECTS:  returns the pool this oracle borrows connections from, whose statement
+    //           counters show how often a query text was reused rather than re-parsed
+    public FakebookConnectionPool getConnectionPool() {
+        return pool;
     }
 
     @Override
@@ -38,65 +65,58 @@ public final class StudentFakebookOracle extends FakebookOracle {
     // mechanisms for opening up a statement, executing a query, walking through results, extracting
     // data, and more things that you will need to do for the remaining nine queries
     public BirthMonthInfo findMonthOfBirthInfo() throws SQLException {
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll,
-                FakebookOracleConstants.ReadOnly)) {
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            FakebookStatementCache statements = lease.statements();
             // Step 1
             // ------------
-            // * Find the total number of users with birth month info
-            // * Find the month in which the most users were born
-            // * Find the month in which the fewest (but at least 1) users were born
-            ResultSet rst = stmt.executeQuery(
-                    "SELECT COUNT(*) AS Birthed, Month_of_Birth " + // select birth months and number of uses with that birth month
+            // * Count the users born in each month, along with the total number of users with
+            //   birth month info and the months in which the most and the fewest (but at least
+            //   1) users were born, which are the same on every row
+            // * Keep only the users born in those two months, so that the counts and the names
+            //   arrive together in a single round trip
+            PreparedStatement stmt = statements.prepare(
+                    "WITH Months AS ( " +
+                            "SELECT Month_of_Birth, " + // select birth months
+                            "SUM(COUNT(*)) OVER () AS Total, " + // and the number of users with any birth month
+                            "FIRST_VALUE(Month_of_Birth) OVER (ORDER BY COUNT(*) DESC, Month_of_Birth ASC) AS Most, " + // the most popular month; break ties by the earliest
+                            "FIRST_VALUE(Month_of_Birth) OVER (ORDER BY COUNT(*) ASC, Month_of_Birth DESC) AS Least " + // the least popular month; break ties by the latest
                             "FROM " + UsersTable + " " + // from all users
                             "WHERE Month_of_Birth IS NOT NULL " + // for which a birth month is available
-                            "GROUP BY Month_of_Birth " + // group into buckets by birth month
-                            "ORDER BY Birthed DESC, Month_of_Birth ASC"); // sort by users born in that month, descending; break ties by birth month
-
-            int mostMonth = 0;
-            int leastMonth = 0;
-            int total = 0;
-            while (rst.next()) { // step through result rows/records one by one
-                if (rst.isFirst()) { // if first record
-                    mostMonth = rst.getInt(2); //   it is the month with the most
-                }
-                if (rst.isLast()) { // if last record
-                    leastMonth = rst.getInt(2); //   it is the month with the least
-                }
-                total += rst.getInt(1); // get the first field's value as an integer
-            }
-            BirthMonthInfo info = new BirthMonthInfo(total, mostMonth, leastMonth);
+                            "GROUP BY Month_of_Birth) " + // group into buckets by birth month
+                    "SELECT M.Total, M.Most, M.Least, M.Month_of_Birth, U.User_ID, U.First_Name, U.Last_Name " +
+                    "FROM Months M " +
+                    "JOIN " + UsersTable + " U ON U.Month_of_Birth = M.Month_of_Birth " + // the users born in each month
+                    "WHERE M.Month_of_Birth IN (M.Most, M.Least) " + // that is the most or the least popular
+                    "ORDER BY U.User_ID"); // sort smaller IDs first
+            stmt.setFetchSize(FakebookOracleConstants.StreamingFetchSize);
+            ResultSet rst = stmt.executeQuery();
 
             // Step 2
             // ------------
-            // * Get the names of users born in the most popular birth month
-            rst = stmt.executeQuery(
-                    "SELECT User_ID, First_Name, Last_Name " + // select ID, first name, and last name
-                            "FROM " + UsersTable + " " + // from all users
-                            "WHERE Month_of_Birth = " + mostMonth + " " + // born in the most popular birth month
-                            "ORDER BY User_ID"); // sort smaller IDs first
-
-            while (rst.next()) {
-                info.addMostPopularBirthMonthUser(new UserInfo(rst.getLong(1), rst.getString(2), rst.getString(3)));
+            // * File each user under the month (or both months) it was born in
+            BirthMonthInfo info = null;
+            FakebookUserStore users = new FakebookUserStore(); // both months' users share one name dictionary
+            while (FakebookStatementCache.next(rst)) { // step through result rows/records one by one
+                if (info == null) { // if first record
+                    info = new BirthMonthInfo(rst.getInt(1), rst.getInt(2), rst.getInt(3)); // every record carries the totals
+                }
+                int month = rst.getInt(4);
+                UserInfo user = users.read(rst, 5);
+                if (month == rst.getInt(2)) {
+                    info.addMostPopularBirthMonthUser(user);
+                }
+                if (month == rst.getInt(3)) {
+                    info.addLeastPopularBirthMonthUser(user);
+                }
             }
 
             // Step 3
             // ------------
-            // * Get the names of users born in the least popular birth month
-            rst = stmt.executeQuery(
-                    "SELECT User_ID, First_Name, Last_Name " + // select ID, first name, and last name
-                            "FROM " + UsersTable + " " + // from all users
-                            "WHERE Month_of_Birth = " + leastMonth + " " + // born in the least popular birth month
-                            "ORDER BY User_ID"); // sort smaller IDs first
-
-            while (rst.next()) {
-                info.addLeastPopularBirthMonthUser(new UserInfo(rst.getLong(1), rst.getString(2), rst.getString(3)));
-            }
-
-            // Step 4
-            // ------------
             // * Close resources being used
-            rst.close();
-            stmt.close(); // if you close the statement first, the result set gets closed automatically
+            rst.close(); // the statement stays open in the statement cache for the next call
+            if (info == null) { // no user has a birth month
+                info = new BirthMonthInfo(0, 0, 0);
+            }
 
             return info;
 
@@ -114,8 +134,8 @@ public final class StudentFakebookOracle extends FakebookOracle {
     //        (C) The first name held by the most users
     //        (D) The number of users whose first name is that identified in (C)
     public FirstNameInfo findNameInfo() throws SQLException {
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll,
-                FakebookOracleConstants.ReadOnly)) {
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            FakebookStatementCache statements = lease.statements();
             /*
                 EXAMPLE DATA STRUCTURE USAGE
                 ============================================
@@ -132,68 +152,43 @@ public final class StudentFakebookOracle extends FakebookOracle {
             */
         
 
-            ResultSet rst = stmt.executeQuery(
-                "SELECT DISTINCT LENGTH(First_Name) AS flen, First_Name " + 
-                "FROM " + UsersTable + " " +
-                "ORDER BY flen DESC, First_Name ASC");
-
-            FirstNameInfo info = new FirstNameInfo();
-
-            int mostLetters = 0;
-            int leastLetters = 0;
-            
-            
-            if (rst.next()) { // if first record
-                mostLetters = rst.getInt(1); //   it is the month with the most
-            }
-            rst.afterLast();
-            if (rst.previous()) { // if last record
-                leastLetters = rst.getInt(1); //   it is the month with the least
-            }
-            
-            rst = stmt.executeQuery(
-                "SELECT DISTINCT First_Name " + 
-                "FROM " + UsersTable + " " +
-                "WHERE LENGTH(First_Name) = " + mostLetters + " " +
+            // Count the users holding each first name, and keep only the names that are the
+            // longest, the shortest or the most common; the lengths and count to compare with
+            // are computed over all names by analytic functions, so one round trip suffices
+            PreparedStatement stmt = statements.prepare(
+                "SELECT First_Name, flen, count, maxLen, minLen, maxCount " +
+                "FROM ( " +
+                "    SELECT First_Name, LENGTH(First_Name) AS flen, COUNT(*) AS count, " +
+                "    MAX(LENGTH(First_Name)) OVER () AS maxLen, " +
+                "    MIN(LENGTH(First_Name)) OVER () AS minLen, " +
+                "    MAX(COUNT(*)) OVER () AS maxCount " +
+                "    FROM " + UsersTable + " " +
+                "    WHERE First_Name IS NOT NULL " +
+                "    GROUP BY First_Name " +
+                ") " +
+                "WHERE flen = maxLen OR flen = minLen OR count = maxCount " +
                 "ORDER BY First_Name ASC");
+            stmt.setFetchSize(FakebookOracleConstants.StreamingFetchSize);
+            ResultSet rst = stmt.executeQuery();
 
-            while (rst.next()) {
-                info.addLongName(rst.getString(1));
-            }
-            
-            rst = stmt.executeQuery(
-                "SELECT DISTINCT First_Name " + 
-                "FROM " + UsersTable + " " +
-                "WHERE LENGTH(First_Name) = " + leastLetters + " " +
-                "ORDER BY First_Name ASC");
-
-            while (rst.next()) {
-                info.addShortName(rst.getString(1));
-            }
-
-            
-            rst = stmt.executeQuery(
-                "SELECT First_Name, COUNT(*) AS count " +
-                "FROM " + UsersTable + " " +
-                "GROUP BY First_Name " +
-                "ORDER BY count DESC, First_Name ASC");
-        
-            if (rst.next()) { // The first row has the most common name
-                int maxCount = rst.getInt("count");
-                info.setCommonNameCount(maxCount);
-                String commonName = rst.getString("First_Name");
-                info.addCommonName(commonName);
-    
-                // Check if there are other names with the same count
-                while (rst.next() && rst.getInt("count") == maxCount) {
-                    info.addCommonName(rst.getString("First_Name"));
+            FirstNameInfo info = new FirstNameInfo();
+            while (FakebookStatementCache.next(rst)) {
+                String name = rst.getString(1);
+                int letters = rst.getInt(2);
+                if (letters == rst.getInt(4)) {
+                    info.addLongName(name);
+                }
+                if (letters == rst.getInt(5)) {
+                    info.addShortName(name);
+                }
+                if (rst.getInt(3) == rst.getInt(6)) {
+                    info.addCommonName(name);
+                    info.setCommonNameCount(rst.getInt(6));
                 }
             }
-            
             rst.close();
-            stmt.close();
 
-            return info; // placeholder for compilation
+            return info;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
             return new FirstNameInfo();
@@ -209,19 +204,36 @@ public final class StudentFakebookOracle extends FakebookOracle {
     // the one entry (U1, U2) where U1 < U2.
     public FakebookArrayList<UserInfo> lonelyUsers() throws SQLException {
         FakebookArrayList<UserInfo> results = new FakebookArrayList<UserInfo>(", ");
-        
-
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll, FakebookOracleConstants.ReadOnly)) {
-            /*
+        /*
             EXAMPLE DATA STRUCTURE USAGE
             ============================================
             UserInfo u1 = new UserInfo(15, "Abraham", "Lincoln");
             UserInfo u2 = new UserInfo(39, "Margaret", "Thatcher");
             results.add(u1);
             results.add(u2);
-            */
+        */
+
+        try {
+            lonelyUsers(results::add);
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        }
+
+        return results;
+    }
 
-            ResultSet rst = stmt.executeQuery(
+    @Override
+    // Query 2 (Streaming)
+    // -----------------------------------------------------------------------------------
+    // Passes each lonely user to <consumer> as it is read from a forward-only cursor
+    public <E extends Exception> void lonelyUsers(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        if (friendIndex != null) {
+            lonelyUsersFromIndex(consumer);
+            return;
+        }
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            PreparedStatement stmt = lease.statements().prepare(
                 "SELECT USER_ID, FIRST_NAME, LAST_NAME " +
                    "FROM " + UsersTable + " U " + 
                    "WHERE NOT EXISTS ( " +
@@ -230,26 +242,20 @@ public final class StudentFakebookOracle extends FakebookOracle {
                    "    WHERE U.USER_ID = F.USER1_ID " +
                    "       OR U.USER_ID = F.USER2_ID " +
                    ") " +
-                   "ORDER BY USER_ID");
-            
-            // Iterate through the result set and add users to the results list
-            while (rst.next()) {
-                Long id = rst.getLong(1);
-                String firstName = rst.getString(2);
-                String lastName = rst.getString(3);
-                UserInfo user = new UserInfo(id, firstName, lastName);
-                results.add(user);
+                   "ORDER BY USER_ID", FakebookOracleConstants.ForwardOnly);
+            stmt.setFetchSize(FakebookOracleConstants.StreamingFetchSize);
+
+            // Iterate through the result set and pass each user on
+            try (ResultSet rst = stmt.executeQuery()) {
+                FakebookUserStore users = new FakebookUserStore();
+                while (rst.next()) {
+                    users = users.chunk();
+                    consumer.accept(users.read(rst, 1));
+                }
             }
-            rst.close();
-            stmt.close();
-        } catch (SQLException e) {
-            System.err.println(e.getMessage());
         }
-
-        return results;
     }
 
-
     @Override
     // Query 3
     // -----------------------------------------------------------------------------------
@@ -257,44 +263,50 @@ public final class StudentFakebookOracle extends FakebookOracle {
     //            in their hometown (i.e. their current city and their hometown are different)
     public FakebookArrayList<UserInfo> liveAwayFromHome() throws SQLException {
         FakebookArrayList<UserInfo> results = new FakebookArrayList<UserInfo>(", ");
+        /*
+            EXAMPLE DATA STRUCTURE USAGE
+            ============================================
+            UserInfo u1 = new UserInfo(9, "Meryl", "Streep");
+            UserInfo u2 = new UserInfo(104, "Tom", "Hanks");
+            results.add(u1);
+            results.add(u2);
+        */
 
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll,
-                FakebookOracleConstants.ReadOnly)) {
-            /*
-                EXAMPLE DATA STRUCTURE USAGE
-                ============================================
-                UserInfo u1 = new UserInfo(9, "Meryl", "Streep");
-                UserInfo u2 = new UserInfo(104, "Tom", "Hanks");
-                results.add(u1);
-                results.add(u2);
-            */
+        try {
+            liveAwayFromHome(results::add);
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        }
 
-            ResultSet rst = stmt.executeQuery(
+        return results;
+    }
+
+    @Override
+    // Query 3 (Streaming)
+    // -----------------------------------------------------------------------------------
+    // Passes each user who lives away from home to <consumer> as it is read from a
+    // forward-only cursor
+    public <E extends Exception> void liveAwayFromHome(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            PreparedStatement stmt = lease.statements().prepare(
                 "SELECT U.USER_ID, U.FIRST_NAME, U.LAST_NAME " +
                 "FROM " + UsersTable + " U " +
                 "JOIN " + CurrentCitiesTable + " CC ON U.USER_ID = CC.USER_ID " +
                 "JOIN " + HometownCitiesTable + " HC ON U.USER_ID = HC.USER_ID " +
                 "WHERE CC.CURRENT_CITY_ID != HC.HOMETOWN_CITY_ID " +
-                "ORDER BY U.USER_ID");
+                "ORDER BY U.USER_ID", FakebookOracleConstants.ForwardOnly);
+            stmt.setFetchSize(FakebookOracleConstants.StreamingFetchSize);
 
-            // Iterate through the result set and add users to the results list
-            while (rst.next()) {
-                Long id = rst.getLong("USER_ID");
-                String firstName = rst.getString("FIRST_NAME");
-                String lastName = rst.getString("LAST_NAME");
-                UserInfo user = new UserInfo(id, firstName, lastName);
-                results.add(user);
+            // Iterate through the result set and pass each user on
+            try (ResultSet rst = stmt.executeQuery()) {
+                FakebookUserStore users = new FakebookUserStore();
+                while (rst.next()) {
+                    users = users.chunk();
+                    consumer.accept(users.read(rst, 1));
+                }
             }
-
-            rst.close();
-            stmt.close();
-
-
-        } catch (SQLException e) {
-            System.err.println(e.getMessage());
         }
-
-        return results;
     }
 
     @Override
@@ -307,19 +319,29 @@ public final class StudentFakebookOracle extends FakebookOracle {
     public FakebookArrayList<TaggedPhotoInfo> findPhotosWithMostTags(int num) throws SQLException {
         FakebookArrayList<TaggedPhotoInfo> results = new FakebookArrayList<>("\n");
     
-        // Outer try-with-resources for the outer Statement and ResultSet
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll, FakebookOracleConstants.ReadOnly)) {
+        // Outer try for the borrowed connection; each ResultSet is closed by try-with-resources
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            FakebookStatementCache statements = lease.statements();
+            FakebookBatchLoader loader = new FakebookBatchLoader(statements);
             
-            // Query to fetch the top 'num' photos with the most tags
-            String sql = "SELECT P.PHOTO_ID, P.ALBUM_ID, P.PHOTO_LINK, A.ALBUM_NAME, COUNT(T.TAG_SUBJECT_ID) AS count " +
+            // Query to fetch the top 'num' photos with the most tags; the row limit is applied
+            // to the ordered groups, so the server runs a top-N sort and ships only 'num' rows
+            String sql = "SELECT * FROM ( " +
+                         "SELECT P.PHOTO_ID, P.ALBUM_ID, P.PHOTO_LINK, A.ALBUM_NAME, COUNT(T.TAG_SUBJECT_ID) AS count " +
                          "FROM " + PhotosTable + " P " +
                          "JOIN " + AlbumsTable + " A ON P.ALBUM_ID = A.ALBUM_ID " +
                          "JOIN " + TagsTable + " T ON P.PHOTO_ID = T.TAG_PHOTO_ID " +
                          "GROUP BY P.PHOTO_ID, P.ALBUM_ID, P.PHOTO_LINK, A.ALBUM_NAME " +
-                         "ORDER BY count DESC, P.PHOTO_ID ASC";
+                         "ORDER BY count DESC, P.PHOTO_ID ASC" +
+                         ") WHERE ROWNUM <= ?";
     
-            try (ResultSet topPhotosRs = stmt.executeQuery(sql)) {
-                while (topPhotosRs.next() && num-- > 0) {
+            ArrayList<TaggedPhotoInfo> photos = new ArrayList<>();
+            ArrayList<Long> photoIds = new ArrayList<>();
+            FakebookUserStore users = new FakebookUserStore();
+            PreparedStatement topPhotosStmt = statements.prepare(sql);
+            topPhotosStmt.setInt(1, num);
+            try (ResultSet topPhotosRs = topPhotosStmt.executeQuery()) {
+                while (FakebookStatementCache.next(topPhotosRs)) {
                     // Extract photo information
                     Long photoId = topPhotosRs.getLong("PHOTO_ID");
                     Long albumId = topPhotosRs.getLong("ALBUM_ID");
@@ -328,33 +350,25 @@ public final class StudentFakebookOracle extends FakebookOracle {
     
                     PhotoInfo photoInfo = new PhotoInfo(photoId, albumId, photoLink, albumName);
                     TaggedPhotoInfo taggedPhotoInfo = new TaggedPhotoInfo(photoInfo);
-    
-                    // Inner try-with-resources for the inner Statement and ResultSet
-                    String taggedUsersSql = "SELECT U.USER_ID, U.FIRST_NAME, U.LAST_NAME " +
-                                            "FROM " + UsersTable + " U " +
-                                            "JOIN " + TagsTable + " T ON U.USER_ID = T.TAG_SUBJECT_ID " +
-                                            "WHERE T.TAG_PHOTO_ID = " + photoId + " " +
-                                            "ORDER BY U.USER_ID ASC";
-    
-                    try (Statement stmt2 = oracle.createStatement(FakebookOracleConstants.AllScroll, FakebookOracleConstants.ReadOnly);
-                         ResultSet taggedUsersRs = stmt2.executeQuery(taggedUsersSql)) {
-    
-                        // Iterate through the tagged users and add to the taggedPhotoInfo
-                        while (taggedUsersRs.next()) {
-                            Long userId = taggedUsersRs.getLong("USER_ID");
-                            String firstName = taggedUsersRs.getString("FIRST_NAME");
-                            String lastName = taggedUsersRs.getString("LAST_NAME");
-    
-                            UserInfo userInfo = new UserInfo(userId, firstName, lastName);
-                            taggedPhotoInfo.addTaggedUser(userInfo);
-                        }
-                    } catch (SQLException e) {
-                        System.err.println("Error executing query for tagged users: " + e.getMessage());
-                    }
-    
+                    photos.add(taggedPhotoInfo);
+                    photoIds.add(photoId);
                     results.add(taggedPhotoInfo);
                 }
             }
+
+            // Fetch the tagged users of all the photos at once and file them under their photo
+            try {
+                loader.load(
+                    "SELECT T.TAG_PHOTO_ID, U.USER_ID, U.FIRST_NAME, U.LAST_NAME " +
+                    "FROM " + UsersTable + " U " +
+                    "JOIN " + TagsTable + " T ON U.USER_ID = T.TAG_SUBJECT_ID " +
+                    "WHERE %s " +
+                    "ORDER BY T.TAG_PHOTO_ID ASC, U.USER_ID ASC",
+                    new String[] { "T.TAG_PHOTO_ID" }, FakebookBatchLoader.keys(photoIds),
+                    (index, taggedUsersRs) -> photos.get(index).addTaggedUser(users.read(taggedUsersRs, 2)));
+            } catch (SQLException e) {
+                System.err.println("Error executing query for tagged users: " + e.getMessage());
+            }
         } catch (SQLException e) {
             System.err.println("Error executing query for top photos: " + e.getMessage());
         }
@@ -378,11 +392,31 @@ public final class StudentFakebookOracle extends FakebookOracle {
     public FakebookArrayList<MatchPair> matchMaker(int num, int yearDiff) throws SQLException {
         FakebookArrayList<MatchPair> results = new FakebookArrayList<>("\n");
     
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll,
-                FakebookOracleConstants.ReadOnly)) {
+        try {
+            matchMaker(num, yearDiff, results::add);
+        } catch (SQLException e) {
+            System.err.println("Error executing query: " + e.getMessage());
+        }
+    
+        return results;
+    }
+
+    @Override
+    // Query 5 (Streaming)
+    // -----------------------------------------------------------------------------------
+    // Reads the ranked pairs from a forward-only cursor and passes them to <consumer> in
+    // chunks of FakebookBatchLoader.ChunkSize, fetching each chunk's shared photos in one
+    // round trip, so that at most one chunk of pairs is held in memory at a time
+    public <E extends Exception> void matchMaker(int num, int yearDiff, FakebookConsumer<? super MatchPair, E> consumer)
+            throws SQLException, E {
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            FakebookStatementCache statements = lease.statements();
+            FakebookBatchLoader loader = new FakebookBatchLoader(statements);
             
-            // Query to find potential pairs of users who meet the criteria
+            // Query to find the top 'num' pairs of users who meet the criteria; the row limit is
+            // applied to the ordered groups, so only 'num' pairs are sorted and shipped
             String potentialPairsQuery = 
+                "SELECT * FROM ( " +
                 "SELECT U1.USER_ID AS USER1_ID, U1.FIRST_NAME AS USER1_FIRST, U1.LAST_NAME AS USER1_LAST, " +
                 "U1.YEAR_OF_BIRTH AS USER1_BIRTH_YEAR, U2.USER_ID AS USER2_ID, U2.FIRST_NAME AS USER2_FIRST, " +
                 "U2.LAST_NAME AS USER2_LAST, U2.YEAR_OF_BIRTH AS USER2_BIRTH_YEAR, " +
@@ -393,64 +427,71 @@ public final class StudentFakebookOracle extends FakebookOracle {
                 "JOIN " + TagsTable + " T2 ON U2.USER_ID = T2.TAG_SUBJECT_ID AND T1.TAG_PHOTO_ID = T2.TAG_PHOTO_ID " +
                 "LEFT JOIN " + FriendsTable + " F ON (U1.USER_ID = F.USER1_ID AND U2.USER_ID = F.USER2_ID) " +
                 "WHERE F.USER1_ID IS NULL AND F.USER2_ID IS NULL " +
-                "AND ABS(U1.YEAR_OF_BIRTH - U2.YEAR_OF_BIRTH) <= " + yearDiff + " " +
+                "AND ABS(U1.YEAR_OF_BIRTH - U2.YEAR_OF_BIRTH) <= ? " +
                 "GROUP BY U1.USER_ID, U1.FIRST_NAME, U1.LAST_NAME, U1.YEAR_OF_BIRTH, " +
                 "U2.USER_ID, U2.FIRST_NAME, U2.LAST_NAME, U2.YEAR_OF_BIRTH " +
                 "HAVING COUNT(DISTINCT T1.TAG_PHOTO_ID) > 0 " +
-                "ORDER BY COMMON_PHOTOS_COUNT DESC, U1.USER_ID ASC, U2.USER_ID ASC ";
-    
-            try (ResultSet pairsRs = stmt.executeQuery(potentialPairsQuery);
-                 Statement stmt2 = oracle.createStatement(FakebookOracleConstants.AllScroll, FakebookOracleConstants.ReadOnly)) {
+                "ORDER BY COMMON_PHOTOS_COUNT DESC, U1.USER_ID ASC, U2.USER_ID ASC" +
+                ") WHERE ROWNUM <= ?";
     
-                int count = 0;
-                
-                while (pairsRs.next() && count < num) {
+            ArrayList<MatchPair> pairs = new ArrayList<>();
+            ArrayList<long[]> pairIds = new ArrayList<>();
+            FakebookUserStore users = new FakebookUserStore();
+            PreparedStatement pairsStmt = statements.prepare(potentialPairsQuery, FakebookOracleConstants.ForwardOnly);
+            pairsStmt.setInt(1, yearDiff);
+            pairsStmt.setInt(2, num);
+            pairsStmt.setFetchSize(Math.max(1, Math.min(num, FakebookOracleConstants.StreamingFetchSize)));
+            try (ResultSet pairsRs = pairsStmt.executeQuery()) {
+                while (pairsRs.next()) {
                     // Retrieve user details inside the while loop
                     long user1Id = pairsRs.getLong("USER1_ID");
                     String user1FirstName = pairsRs.getString("USER1_FIRST");
                     String user1LastName = pairsRs.getString("USER1_LAST");
                     int user1BirthYear = pairsRs.getInt("USER1_BIRTH_YEAR");
-                    UserInfo user1 = new UserInfo(user1Id, user1FirstName, user1LastName);
+                    UserInfo user1 = users.userInfo(users.add(user1Id, user1FirstName, user1LastName));
     
                     long user2Id = pairsRs.getLong("USER2_ID");
                     String user2FirstName = pairsRs.getString("USER2_FIRST");
                     String user2LastName = pairsRs.getString("USER2_LAST");
                     int user2BirthYear = pairsRs.getInt("USER2_BIRTH_YEAR");
-                    UserInfo user2 = new UserInfo(user2Id, user2FirstName, user2LastName);
+                    UserInfo user2 = users.userInfo(users.add(user2Id, user2FirstName, user2LastName));
     
                     MatchPair matchPair = new MatchPair(user1, user1BirthYear, user2, user2BirthYear);
-    
-                    // Query to get the photos in which both users are tagged together
-                    String commonPhotosQuery = 
-                        "SELECT P.PHOTO_ID, P.PHOTO_LINK, P.ALBUM_ID, A.ALBUM_NAME " +
-                        "FROM " + PhotosTable + " P " +
-                        "JOIN " + TagsTable + " T1 ON P.PHOTO_ID = T1.TAG_PHOTO_ID " +
-                        "JOIN " + TagsTable + " T2 ON P.PHOTO_ID = T2.TAG_PHOTO_ID " +
-                        "JOIN " + AlbumsTable + " A ON P.ALBUM_ID = A.ALBUM_ID " +
-                        "WHERE T1.TAG_SUBJECT_ID = " + user1Id + " AND T2.TAG_SUBJECT_ID = " + user2Id + " " +
-                        "ORDER BY P.PHOTO_ID ASC";
-    
-                    try (ResultSet photosRs = stmt2.executeQuery(commonPhotosQuery)) {
-                        // Iterate through the common photos and add to the matchPair
-                        while (photosRs.next()) {
-                            long photoId = photosRs.getLong("PHOTO_ID");
-                            String photoLink = photosRs.getString("PHOTO_LINK");
-                            long albumId = photosRs.getLong("ALBUM_ID");
-                            String albumName = photosRs.getString("ALBUM_NAME");
-                            PhotoInfo photoInfo = new PhotoInfo(photoId, albumId, photoLink, albumName);
-                            matchPair.addSharedPhoto(photoInfo);
-                        }
+                    pairs.add(matchPair);
+                    pairIds.add(new long[] { user1Id, user2Id });
+
+                    if (pairs.size() == FakebookBatchLoader.ChunkSize) {
+                        passSharedPhotos(loader, pairs, pairIds, consumer);
                     }
-    
-                    results.add(matchPair);
-                    count++;
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error executing query: " + e.getMessage());
+            passSharedPhotos(loader, pairs, pairIds, consumer);
         }
-    
-        return results;
+    }
+
+    // [Shared Photo Loader]
+    // MODIFIES: <pairs>, <pairIds>
+    // EFFECTS:  fetches the photos in which each of <pairs> is tagged together in one round
+    //           trip, passes the completed pairs to <consumer>, and empties both lists
+    private <E extends Exception> void passSharedPhotos(FakebookBatchLoader loader, ArrayList<MatchPair> pairs,
+            ArrayList<long[]> pairIds, FakebookConsumer<? super MatchPair, E> consumer) throws SQLException, E {
+        loader.load(
+            "SELECT T1.TAG_SUBJECT_ID, T2.TAG_SUBJECT_ID, P.PHOTO_ID, P.PHOTO_LINK, P.ALBUM_ID, A.ALBUM_NAME " +
+            "FROM " + PhotosTable + " P " +
+            "JOIN " + TagsTable + " T1 ON P.PHOTO_ID = T1.TAG_PHOTO_ID " +
+            "JOIN " + TagsTable + " T2 ON P.PHOTO_ID = T2.TAG_PHOTO_ID " +
+            "JOIN " + AlbumsTable + " A ON P.ALBUM_ID = A.ALBUM_ID " +
+            "WHERE %s " +
+            "ORDER BY T1.TAG_SUBJECT_ID ASC, T2.TAG_SUBJECT_ID ASC, P.PHOTO_ID ASC",
+            new String[] { "T1.TAG_SUBJECT_ID", "T2.TAG_SUBJECT_ID" }, pairIds,
+            (index, photosRs) -> pairs.get(index).addSharedPhoto(new PhotoInfo(
+                    photosRs.getLong(3), photosRs.getLong(5), photosRs.getString(4), photosRs.getString(6))));
+
+        for (MatchPair pair : pairs) {
+            consumer.accept(pair);
+        }
+        pairs.clear();
+        pairIds.clear();
     }
 
     @Override
@@ -463,8 +504,18 @@ public final class StudentFakebookOracle extends FakebookOracle {
     //            of all the two users' common friends
     public FakebookArrayList<UsersPair> suggestFriends(int num) throws SQLException {
         FakebookArrayList<UsersPair> results = new FakebookArrayList<UsersPair>("\n");
+        if (friendIndex != null) {
+            try {
+                suggestFriendsFromIndex(num, results);
+            } catch (SQLException e) {
+                System.err.println("Error executing query: " + e.getMessage());
+            }
+            return results;
+        }
 
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll, FakebookOracleConstants.ReadOnly)) {
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            FakebookStatementCache statements = lease.statements();
+            FakebookBatchLoader loader = new FakebookBatchLoader(statements);
             /*
                 EXAMPLE DATA STRUCTURE USAGE
                 ============================================
@@ -475,105 +526,72 @@ public final class StudentFakebookOracle extends FakebookOracle {
                 up.addSharedFriend(u3);
                 results.add(up);
             */
-            
-            long startTime = System.currentTimeMillis();
-            // Create or replace a bidirectional friendship view to simplify querying mutual friends
-            stmt.executeUpdate(
-                "CREATE OR REPLACE VIEW BidirectionalFriends AS " +
-                "SELECT USER1_ID AS USER_ID1, USER2_ID AS USER_ID2 FROM " + FriendsTable + " " +
-                "UNION " +
-                "SELECT USER2_ID AS USER_ID1, USER1_ID AS USER_ID2 FROM " + FriendsTable
-            );
-            long endTime = System.currentTimeMillis();
-            long elapsedTime = endTime - startTime;
-            System.out.println("1. Elapsed time in milliseconds: " + elapsedTime);
-
-            // Find pairs of users who have mutual friends but are not friends themselves
-            startTime = System.currentTimeMillis();
-            stmt.executeUpdate( 
-                "CREATE OR REPLACE VIEW mutualFriends AS " + 
-                "SELECT BF1.USER_ID1 AS USER1_ID, BF2.USER_ID1 AS USER2_ID, BF1.USER_ID2 AS MF_ID " +
-                "FROM BidirectionalFriends BF1, BidirectionalFriends BF2 " +
-                "WHERE BF1.USER_ID1 != BF2.USER_ID1 AND BF1.USER_ID2 = BF2.USER_ID2 " +
-                "AND BF1.USER_ID1 < BF2.USER_ID1 " +
-                "AND BF1.USER_ID1 NOT IN (SELECT USER1_ID FROM " + FriendsTable + " WHERE USER2_ID = BF2.USER_ID1) "
-            );
-            endTime = System.currentTimeMillis();
-            elapsedTime = endTime - startTime;
-            System.out.println("2. Elapsed time in milliseconds: " + elapsedTime);
 
-            
-            startTime = System.currentTimeMillis();
-            stmt.executeUpdate(
-                "CREATE OR REPLACE VIEW mutualFriendsCount AS " +
+            // Find pairs of users who have mutual friends but are not friends themselves, rank
+            // them by their number of mutual friends and keep the top 'num'; the row limit is
+            // applied to the ordered groups, so ties are broken by the user IDs rather than by
+            // whichever rows the server happens to produce first. The friendships are read
+            // through inline views, so nothing is created that another session could drop
+            PreparedStatement topPairsStmt = statements.prepare(
+                "WITH MutualFriends AS ( " +
+                "    SELECT BF1.USER_ID1 AS USER1_ID, BF2.USER_ID1 AS USER2_ID, BF1.USER_ID2 AS MF_ID " +
+                "    FROM " + BidirectionalFriends + " BF1, " + BidirectionalFriends + " BF2 " +
+                "    WHERE BF1.USER_ID2 = BF2.USER_ID2 AND BF1.USER_ID1 < BF2.USER_ID1 " +
+                "    AND NOT EXISTS (SELECT 1 FROM " + FriendsTable + " F " +
+                "                    WHERE F.USER1_ID = BF1.USER_ID1 AND F.USER2_ID = BF2.USER_ID1) " +
+                ") " +
+                "SELECT USER1_ID, USER2_ID FROM ( " +
                 "SELECT USER1_ID, USER2_ID, COUNT(*) AS countMutual " +
-                "FROM mutualFriends " +
+                "FROM MutualFriends " +
                 "GROUP BY USER1_ID, USER2_ID " +
-                "ORDER BY countMutual DESC, USER1_ID ASC, USER2_ID ASC" 
+                "ORDER BY countMutual DESC, USER1_ID ASC, USER2_ID ASC" +
+                ") WHERE ROWNUM <= ?"
             );
-            endTime = System.currentTimeMillis();
-            elapsedTime = endTime - startTime;
-            System.out.println("3. Elapsed time in milliseconds: " + elapsedTime);
-            
-            startTime = System.currentTimeMillis();
-            ResultSet rst = stmt.executeQuery(
-                "SELECT DISTINCT USER1_ID, USER2_ID " +
-                "FROM MutualFriendsCount " +
-                "WHERE ROWNUM <= " + num + " " +
-                "ORDER BY USER1_ID ASC, USER2_ID ASC"
-            );
-            endTime = System.currentTimeMillis();
-            elapsedTime = endTime - startTime;
-            System.out.println("4. Elapsed time in milliseconds: " + elapsedTime);
-
+            topPairsStmt.setInt(1, num);
+            ResultSet rst = topPairsStmt.executeQuery();
 
             ArrayList<Long> user1List = new ArrayList<>();
             ArrayList<Long> user2List = new ArrayList<>();
 
-            while (rst.next()) {
+            while (FakebookStatementCache.next(rst)) {
                 user1List.add(rst.getLong("USER1_ID"));
                 user2List.add(rst.getLong("USER2_ID"));
             }
+            rst.close();
 
-
-            // Fetch mutual friends for each pair
-            for (int i = 0; i < num; i++) {
-
-                // create a new pair 
-                Long user1Id = user1List.get(i);
-                Long user2Id = user2List.get(i);
-                rst = stmt.executeQuery(
-                    "SELECT U1.FIRST_NAME, U1.LAST_NAME, U2.FIRST_NAME, U2.LAST_NAME " +
-                    "FROM " + UsersTable + " U1, " + UsersTable + " U2 " +
-                    "WHERE U1.USER_ID = " + user1Id + " AND U2.USER_ID = " + user2Id
-                );
-                
-                rst.next();
-                UserInfo user1 = new UserInfo(user1Id, rst.getString(1), rst.getString(2));
-                UserInfo user2 = new UserInfo(user2Id, rst.getString(3), rst.getString(4));
+            // Fetch the names of every user in the pairs at once
+            ArrayList<Long> userIds = new ArrayList<>(user1List);
+            userIds.addAll(user2List);
+            HashMap<Long, UserInfo> users = new HashMap<>();
+            FakebookUserStore store = new FakebookUserStore();
+            loader.load(
+                "SELECT U.USER_ID, U.FIRST_NAME, U.LAST_NAME " +
+                "FROM " + UsersTable + " U " +
+                "WHERE %s",
+                new String[] { "U.USER_ID" }, FakebookBatchLoader.keys(userIds),
+                (index, namesRs) -> users.put(namesRs.getLong(1), store.read(namesRs, 1)));
+
+            // Create the pairs in the order they were ranked
+            ArrayList<UsersPair> pairs = new ArrayList<>();
+            ArrayList<long[]> pairIds = new ArrayList<>();
+            for (int i = 0; i < user1List.size(); i++) {
+                UserInfo user1 = users.get(user1List.get(i));
+                UserInfo user2 = users.get(user2List.get(i));
                 UsersPair pair = new UsersPair(user1, user2);
-
-                rst = stmt.executeQuery(
-                    "SELECT U.FIRST_NAME AS FIRST_NAME, U.LAST_NAME AS LAST_NAME, MF.MF_ID AS MF_ID " +
-                    "FROM " + UsersTable + " U, mutualFriends MF " +  
-                    "WHERE MF.USER1_ID = " + user1Id + " AND MF.USER2_ID = " + user2Id + " AND U.USER_ID = MF.MF_ID " +
-                    "ORDER BY MF_ID ASC"
-                );
-
-                while (rst.next()) {
-                    Long mutualFriendId = rst.getLong("MF_ID");
-                    UserInfo mutualFriend = new UserInfo(mutualFriendId, rst.getString("FIRST_NAME"), rst.getString("LAST_NAME"));
-                    pair.addSharedFriend(mutualFriend);
-                    
-                }
-
+                pairs.add(pair);
+                pairIds.add(new long[] { user1List.get(i), user2List.get(i) });
                 results.add(pair);
-                rst.close();
             }
 
-            stmt.executeUpdate("DROP VIEW BidirectionalFriends");
-            stmt.executeUpdate("DROP VIEW mutualFriends");
-            stmt.close();
+            // Fetch the mutual friends of all the pairs at once; the pairs are known not to be
+            // friends, so their mutual friends are just the friends they have in common
+            loader.load(
+                "SELECT BF1.USER_ID1, BF2.USER_ID1, U.USER_ID, U.FIRST_NAME, U.LAST_NAME " +
+                "FROM " + BidirectionalFriends + " BF1, " + BidirectionalFriends + " BF2, " + UsersTable + " U " +
+                "WHERE %s AND BF1.USER_ID2 = BF2.USER_ID2 AND U.USER_ID = BF1.USER_ID2 " +
+                "ORDER BY BF1.USER_ID1 ASC, BF2.USER_ID1 ASC, U.USER_ID ASC",
+                new String[] { "BF1.USER_ID1", "BF2.USER_ID1" }, pairIds,
+                (index, sharedRs) -> pairs.get(index).addSharedFriend(store.read(sharedRs, 3)));
 
         } catch (SQLException e) {
             System.err.println("Error executing query: " + e.getMessage());
@@ -588,8 +606,8 @@ public final class StudentFakebookOracle extends FakebookOracle {
     // GOALS: (A) Find the name of the state or states in which the most events are held
     //        (B) Find the number of events held in the states identified in (A)
     public EventStateInfo findEventStates() throws SQLException {
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll,
-                FakebookOracleConstants.ReadOnly)) {
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            FakebookStatementCache statements = lease.statements();
             /*
                 EXAMPLE DATA STRUCTURE USAGE
                 ============================================
@@ -600,33 +618,36 @@ public final class StudentFakebookOracle extends FakebookOracle {
                 return info;
             */
             
-            ResultSet rst = stmt.executeQuery(
-                "SELECT DISTINCT C.STATE_NAME AS STATE_NAME, COUNT(*) AS count " +
-                "FROM " + EventsTable + " E " +
-                "JOIN " + CitiesTable + " C ON E.EVENT_CITY_ID = C.CITY_ID " +
-                "GROUP BY C.STATE_NAME " +
-                "ORDER BY count DESC, C.STATE_NAME ASC"
-            );
-
-            if (rst.next()) {
+            // Rank the states by event count in the same statement, so that only the states
+            // tied for the most events are sent back
+            ResultSet rst = statements.prepare(
+                "SELECT STATE_NAME, count " +
+                "FROM ( " +
+                "    SELECT C.STATE_NAME AS STATE_NAME, COUNT(*) AS count, " +
+                "    RANK() OVER (ORDER BY COUNT(*) DESC) AS stateRank " +
+                "    FROM " + EventsTable + " E " +
+                "    JOIN " + CitiesTable + " C ON E.EVENT_CITY_ID = C.CITY_ID " +
+                "    GROUP BY C.STATE_NAME " +
+                ") " +
+                "WHERE stateRank = 1 " +
+                "ORDER BY STATE_NAME ASC"
+            ).executeQuery();
+
+            if (FakebookStatementCache.next(rst)) {
                 int maxCount = rst.getInt("count");
                 EventStateInfo info = new EventStateInfo(maxCount);
         
-                rst.beforeFirst();
-                while (rst.next() && rst.getInt("count") == maxCount) {
-                    
-                    info.addState(rst.getString("STATE_NAME"));    
-    
-    
-                }
+                do {
+                    info.addState(rst.getString("STATE_NAME"));
+                } while (FakebookStatementCache.next(rst));
 
                 rst.close();
-                stmt.close();
 
                 return info;
 
             } else {
                 
+                rst.close();
                 System.err.println("No events found");
                 return new EventStateInfo(-1);
 
@@ -646,8 +667,16 @@ public final class StudentFakebookOracle extends FakebookOracle {
     //        (B) Find the ID, first name, and last name of the youngest friend of the user
     //            with User ID <userID>
     public AgeInfo findAgeInfo(long userID) throws SQLException {
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll,
-                FakebookOracleConstants.ReadOnly)) {
+        if (friendIndex != null) {
+            try {
+                return findAgeInfoFromIndex(userID);
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+                return new AgeInfo(new UserInfo(-1, "ERROR", "ERROR"), new UserInfo(-1, "ERROR", "ERROR"));
+            }
+        }
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            FakebookStatementCache statements = lease.statements();
             /*
                 EXAMPLE DATA STRUCTURE USAGE
                 ============================================
@@ -656,46 +685,90 @@ public final class StudentFakebookOracle extends FakebookOracle {
                 return new AgeInfo(old, young);
             */
 
-            stmt.executeUpdate(
-                "CREATE OR REPLACE VIEW BidirectionalFriends AS " +
-                "SELECT USER1_ID AS USER_ID1, USER2_ID AS USER_ID2 FROM " + FriendsTable + " " +
-                "UNION " +
-                "SELECT USER2_ID AS USER_ID1, USER1_ID AS USER_ID2 FROM " + FriendsTable
-            );
-
-            ResultSet rst = stmt.executeQuery(
-                "SELECT U.USER_ID, U.FIRST_NAME, U.LAST_NAME " +
-                "FROM " + UsersTable + " U " +
-                "JOIN BidirectionalFriends BF ON U.USER_ID = BF.USER_ID2 " +
-                "WHERE BF.USER_ID1 = " + userID + " " +
-                "ORDER BY U.YEAR_OF_BIRTH ASC, U.MONTH_OF_BIRTH ASC, U.DAY_OF_BIRTH ASC, U.USER_ID DESC"
-            );
-
-            rst.next();
-            UserInfo old = new UserInfo(rst.getLong("USER_ID"), rst.getString("FIRST_NAME"), rst.getString("LAST_NAME"));
-            
-            rst = stmt.executeQuery(
-                "SELECT U.USER_ID, U.FIRST_NAME, U.LAST_NAME " +
+            // Both friends are read through the inline friendship view in one statement: each
+            // friend is numbered in oldest-first and youngest-first order, and only the friends
+            // numbered first in either order are sent back
+            PreparedStatement stmt = statements.prepare(
+                "SELECT USER_ID, FIRST_NAME, LAST_NAME, OLDEST_RANK, YOUNGEST_RANK " +
+                "FROM ( " +
+                "SELECT U.USER_ID, U.FIRST_NAME, U.LAST_NAME, " +
+                "ROW_NUMBER() OVER (ORDER BY U.YEAR_OF_BIRTH ASC, U.MONTH_OF_BIRTH ASC, U.DAY_OF_BIRTH ASC, U.USER_ID DESC) AS OLDEST_RANK, " +
+                "ROW_NUMBER() OVER (ORDER BY U.YEAR_OF_BIRTH DESC, U.MONTH_OF_BIRTH DESC, U.DAY_OF_BIRTH DESC, U.USER_ID DESC) AS YOUNGEST_RANK " +
                 "FROM " + UsersTable + " U " +
-                "JOIN BidirectionalFriends BF ON U.USER_ID = BF.USER_ID2 " +
-                "WHERE BF.USER_ID1 = " + userID + " " +
-                "ORDER BY U.YEAR_OF_BIRTH DESC, U.MONTH_OF_BIRTH DESC, U.DAY_OF_BIRTH DESC, U.USER_ID DESC"
+                "JOIN " + BidirectionalFriends + " BF ON U.USER_ID = BF.USER_ID2 " +
+                "WHERE BF.USER_ID1 = ? " +
+                ") WHERE OLDEST_RANK = 1 OR YOUNGEST_RANK = 1"
             );
-
-            rst.next();
-            UserInfo young = new UserInfo(rst.getLong("USER_ID"), rst.getString("FIRST_NAME"), rst.getString("LAST_NAME"));
-            
+            stmt.setLong(1, userID);
+            ResultSet rst = stmt.executeQuery();
+
+            UserInfo old = null;
+            UserInfo young = null;
+            FakebookUserStore users = new FakebookUserStore();
+            while (FakebookStatementCache.next(rst)) { // one row, or two if the user has several friends
+                UserInfo friend = users.read(rst, 1);
+                if (rst.getInt(4) == 1) {
+                    old = friend;
+                }
+                if (rst.getInt(5) == 1) {
+                    young = friend;
+                }
+            }
             rst.close();
-            stmt.executeUpdate("DROP VIEW BidirectionalFriends");
-            stmt.close();
 
-            return new AgeInfo(old, young); // placeholder for compilation
+            if (old == null || young == null) {
+                System.err.println("No friends found");
+                return new AgeInfo(new UserInfo(-1, "ERROR", "ERROR"), new UserInfo(-1, "ERROR", "ERROR"));
+            }
+            return new AgeInfo(old, young);
         } catch (SQLException e) {
             System.err.println(e.getMessage());
             return new AgeInfo(new UserInfo(-1, "ERROR", "ERROR"), new UserInfo(-1, "ERROR", "ERROR"));
         }
     }
 
+    @Override
+    // Query 8 (Batch)
+    // -----------------------------------------------------------------------------------
+    // Finds the oldest and youngest friends of every user in <userIDs> in one pass over both
+    // directions of the friendships joined to the friends' birth dates, in chunks of
+    // FakebookBatchLoader.ChunkSize users, instead of creating a view and running two
+    // sorted queries per user
+    public Map<Long, AgeInfo> findAgeInfo(long[] userIDs) throws SQLException {
+        try {
+            if (friendIndex != null) {
+                return findAgeInfoFromIndex(userIDs);
+            }
+
+            LinkedHashMap<Long, AgeTracker> trackers = new LinkedHashMap<>();
+            FakebookUserStore users = new FakebookUserStore();
+            for (long userID : userIDs) {
+                trackers.putIfAbsent(userID, new AgeTracker(users));
+            }
+            try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+                new FakebookBatchLoader(lease.statements()).load(
+                    "SELECT F.USER_ID, U.USER_ID, U.FIRST_NAME, U.LAST_NAME, " +
+                    "U.YEAR_OF_BIRTH, U.MONTH_OF_BIRTH, U.DAY_OF_BIRTH " +
+                    "FROM (SELECT USER1_ID AS USER_ID, USER2_ID AS FRIEND_ID FROM " + FriendsTable + " " +
+                    "      UNION ALL " +
+                    "      SELECT USER2_ID AS USER_ID, USER1_ID AS FRIEND_ID FROM " + FriendsTable + ") F " +
+                    "JOIN " + UsersTable + " U ON U.USER_ID = F.FRIEND_ID " +
+                    "WHERE %s",
+                    new String[] { "F.USER_ID" }, FakebookBatchLoader.keys(new ArrayList<>(trackers.keySet())),
+                    (index, rst) -> trackers.get(rst.getLong(1)).offer(rst, 2));
+            }
+            return AgeTracker.results(trackers);
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            Map<Long, AgeInfo> results = new LinkedHashMap<>();
+            for (long userID : userIDs) {
+                results.put(userID, new AgeInfo(new UserInfo(-1, "ERROR", "ERROR"),
+                        new UserInfo(-1, "ERROR", "ERROR")));
+            }
+            return results;
+        }
+    }
+
     @Override
     // Query 9
     // -----------------------------------------------------------------------------------
@@ -706,62 +779,296 @@ public final class StudentFakebookOracle extends FakebookOracle {
     //              (iv) less than 10 birth years apart
     public FakebookArrayList<SiblingInfo> findPotentialSiblings() throws SQLException {
         FakebookArrayList<SiblingInfo> results = new FakebookArrayList<SiblingInfo>("\n");
+        /*
+            EXAMPLE DATA STRUCTURE USAGE
+            ============================================
+            UserInfo u1 = new UserInfo(81023, "Kim", "Kardashian");
+            UserInfo u2 = new UserInfo(17231, "Kourtney", "Kardashian");
+            SiblingInfo si = new SiblingInfo(u1, u2);
+            results.add(si);
+        */
+
+        try {
+            findPotentialSiblings(results::add);
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        }
 
-        try (Statement stmt = oracle.createStatement(FakebookOracleConstants.AllScroll,
-                FakebookOracleConstants.ReadOnly)) {
-            /*
-                EXAMPLE DATA STRUCTURE USAGE
-                ============================================
-                UserInfo u1 = new UserInfo(81023, "Kim", "Kardashian");
-                UserInfo u2 = new UserInfo(17231, "Kourtney", "Kardashian");
-                SiblingInfo si = new SiblingInfo(u1, u2);
-                results.add(si);
-            */
+        return results;
+    }
 
-            stmt.executeUpdate(
-                "CREATE OR REPLACE VIEW SiblingCandidates AS " +
+    @Override
+    // Query 9 (Streaming)
+    // -----------------------------------------------------------------------------------
+    // Passes each pair of potential siblings to <consumer> as it is read from a
+    // forward-only cursor
+    public <E extends Exception> void findPotentialSiblings(FakebookConsumer<? super SiblingInfo, E> consumer)
+            throws SQLException, E {
+        if (friendIndex != null) {
+            findPotentialSiblingsFromIndex(consumer);
+            return;
+        }
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            // One read-only statement, so no view is created that another session could drop
+            PreparedStatement siblingsStmt = lease.statements().prepare(
                 "SELECT U1.USER_ID AS USER1_ID, U2.USER_ID AS USER2_ID, U1.FIRST_NAME AS FN1, U1.LAST_NAME AS LN1, U2.FIRST_NAME AS FN2, U2.LAST_NAME AS LN2 " +
                 "FROM " + UsersTable + " U1, " + UsersTable + " U2, " + FriendsTable + " F, " + HometownCitiesTable + " HC1, " + HometownCitiesTable + " HC2 " +
                 "WHERE U1.LAST_NAME = U2.LAST_NAME AND U1.USER_ID < U2.USER_ID " +
                 "AND U1.USER_ID = F.USER1_ID AND U2.USER_ID = F.USER2_ID " +
                 "AND U1.USER_ID = HC1.USER_ID AND U2.USER_ID = HC2.USER_ID " +
                 "AND HC1.HOMETOWN_CITY_ID = HC2.HOMETOWN_CITY_ID " +
-                "AND ABS(U1.YEAR_OF_BIRTH - U2.YEAR_OF_BIRTH) < 10" +
-                "ORDER BY U1.USER_ID ASC, U2.USER_ID ASC"
-            );
+                "AND ABS(U1.YEAR_OF_BIRTH - U2.YEAR_OF_BIRTH) < 10 " +
+                "ORDER BY U1.USER_ID ASC, U2.USER_ID ASC", FakebookOracleConstants.ForwardOnly);
+            siblingsStmt.setFetchSize(FakebookOracleConstants.StreamingFetchSize);
 
-            ResultSet rst = stmt.executeQuery(
-                "SELECT USER1_ID, USER2_ID, FN1, LN1, FN2, LN2 " +
-                "FROM SiblingCandidates "
-            );
+            try (ResultSet rst = siblingsStmt.executeQuery()) {
+                FakebookUserStore users = new FakebookUserStore();
+                while (rst.next()) {
+                    Long user1Id = rst.getLong("USER1_ID");
+                    Long user2Id = rst.getLong("USER2_ID");
+                    String user1FirstName = rst.getString("FN1");
+                    String user1LastName = rst.getString("LN1");
+                    String user2FirstName = rst.getString("FN2");
+                    String user2LastName = rst.getString("LN2");
+
+                    users = users.chunk();
+                    UserInfo user1 = users.userInfo(users.add(user1Id, user1FirstName, user1LastName));
+                    UserInfo user2 = users.userInfo(users.add(user2Id, user2FirstName, user2LastName));
+                    consumer.accept(new SiblingInfo(user1, user2));
+                }
+            }
+        }
+    }
 
-            while (rst.next()) {
-                Long user1Id = rst.getLong("USER1_ID");
-                Long user2Id = rst.getLong("USER2_ID");
-                String user1FirstName = rst.getString("FN1");
-                String user1LastName = rst.getString("LN1");
-                String user2FirstName = rst.getString("FN2");
-                String user2LastName = rst.getString("LN2");
+    // [Query 2 Function (Friend Index)]
+    // EFFECTS:  passes each user the friend index lists without friends to <consumer>,
+    //           scanning only Public_Users
+    private <E extends Exception> void lonelyUsersFromIndex(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            PreparedStatement stmt = lease.statements().prepare(
+                "SELECT USER_ID, FIRST_NAME, LAST_NAME " +
+                "FROM " + UsersTable + " " +
+                "ORDER BY USER_ID", FakebookOracleConstants.ForwardOnly);
+            stmt.setFetchSize(FakebookOracleConstants.StreamingFetchSize);
 
-                UserInfo user1 = new UserInfo(user1Id, user1FirstName, user1LastName);
-                UserInfo user2 = new UserInfo(user2Id, user2FirstName, user2LastName);
-                results.add(new SiblingInfo(user1, user2));
+            try (ResultSet rst = stmt.executeQuery()) {
+                FakebookUserStore users = new FakebookUserStore();
+                while (rst.next()) {
+                    int vertex = friendIndex.vertex(rst.getLong(1));
+                    if (vertex == FakebookFriendIndex.NO_VERTEX || friendIndex.degree(vertex) == 0) {
+                        users = users.chunk();
+                        consumer.accept(users.read(rst, 1));
+                    }
+                }
             }
+        }
+    }
 
-            rst.close();
-            stmt.executeUpdate("DROP VIEW SiblingCandidates");
-            stmt.close();
+    // [Query 6 Function (Friend Index)]
+    // MODIFIES: <results>
+    // EFFECTS:  adds the top <num> pairs found by the friend index to <results>, best
+    //           first, fetching the names of the pairs and their common friends in batches
+    private void suggestFriendsFromIndex(int num, FakebookArrayList<UsersPair> results) throws SQLException {
+        int[][] candidates = friendIndex.suggestPairs(num);
+        int[][] shared = new int[candidates.length][];
+        ArrayList<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < candidates.length; i++) {
+            shared[i] = friendIndex.commonNeighbours(candidates[i][1], candidates[i][2]);
+            userIds.add(friendIndex.userId(candidates[i][1]));
+            userIds.add(friendIndex.userId(candidates[i][2]));
+            for (int friend : shared[i]) {
+                userIds.add(friendIndex.userId(friend));
+            }
+        }
+
+        HashMap<Long, UserInfo> users = new HashMap<>();
+        FakebookUserStore store = new FakebookUserStore();
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            new FakebookBatchLoader(lease.statements()).load(
+                "SELECT U.USER_ID, U.FIRST_NAME, U.LAST_NAME " +
+                "FROM " + UsersTable + " U " +
+                "WHERE %s",
+                new String[] { "U.USER_ID" }, FakebookBatchLoader.keys(userIds),
+                (index, rst) -> users.put(rst.getLong(1), store.read(rst, 1)));
+        }
 
+        for (int i = 0; i < candidates.length; i++) {
+            UsersPair pair = new UsersPair(users.get(friendIndex.userId(candidates[i][1])),
+                    users.get(friendIndex.userId(candidates[i][2])));
+            for (int friend : shared[i]) {
+                pair.addSharedFriend(users.get(friendIndex.userId(friend)));
+            }
+            results.add(pair);
+        }
+    }
 
-        } catch (SQLException e) {
-            System.err.println(e.getMessage());
+    // [Query 8 Function (Friend Index)]
+    // EFFECTS:  returns the oldest and youngest of the friends the friend index lists for
+    //           <userID>, fetching only their birth dates
+    private AgeInfo findAgeInfoFromIndex(long userID) throws SQLException {
+        return findAgeInfoFromIndex(new long[] { userID }).get(userID);
+    }
+
+    // [Batch Query 8 Function (Friend Index)]
+    // EFFECTS:  returns the oldest and youngest friends of each of <userIDs>, as listed by
+    //           the friend index, fetching the birth dates of all their friends at once
+    private Map<Long, AgeInfo> findAgeInfoFromIndex(long[] userIDs) throws SQLException {
+        LinkedHashMap<Long, AgeTracker> trackers = new LinkedHashMap<>();
+        LinkedHashMap<Long, ArrayList<AgeTracker>> friendOf = new LinkedHashMap<>();
+        FakebookUserStore users = new FakebookUserStore();
+        for (long userID : userIDs) {
+            if (trackers.containsKey(userID)) {
+                continue;
+            }
+            AgeTracker tracker = new AgeTracker(users);
+            trackers.put(userID, tracker);
+            int vertex = friendIndex.vertex(userID);
+            if (vertex == FakebookFriendIndex.NO_VERTEX) {
+                continue;
+            }
+            for (int idx = friendIndex.firstNeighbour(vertex); idx < friendIndex.endNeighbour(vertex); idx++) {
+                friendOf.computeIfAbsent(friendIndex.userId(friendIndex.neighbour(idx)), k -> new ArrayList<>())
+                        .add(tracker);
+            }
         }
 
-        return results;
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            new FakebookBatchLoader(lease.statements()).load(
+                "SELECT U.USER_ID, U.FIRST_NAME, U.LAST_NAME, U.YEAR_OF_BIRTH, U.MONTH_OF_BIRTH, U.DAY_OF_BIRTH " +
+                "FROM " + UsersTable + " U " +
+                "WHERE %s",
+                new String[] { "U.USER_ID" }, FakebookBatchLoader.keys(new ArrayList<>(friendOf.keySet())),
+                (index, rst) -> {
+                    for (AgeTracker tracker : friendOf.get(rst.getLong(1))) {
+                        tracker.offer(rst, 1);
+                    }
+                });
+        }
+        return AgeTracker.results(trackers);
+    }
+
+    /*
+        The AgeTracker class keeps the oldest and youngest of the friends offered to it.
+        Birth dates compare by (year, month, day) with NULL parts later than any date, and
+        ties go to the larger user ID, as in the ORDER BY clauses of Query 8.
+    */
+    private static final class AgeTracker {
+        // REQUIRES: <users> is only filled by the thread using this tracker
+        AgeTracker(FakebookUserStore users) {
+            this.users = users;
+        }
+
+        // REQUIRES: columns <column> to <column> + 5 of the current row of <rst> are a
+        //           friend's USER_ID, FIRST_NAME, LAST_NAME, YEAR_OF_BIRTH, MONTH_OF_BIRTH
+        //           and DAY_OF_BIRTH
+        // MODIFIES: this
+        // EFFECTS:  keeps the friend if it is the oldest or youngest offered so far
+        void offer(ResultSet rst, int column) throws SQLException {
+            long[] key = new long[] { dateKey(rst, column + 3), dateKey(rst, column + 4),
+                    dateKey(rst, column + 5), rst.getLong(column) };
+            int older = oldestKey == null ? -1 : compare(key, oldestKey);
+            int younger = youngestKey == null ? 1 : compare(key, youngestKey);
+            boolean isOldest = older < 0 || older == 0 && key[3] > oldestKey[3];
+            boolean isYoungest = younger > 0 || younger == 0 && key[3] > youngestKey[3];
+            if (!isOldest && !isYoungest) {
+                return;
+            }
+            UserInfo user = users.read(rst, column);
+            if (isOldest) {
+                oldestKey = key;
+                oldest = user;
+            }
+            if (isYoungest) {
+                youngestKey = key;
+                youngest = user;
+            }
+        }
+
+        // EFFECTS:  returns the oldest and youngest friends offered, or an error AgeInfo if
+        //           none were
+        AgeInfo toAgeInfo() {
+            if (oldest == null) {
+                return new AgeInfo(new UserInfo(-1, "ERROR", "ERROR"), new UserInfo(-1, "ERROR", "ERROR"));
+            }
+            return new AgeInfo(oldest, youngest);
+        }
+
+        // EFFECTS:  returns the AgeInfo of each tracker in <trackers>, in the same order
+        static Map<Long, AgeInfo> results(LinkedHashMap<Long, AgeTracker> trackers) {
+            Map<Long, AgeInfo> results = new LinkedHashMap<>();
+            for (Map.Entry<Long, AgeTracker> tracker : trackers.entrySet()) {
+                results.put(tracker.getKey(), tracker.getValue().toAgeInfo());
+            }
+            return results;
+        }
+
+        // EFFECTS:  returns the birth date part in column <column> of the current row of
+        //           <rst>, with NULL above every other value
+        private static long dateKey(ResultSet rst, int column) throws SQLException {
+            long part = rst.getLong(column);
+            return rst.wasNull() ? Long.MAX_VALUE : part;
+        }
+
+        // EFFECTS:  compares the (year, month, day) parts of two keys
+        private static int compare(long[] a, long[] b) {
+            for (int part = 0; part < 3; part++) {
+                if (a[part] != b[part]) {
+                    return Long.compare(a[part], b[part]);
+                }
+            }
+            return 0;
+        }
+
+        // Store the friends kept are added to, which trackers of one batch share
+        private final FakebookUserStore users;
+
+        // Each key is {year, month, day, user ID}
+        private long[] oldestKey;
+        private long[] youngestKey;
+        private UserInfo oldest;
+        private UserInfo youngest;
+    }
+
+    // [Query 9 Function (Friend Index)]
+    // EFFECTS:  passes each pair of users with the same last name and hometown, born less
+    //           than 10 years apart, that the friend index lists as friends to <consumer>,
+    //           in (user1, user2) order
+    private <E extends Exception> void findPotentialSiblingsFromIndex(
+            FakebookConsumer<? super SiblingInfo, E> consumer) throws SQLException, E {
+        try (FakebookConnectionPool.Lease lease = pool.acquire()) {
+            PreparedStatement stmt = lease.statements().prepare(
+                "SELECT U1.USER_ID, U2.USER_ID, U1.FIRST_NAME, U1.LAST_NAME, U2.FIRST_NAME, U2.LAST_NAME " +
+                "FROM " + UsersTable + " U1, " + UsersTable + " U2, " +
+                HometownCitiesTable + " HC1, " + HometownCitiesTable + " HC2 " +
+                "WHERE U1.LAST_NAME = U2.LAST_NAME AND U1.USER_ID < U2.USER_ID " +
+                "AND U1.USER_ID = HC1.USER_ID AND U2.USER_ID = HC2.USER_ID " +
+                "AND HC1.HOMETOWN_CITY_ID = HC2.HOMETOWN_CITY_ID " +
+                "AND ABS(U1.YEAR_OF_BIRTH - U2.YEAR_OF_BIRTH) < 10 " +
+                "ORDER BY U1.USER_ID ASC, U2.USER_ID ASC", FakebookOracleConstants.ForwardOnly);
+            stmt.setFetchSize(FakebookOracleConstants.StreamingFetchSize);
+
+            try (ResultSet rst = stmt.executeQuery()) {
+                FakebookUserStore users = new FakebookUserStore();
+                while (rst.next()) {
+                    int vertex1 = friendIndex.vertex(rst.getLong(1));
+                    int vertex2 = friendIndex.vertex(rst.getLong(2));
+                    if (vertex1 == FakebookFriendIndex.NO_VERTEX || vertex2 == FakebookFriendIndex.NO_VERTEX
+                            || !friendIndex.areFriends(vertex1, vertex2)) {
+                        continue;
+                    }
+                    users = users.chunk();
+                    UserInfo user1 = users.userInfo(users.add(rst.getLong(1), rst.getString(3), rst.getString(4)));
+                    UserInfo user2 = users.userInfo(users.add(rst.getLong(2), rst.getString(5), rst.getString(6)));
+                    consumer.accept(new SiblingInfo(user1, user2));
+                }
+            }
+        }
     }
 
     // Member Variables
-    private Connection oracle;
+    private final FakebookConnectionPool pool;
+    private final FakebookFriendIndex friendIndex;
     private final String UsersTable = FakebookOracleConstants.UsersTable;
     private final String CitiesTable = FakebookOracleConstants.CitiesTable;
     private final String FriendsTable = FakebookOracleConstants.FriendsTable;
@@ -773,4 +1080,11 @@ public final class StudentFakebookOracle extends FakebookOracle {
     private final String AlbumsTable = FakebookOracleConstants.AlbumsTable;
     private final String PhotosTable = FakebookOracleConstants.PhotosTable;
     private final String TagsTable = FakebookOracleConstants.TagsTable;
+
+    // Both directions of every friendship as an inline view (USER_ID1, USER_ID2), read in
+    // place of a shared view so that no query runs DDL
+    private final String BidirectionalFriends =
+            "(SELECT USER1_ID AS USER_ID1, USER2_ID AS USER_ID2 FROM " + FriendsTable + " " +
+            "UNION " +
+            "SELECT USER2_ID AS USER_ID1, USER1_ID AS USER_ID2 FROM " + FriendsTable + ")";
 }
@@ -0,0 +1,185 @@
+package project2;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+/*
+    The TracingFakebookOracle class is derived from the FakebookOracle class and runs each
+    query of another FakebookOracle inside a FakebookTracer span named after the query, so
+    that the statements the query runs on connections wrapped by the same tracer are
+    recorded under it. Each span also counts the rows of the query's result.
+*/
+public final class TracingFakebookOracle extends FakebookOracle {
+    // [Constructor]
+    // REQUIRES: neither <oracle> nor <tracer> is NULL
+    public TracingFakebookOracle(FakebookOracle oracle, FakebookTracer tracer) {
+        this.oracle = oracle;
+        this.tracer = tracer;
+    }
+
+    // [Tracer Accessor]
+    public FakebookTracer getTracer() {
+        return tracer;
+    }
+
+    @Override
+    // Query 0
+    public BirthMonthInfo findMonthOfBirthInfo() throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 0 findMonthOfBirthInfo")) {
+            BirthMonthInfo result = oracle.findMonthOfBirthInfo();
+            span.addRows(1);
+            return result;
+        }
+    }
+
+    @Override
+    // Query 1
+    public FirstNameInfo findNameInfo() throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 1 findNameInfo")) {
+            FirstNameInfo result = oracle.findNameInfo();
+            span.addRows(1);
+            return result;
+        }
+    }
+
+    @Override
+    // Query 2
+    public FakebookArrayList<UserInfo> lonelyUsers() throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 2 lonelyUsers")) {
+            FakebookArrayList<UserInfo> results = oracle.lonelyUsers();
+            span.addRows(results.size());
+            return results;
+        }
+    }
+
+    @Override
+    // Query 2 (Streaming)
+    public <E extends Exception> void lonelyUsers(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        try (FakebookTracer.Span span = tracer.begin("Query 2 lonelyUsers")) {
+            oracle.lonelyUsers(counted(span, consumer));
+        }
+    }
+
+    @Override
+    // Query 3
+    public FakebookArrayList<UserInfo> liveAwayFromHome() throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 3 liveAwayFromHome")) {
+            FakebookArrayList<UserInfo> results = oracle.liveAwayFromHome();
+            span.addRows(results.size());
+            return results;
+        }
+    }
+
+    @Override
+    // Query 3 (Streaming)
+    public <E extends Exception> void liveAwayFromHome(FakebookConsumer<? super UserInfo, E> consumer)
+            throws SQLException, E {
+        try (FakebookTracer.Span span = tracer.begin("Query 3 liveAwayFromHome")) {
+            oracle.liveAwayFromHome(counted(span, consumer));
+        }
+    }
+
+    @Override
+    // Query 4
+    public FakebookArrayList<TaggedPhotoInfo> findPhotosWithMostTags(int num) throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 4 findPhotosWithMostTags")) {
+            FakebookArrayList<TaggedPhotoInfo> results = oracle.findPhotosWithMostTags(num);
+            span.addRows(results.size());
+            return results;
+        }
+    }
+
+    @Override
+    // Query 5
+    public FakebookArrayList<MatchPair> matchMaker(int num, int yearDiff) throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 5 matchMaker")) {
+            FakebookArrayList<MatchPair> results = oracle.matchMaker(num, yearDiff);
+            span.addRows(results.size());
+            return results;
+        }
+    }
+
+    @Override
+    // Query 5 (Streaming)
+    public <E extends Exception> void matchMaker(int num, int yearDiff, FakebookConsumer<? super MatchPair, E> consumer)
+            throws SQLException, E {
+        try (FakebookTracer.Span span = tracer.begin("Query 5 matchMaker")) {
+            oracle.matchMaker(num, yearDiff, counted(span, consumer));
+        }
+    }
+
+    @Override
+    // Query 6
+    public FakebookArrayList<UsersPair> suggestFriends(int num) throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 6 suggestFriends")) {
+            FakebookArrayList<UsersPair> results = oracle.suggestFriends(num);
+            span.addRows(results.size());
+            return results;
+        }
+    }
+
+    @Override
+    // Query 7
+    public EventStateInfo findEventStates() throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 7 findEventStates")) {
+            EventStateInfo result = oracle.findEventStates();
+            span.addRows(1);
+            return result;
+        }
+    }
+
+    @Override
+    // Query 8
+    public AgeInfo findAgeInfo(long userID) throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 8 findAgeInfo")) {
+            AgeInfo result = oracle.findAgeInfo(userID);
+            span.addRows(1);
+            return result;
+        }
+    }
+
+    @Override
+    // Query 8 (Batch)
+    public Map<Long, AgeInfo> findAgeInfo(long[] userIDs) throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 8 findAgeInfo (Batch)")) {
+            Map<Long, AgeInfo> results = oracle.findAgeInfo(userIDs);
+            span.addRows(results.size());
+            return results;
+        }
+    }
+
+    @Override
+    // Query 9
+    public FakebookArrayList<SiblingInfo> findPotentialSiblings() throws SQLException {
+        try (FakebookTracer.Span span = tracer.begin("Query 9 findPotentialSiblings")) {
+            FakebookArrayList<SiblingInfo> results = oracle.findPotentialSiblings();
+            span.addRows(results.size());
+            return results;
+        }
+    }
+
+    @Override
+    // Query 9 (Streaming)
+    public <E extends Exception> void findPotentialSiblings(FakebookConsumer<? super SiblingInfo, E> consumer)
+            throws SQLException, E {
+        try (FakebookTracer.Span span = tracer.begin("Query 9 findPotentialSiblings")) {
+            oracle.findPotentialSiblings(counted(span, consumer));
+        }
+    }
+
+    // [Counting Consumer]
+    // EFFECTS:  returns a consumer that counts each item on <span> and passes it on to
+    //           <consumer>
+    private static <T, E extends Exception> FakebookConsumer<T, E> counted(FakebookTracer.Span span,
+            FakebookConsumer<? super T, E> consumer) {
+        return item -> {
+            span.addRows(1);
+            consumer.accept(item);
+        };
+    }
+
+    // Member Variables
+    private final FakebookOracle oracle;
+    private final FakebookTracer tracer;
+}